@@ -0,0 +1,157 @@
+package dev.karlkadak.backend.client;
+
+import dev.karlkadak.backend.exception.UpstreamRequestException;
+import dev.karlkadak.backend.exception.UpstreamUnavailableException;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Stops calls to an upstream after it has failed repeatedly, so that callers fail immediately instead of waiting for
+ * a degraded upstream<br> After {@link #failureThreshold} consecutive transient failures the breaker opens and rejects
+ * all calls for {@link #openDuration}, after which a single probe call is let through: the breaker closes if the probe
+ * succeeds and opens again if it fails<br> Every state transition starts a new generation, outcomes of calls that
+ * started in an older generation are ignored so that late results cannot undo a later transition<br> Safe to use from
+ * multiple threads
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Name of the upstream, used in error messages
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * Amount of consecutive transient failures after which the breaker opens
+     */
+    private final int failureThreshold;
+
+    /**
+     * Time the breaker stays open before letting a probe call through
+     */
+    private final Duration openDuration;
+
+    // State guarded by the instance lock
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+    private long generation;
+
+    /**
+     * Default constructor
+     *
+     * @param name             name of the upstream, used in error messages
+     * @param failureThreshold amount of consecutive transient failures after which the breaker opens
+     * @param openDuration     time the breaker stays open before letting a probe call through
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Performs the call if the breaker permits it and records its outcome<br> Transient errors as defined by
+     * {@link RetryPolicy#isTransient} count as failures, other responses of the upstream count as successes
+     *
+     * @param call call to perform
+     * @param <T>  type of the call's result
+     * @return result of the call
+     * @throws UpstreamUnavailableException in case the breaker is open
+     */
+    public <T> T execute(Supplier<T> call) {
+        long callGeneration = acquirePermission();
+
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            if (RetryPolicy.isTransient(e)) onFailure(callGeneration);
+            else if (e instanceof UpstreamRequestException) onSuccess(callGeneration);
+            else onIndeterminate(callGeneration);
+            throw e;
+        }
+
+        onSuccess(callGeneration);
+        return result;
+    }
+
+    /**
+     * @return true if the breaker is open and is currently rejecting all calls, false otherwise
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN && System.nanoTime() - openedAtNanos < openDuration.toNanos();
+    }
+
+    /**
+     * @return current state of the breaker
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Checks whether a call is permitted, moves an open breaker to {@link State#HALF_OPEN HALF_OPEN} once
+     * {@link #openDuration} has passed
+     *
+     * @return generation the permitted call started in
+     * @throws UpstreamUnavailableException in case the call is not permitted
+     */
+    private synchronized long acquirePermission() {
+        if (state == State.OPEN) {
+            boolean stillOpen = System.nanoTime() - openedAtNanos < openDuration.toNanos();
+            if (stillOpen) throw new UpstreamUnavailableException(name);
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) throw new UpstreamUnavailableException(name);
+            probeInFlight = true;
+        }
+        return generation;
+    }
+
+    private synchronized void onSuccess(long callGeneration) {
+        if (callGeneration != generation) return;
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) transitionTo(State.CLOSED);
+    }
+
+    private synchronized void onFailure(long callGeneration) {
+        if (callGeneration != generation) return;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            transitionTo(State.OPEN);
+            openedAtNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Called when the call failed without reaching the upstream, such as when rejected by the rate limiter, neither
+     * closes nor opens the breaker
+     */
+    private synchronized void onIndeterminate(long callGeneration) {
+        if (callGeneration != generation) return;
+        probeInFlight = false;
+    }
+
+    /**
+     * Moves the breaker to the given state and starts a new generation, outcomes of calls started before are ignored
+     *
+     * @param newState state to move to
+     */
+    private void transitionTo(State newState) {
+        state = newState;
+        generation++;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+}
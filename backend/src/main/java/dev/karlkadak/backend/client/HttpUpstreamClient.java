@@ -0,0 +1,49 @@
+package dev.karlkadak.backend.client;
+
+import dev.karlkadak.backend.exception.UpstreamRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link UpstreamClient} implementation backed by the JDK {@link HttpClient}, which keeps its connections pooled and
+ * uses HTTP/2 where the upstream supports it<br> Every request takes a token from the shared
+ * {@link UpstreamRateLimiter} before being sent
+ */
+@Component
+public class HttpUpstreamClient implements UpstreamClient {
+
+    private final HttpClient httpClient;
+    private final UpstreamRateLimiter rateLimiter;
+
+    /**
+     * Maximum time gathered from application.properties to wait for a response after sending a request
+     */
+    private final Duration readTimeout;
+
+    @Autowired
+    public HttpUpstreamClient(HttpClient httpClient, UpstreamRateLimiter rateLimiter,
+                              @Value("${upstream.timeout.read}") Duration readTimeout) {
+        this.httpClient = httpClient;
+        this.rateLimiter = rateLimiter;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(String url, UpstreamPriority priority) {
+        rateLimiter.acquire(priority);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url)).timeout(readTimeout).GET().build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() / 100 != 2) throw new UpstreamRequestException(response.statusCode());
+            return response.body();
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package dev.karlkadak.backend.client;
+
+import dev.karlkadak.backend.exception.UpstreamRequestException;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries upstream calls failing with a transient error, waiting an exponentially growing, randomly jittered delay
+ * between the attempts
+ */
+public class RetryPolicy {
+
+    /**
+     * Maximum amount of attempts including the first one
+     */
+    private final int maxAttempts;
+
+    /**
+     * Upper bound of the delay before the first retry, doubled for every following retry
+     */
+    private final Duration baseDelay;
+
+    /**
+     * Upper bound of the delay before any retry
+     */
+    private final Duration maxDelay;
+
+    /**
+     * Default constructor
+     *
+     * @param maxAttempts maximum amount of attempts including the first one
+     * @param baseDelay   upper bound of the delay before the first retry, doubled for every following retry
+     * @param maxDelay    upper bound of the delay before any retry
+     */
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Performs the call, retrying it in case of a transient error until the maximum amount of attempts is reached
+     *
+     * @param call call to perform
+     * @param <T>  type of the call's result
+     * @return result of the first successful attempt
+     * @throws RuntimeException the error of the last attempt, or the first non-transient error
+     */
+    public <T> T execute(Supplier<T> call) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !isTransient(e)) throw e;
+                try {
+                    Thread.sleep(delayBefore(attempt + 1));
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether an error indicates a temporary upstream problem which may be resolved by retrying, that is a
+     * failed request without a response, a "429 Too Many Requests" response or a server error response
+     *
+     * @param e error to check
+     * @return true if the error is transient, false otherwise
+     */
+    public static boolean isTransient(RuntimeException e) {
+        if (!(e instanceof UpstreamRequestException upstreamRequestException)) return false;
+        Integer statusCode = upstreamRequestException.getStatusCode();
+        return statusCode == null || statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * Picks a random delay between zero and the exponentially growing upper bound ("full jitter"), which spreads out
+     * the retries of concurrent callers
+     *
+     * @param attempt number of the upcoming attempt, at least 2
+     * @return delay in milliseconds
+     */
+    private long delayBefore(int attempt) {
+        long upperBound = Math.min(maxDelay.toMillis(), baseDelay.toMillis() << Math.min(attempt - 2, 30));
+        return ThreadLocalRandom.current().nextLong(upperBound + 1);
+    }
+}
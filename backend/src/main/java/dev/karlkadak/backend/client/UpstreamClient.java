@@ -0,0 +1,43 @@
+package dev.karlkadak.backend.client;
+
+import dev.karlkadak.backend.exception.UpstreamRateLimitExceededException;
+import dev.karlkadak.backend.exception.UpstreamRequestException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Client used for performing HTTP GET requests against upstream APIs, such as the
+ * <a href="https://openweathermap.org/api">OpenWeather API</a>
+ */
+public interface UpstreamClient {
+
+    /**
+     * Asynchronously performs an HTTP GET request<br> Blocks the caller only while waiting for the
+     * {@link UpstreamRateLimiter}
+     *
+     * @param url      complete URL of the requested resource
+     * @param priority priority of the request
+     * @return a {@link CompletableFuture} completing with the response body, or exceptionally in case of a failed
+     * request or a non-successful response status code
+     */
+    CompletableFuture<String> getAsync(String url, UpstreamPriority priority);
+
+    /**
+     * Performs an HTTP GET request and blocks until the response is received
+     *
+     * @param url      complete URL of the requested resource
+     * @param priority priority of the request
+     * @return the response body
+     * @throws UpstreamRequestException           in case of a failed request or a non-successful response status code
+     * @throws UpstreamRateLimitExceededException in case the request was rejected by the {@link UpstreamRateLimiter}
+     */
+    default String get(String url, UpstreamPriority priority) {
+        try {
+            return getAsync(url, priority).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UpstreamRequestException cause) throw cause;
+            throw new UpstreamRequestException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package dev.karlkadak.backend.client;
+
+/**
+ * Priority lanes of upstream API requests used by {@link UpstreamRateLimiter}
+ */
+public enum UpstreamPriority {
+
+    /**
+     * Requests made on behalf of an API client waiting for the response, such as geocoding a newly added city
+     */
+    INTERACTIVE,
+
+    /**
+     * Requests made by background jobs, such as the scheduled weather data import<br> Only served when no
+     * {@link #INTERACTIVE} request is waiting
+     */
+    BACKGROUND
+}
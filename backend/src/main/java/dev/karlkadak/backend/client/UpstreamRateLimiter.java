@@ -0,0 +1,170 @@
+package dev.karlkadak.backend.client;
+
+import dev.karlkadak.backend.exception.UpstreamRateLimitExceededException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Process-wide token bucket limiting the rate of requests made to the
+ * <a href="https://openweathermap.org/api">OpenWeather API</a>, shared by all requests using the same API key<br>
+ * The bucket holds up to a minute's worth of tokens and is refilled continuously, additionally a daily quota is
+ * enforced which resets at midnight UTC<br> Callers wait for a token up to a bounded time depending on their
+ * {@link UpstreamPriority}, {@link UpstreamPriority#INTERACTIVE INTERACTIVE} callers are always served before
+ * {@link UpstreamPriority#BACKGROUND BACKGROUND} ones
+ */
+@Component
+public class UpstreamRateLimiter {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition tokensChanged = lock.newCondition();
+
+    /**
+     * Maximum amount of tokens in the bucket, equal to the amount of requests allowed per minute
+     */
+    private final double capacity;
+
+    /**
+     * Amount of tokens added to the bucket per nanosecond
+     */
+    private final double refillRate;
+
+    /**
+     * Maximum amount of requests allowed per day
+     */
+    private final long dailyLimit;
+
+    /**
+     * Maximum time callers of each priority wait for a token
+     */
+    private final Map<UpstreamPriority, Duration> maxWaits = new EnumMap<>(UpstreamPriority.class);
+
+    private final Map<UpstreamPriority, AtomicLong> consumedCounts = new EnumMap<>(UpstreamPriority.class);
+    private final Map<UpstreamPriority, AtomicLong> rejectedCounts = new EnumMap<>(UpstreamPriority.class);
+
+    // State guarded by the lock
+    private double tokens;
+    private long lastRefillNanos;
+    private long dailyUsed;
+    private LocalDate quotaDay;
+    private int interactiveWaiting;
+
+    @Autowired
+    public UpstreamRateLimiter(@Value("${upstream.rate.minute.limit}") int minuteLimit,
+                               @Value("${upstream.rate.daily.limit}") long dailyLimit,
+                               @Value("${upstream.rate.wait.interactive}") Duration interactiveMaxWait,
+                               @Value("${upstream.rate.wait.background}") Duration backgroundMaxWait) {
+        this.capacity = Math.max(1, minuteLimit);
+        this.refillRate = capacity / TimeUnit.MINUTES.toNanos(1);
+        this.dailyLimit = dailyLimit;
+        this.maxWaits.put(UpstreamPriority.INTERACTIVE, interactiveMaxWait);
+        this.maxWaits.put(UpstreamPriority.BACKGROUND, backgroundMaxWait);
+        for (UpstreamPriority priority : UpstreamPriority.values()) {
+            consumedCounts.put(priority, new AtomicLong());
+            rejectedCounts.put(priority, new AtomicLong());
+        }
+
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+        this.quotaDay = LocalDate.now(ZoneOffset.UTC);
+    }
+
+    /**
+     * Takes a token for performing a single upstream request, waiting for one to become available if necessary
+     *
+     * @param priority priority of the request
+     * @throws UpstreamRateLimitExceededException in case the daily quota is exhausted or no token became available
+     *                                            within the maximum waiting time of the priority
+     */
+    public void acquire(UpstreamPriority priority) {
+        final long deadline = System.nanoTime() + maxWaits.get(priority).toNanos();
+
+        lock.lock();
+        if (priority == UpstreamPriority.INTERACTIVE) interactiveWaiting++;
+        try {
+            while (true) {
+                refill();
+                if (dailyUsed >= dailyLimit) throw reject(priority, "Daily upstream request quota exhausted.");
+
+                // Background requests give way to waiting interactive ones
+                boolean yielding = priority == UpstreamPriority.BACKGROUND && interactiveWaiting > 0;
+                if (!yielding && tokens >= 1) {
+                    tokens--;
+                    dailyUsed++;
+                    consumedCounts.get(priority).incrementAndGet();
+                    return;
+                }
+
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) throw reject(priority, "Timed out waiting for upstream request rate limit.");
+                long nanosUntilToken = tokens >= 1 ? remainingNanos : (long) Math.ceil((1 - tokens) / refillRate);
+                try {
+                    tokensChanged.awaitNanos(Math.min(remainingNanos, nanosUntilToken));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw reject(priority, "Interrupted while waiting for upstream request rate limit.");
+                }
+            }
+        } finally {
+            if (priority == UpstreamPriority.INTERACTIVE) {
+                interactiveWaiting--;
+                tokensChanged.signalAll();
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param priority priority of the requests
+     * @return amount of tokens taken by requests of the given priority since startup
+     */
+    public long getConsumedCount(UpstreamPriority priority) {
+        return consumedCounts.get(priority).get();
+    }
+
+    /**
+     * @param priority priority of the requests
+     * @return amount of requests of the given priority rejected since startup
+     */
+    public long getRejectedCount(UpstreamPriority priority) {
+        return rejectedCounts.get(priority).get();
+    }
+
+    /**
+     * Adds the tokens accumulated since the last refill and resets the daily quota on a new day, must be called while
+     * holding the lock
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillRate);
+        lastRefillNanos = now;
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        if (!today.equals(quotaDay)) {
+            quotaDay = today;
+            dailyUsed = 0;
+        }
+    }
+
+    /**
+     * Counts a rejected request
+     *
+     * @param priority priority of the rejected request
+     * @param reason   reason of the rejection
+     * @return the exception to throw to the caller
+     */
+    private UpstreamRateLimitExceededException reject(UpstreamPriority priority, String reason) {
+        rejectedCounts.get(priority).incrementAndGet();
+        return new UpstreamRateLimitExceededException(reason);
+    }
+}
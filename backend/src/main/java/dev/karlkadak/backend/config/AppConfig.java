@@ -1,33 +1,139 @@
 package dev.karlkadak.backend.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.karlkadak.backend.client.CircuitBreaker;
+import dev.karlkadak.backend.client.RetryPolicy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
 @Configuration
 public class AppConfig {
 
     @Bean
+    @Primary
     public ThreadPoolTaskScheduler taskScheduler() {
         return new ThreadPoolTaskScheduler();
     }
 
+    /**
+     * Scheduler running only the cluster heartbeat, so that a long import on the {@link #taskScheduler} cannot delay
+     * the heartbeat past its timeout and let other instances take over the cities being imported
+     *
+     * @return the single-threaded {@link ThreadPoolTaskScheduler}
+     */
+    @Bean
+    public ThreadPoolTaskScheduler heartbeatScheduler() {
+        ThreadPoolTaskScheduler heartbeatScheduler = new ThreadPoolTaskScheduler();
+        heartbeatScheduler.setThreadNamePrefix("heartbeat-");
+        return heartbeatScheduler;
+    }
+
+    /**
+     * Scheduler running the maintenance of the in-memory and aggregated weather data, so that it is not delayed until
+     * a long import on the {@link #taskScheduler} finishes, uses two threads so that a long backfill of the rollups
+     * does not delay the other maintenance either
+     *
+     * @return the {@link ThreadPoolTaskScheduler}
+     */
+    @Bean
+    public ThreadPoolTaskScheduler maintenanceScheduler() {
+        ThreadPoolTaskScheduler maintenanceScheduler = new ThreadPoolTaskScheduler();
+        maintenanceScheduler.setPoolSize(2);
+        maintenanceScheduler.setThreadNamePrefix("maintenance-");
+        return maintenanceScheduler;
+    }
+
+    /**
+     * Executor running the initial imports of cities enabled in bulk, so that they do not wait for a long import on the
+     * {@link #taskScheduler} to finish
+     *
+     * @return the single-threaded {@link ThreadPoolTaskExecutor}
+     */
+    @Bean
+    public ThreadPoolTaskExecutor cityImportExecutor() {
+        ThreadPoolTaskExecutor cityImportExecutor = new ThreadPoolTaskExecutor();
+        cityImportExecutor.setCorePoolSize(1);
+        cityImportExecutor.setThreadNamePrefix("city-import-");
+        return cityImportExecutor;
+    }
+
     @Bean
     public Logger logger() {
         return Logger.getLogger(AppConfig.class.getName());
     }
 
+    /**
+     * Shared HTTP client used by {@link dev.karlkadak.backend.client.HttpUpstreamClient HttpUpstreamClient}, response
+     * handling runs on virtual threads so that waiting for slow responses does not tie up platform threads
+     *
+     * @param connectTimeout maximum time gathered from application.properties to wait for a connection to be
+     *                       established
+     * @return the configured {@link HttpClient}
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpClient httpClient(@Value("${upstream.timeout.connect}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                         .version(HttpClient.Version.HTTP_2)
+                         .connectTimeout(connectTimeout)
+                         .followRedirects(HttpClient.Redirect.NORMAL)
+                         .executor(Executors.newVirtualThreadPerTaskExecutor())
+                         .build();
     }
 
     @Bean
     public ObjectMapper objectMapper() {
         return new ObjectMapper();
     }
+
+    /**
+     * Retry policy shared by all upstream calls
+     *
+     * @param maxAttempts maximum amount of attempts gathered from application.properties
+     * @param baseDelay   upper bound of the delay before the first retry gathered from application.properties
+     * @param maxDelay    upper bound of the delay before any retry gathered from application.properties
+     * @return the configured {@link RetryPolicy}
+     */
+    @Bean
+    public RetryPolicy upstreamRetryPolicy(@Value("${upstream.retry.attempts}") int maxAttempts,
+                                           @Value("${upstream.retry.delay.base}") Duration baseDelay,
+                                           @Value("${upstream.retry.delay.max}") Duration maxDelay) {
+        return new RetryPolicy(maxAttempts, baseDelay, maxDelay);
+    }
+
+    /**
+     * Circuit breaker guarding the current weather API calls
+     *
+     * @param failureThreshold amount of consecutive failures gathered from application.properties after which the
+     *                         breaker opens
+     * @param openDuration     time gathered from application.properties the breaker stays open
+     * @return the configured {@link CircuitBreaker}
+     */
+    @Bean
+    public CircuitBreaker weatherCircuitBreaker(@Value("${upstream.breaker.failure.threshold}") int failureThreshold,
+                                                @Value("${upstream.breaker.open.duration}") Duration openDuration) {
+        return new CircuitBreaker("weather", failureThreshold, openDuration);
+    }
+
+    /**
+     * Circuit breaker guarding the geocoding API calls
+     *
+     * @param failureThreshold amount of consecutive failures gathered from application.properties after which the
+     *                         breaker opens
+     * @param openDuration     time gathered from application.properties the breaker stays open
+     * @return the configured {@link CircuitBreaker}
+     */
+    @Bean
+    public CircuitBreaker geocodingCircuitBreaker(@Value("${upstream.breaker.failure.threshold}") int failureThreshold,
+                                                  @Value("${upstream.breaker.open.duration}") Duration openDuration) {
+        return new CircuitBreaker("geocoding", failureThreshold, openDuration);
+    }
 }
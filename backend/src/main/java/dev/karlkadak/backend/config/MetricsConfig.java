@@ -0,0 +1,76 @@
+package dev.karlkadak.backend.config;
+
+import dev.karlkadak.backend.client.CircuitBreaker;
+import dev.karlkadak.backend.client.UpstreamPriority;
+import dev.karlkadak.backend.client.UpstreamRateLimiter;
+import dev.karlkadak.backend.service.WeatherDataImporter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Registers the Micrometer gauges and counters sampling the state of existing components, the import itself is
+ * instrumented by {@link dev.karlkadak.backend.service.ImportMetrics ImportMetrics}
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * @param weatherDataImporter importer whose pipeline queues are sampled
+     * @return binder of the queue depth gauges of the running import
+     */
+    @Bean
+    public MeterBinder importQueueMetrics(WeatherDataImporter weatherDataImporter) {
+        return registry -> {
+            Gauge.builder("weather.import.queue.depth", weatherDataImporter, WeatherDataImporter::getParseQueueDepth)
+                 .description("Entries waiting in a queue of the running import")
+                 .tag("stage", "parse")
+                 .register(registry);
+            Gauge.builder("weather.import.queue.depth", weatherDataImporter, WeatherDataImporter::getPersistQueueDepth)
+                 .description("Entries waiting in a queue of the running import")
+                 .tag("stage", "persist")
+                 .register(registry);
+        };
+    }
+
+    /**
+     * @param rateLimiter rate limiter whose permits are counted
+     * @return binder of the counters of consumed and rejected upstream permits
+     */
+    @Bean
+    public MeterBinder upstreamRateLimiterMetrics(UpstreamRateLimiter rateLimiter) {
+        return registry -> {
+            for (UpstreamPriority priority : UpstreamPriority.values()) {
+                String priorityTag = priority.name().toLowerCase();
+                FunctionCounter.builder("upstream.permits", rateLimiter, r -> r.getConsumedCount(priority))
+                               .description("Upstream request permits handed out or rejected by the rate limiter")
+                               .tags("priority", priorityTag, "result", "consumed")
+                               .register(registry);
+                FunctionCounter.builder("upstream.permits", rateLimiter, r -> r.getRejectedCount(priority))
+                               .description("Upstream request permits handed out or rejected by the rate limiter")
+                               .tags("priority", priorityTag, "result", "rejected")
+                               .register(registry);
+            }
+        };
+    }
+
+    /**
+     * @param circuitBreakers all upstream circuit breakers
+     * @return binder of the gauges of the circuit breaker states, 0 when closed, 1 when open and 2 when half-open
+     */
+    @Bean
+    public MeterBinder circuitBreakerMetrics(List<CircuitBreaker> circuitBreakers) {
+        return registry -> {
+            for (CircuitBreaker circuitBreaker : circuitBreakers) {
+                Gauge.builder("upstream.breaker.state", circuitBreaker, b -> b.getState().ordinal())
+                     .description("State of the upstream circuit breaker, 0 closed, 1 open, 2 half-open")
+                     .tag("upstream", circuitBreaker.getName())
+                     .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package dev.karlkadak.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Moves the ID sequences of tables which used IDENTITY columns in earlier versions past their existing IDs<br> Runs
+ * after the schema has been updated and before anything is inserted, a sequence which is already past the existing IDs
+ * is left untouched
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SequenceMigration {
+
+    /**
+     * ID sequence of a table
+     *
+     * @param table          name of the table
+     * @param sequence       name of the sequence
+     * @param allocationSize allocation size of the sequence generator, the IDs handed out for a sequence value
+     *                       {@code v} range from {@code v - allocationSize + 1} to {@code v}
+     */
+    record Sequence(String table, String sequence, int allocationSize) {
+    }
+
+    /**
+     * Sequences of the tables which used IDENTITY columns
+     */
+    static final List<Sequence> LEGACY_SEQUENCES = List.of(new Sequence("city", "city_seq", 50),
+                                                           new Sequence("weather_data", "weather_data_seq", 50));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Logger logger;
+
+    @Autowired
+    public SequenceMigration(JdbcTemplate jdbcTemplate, Logger logger) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.logger = logger;
+    }
+
+    /**
+     * Restarts every legacy sequence whose next value would hand out IDs which are already in use
+     */
+    @PostConstruct
+    public void alignSequences() {
+        for (Sequence sequence : LEGACY_SEQUENCES) {
+            Long maxId = jdbcTemplate.queryForObject("select max(id) from " + sequence.table(), Long.class);
+            if (maxId == null) continue;
+
+            long requiredValue = maxId + sequence.allocationSize();
+            List<Long> nextValues = jdbcTemplate.queryForList(
+                    "select base_value from information_schema.sequences where upper(sequence_name) = ?", Long.class,
+                    sequence.sequence().toUpperCase());
+            if (!nextValues.isEmpty() && nextValues.getFirst() >= requiredValue) continue;
+
+            jdbcTemplate.execute("alter sequence " + sequence.sequence() + " restart with " + requiredValue);
+            logger.info(String.format("Restarted sequence %s at %d, past the existing IDs of table %s.",
+                                      sequence.sequence(), requiredValue, sequence.table()));
+        }
+    }
+}
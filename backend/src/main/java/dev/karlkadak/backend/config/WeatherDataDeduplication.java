@@ -0,0 +1,54 @@
+package dev.karlkadak.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.logging.Logger;
+
+/**
+ * Adds the unique constraint on the city and timestamp of the weather data to databases created by earlier versions,
+ * which may contain several observations of a city with the same timestamp<br> Runs after the schema has been updated,
+ * as updating the schema cannot add the constraint while duplicates exist, the duplicates are deleted first, keeping
+ * the earliest saved one
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class WeatherDataDeduplication {
+
+    /**
+     * Name of the unique constraint on the city and timestamp of the weather data
+     */
+    static final String CONSTRAINT_NAME = "uk_weather_data_city_timestamp";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Logger logger;
+
+    @Autowired
+    public WeatherDataDeduplication(JdbcTemplate jdbcTemplate, Logger logger) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.logger = logger;
+    }
+
+    /**
+     * Deletes the duplicate weather data and adds the unique constraint, unless the constraint already exists
+     */
+    @PostConstruct
+    public void deduplicate() {
+        Integer constraintCount = jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.table_constraints where upper(constraint_name) = ?",
+                Integer.class, CONSTRAINT_NAME.toUpperCase());
+        if (constraintCount != null && constraintCount > 0) return;
+
+        int deletedCount = jdbcTemplate.update("delete from weather_data w where exists (select 1 from weather_data d "
+                                               + "where d.city_id = w.city_id and d.timestamp = w.timestamp "
+                                               + "and d.id < w.id)");
+        if (deletedCount > 0) logger.info(String.format("Deleted %d duplicate weather data entries.", deletedCount));
+
+        jdbcTemplate.execute("alter table weather_data add constraint " + CONSTRAINT_NAME
+                             + " unique (city_id, timestamp)");
+        logger.info(String.format("Added the unique constraint %s to table weather_data.", CONSTRAINT_NAME));
+    }
+}
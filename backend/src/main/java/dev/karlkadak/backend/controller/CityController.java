@@ -1,20 +1,34 @@
 package dev.karlkadak.backend.controller;
 
+import dev.karlkadak.backend.dto.AddCitiesRequest;
 import dev.karlkadak.backend.dto.AddCityRequest;
+import dev.karlkadak.backend.dto.CityBatchResponse;
 import dev.karlkadak.backend.dto.CityResponse;
+import dev.karlkadak.backend.dto.CitySuggestionResponse;
+import dev.karlkadak.backend.dto.CityWeatherResponse;
+import dev.karlkadak.backend.dto.WeatherHistoryResponse;
 import dev.karlkadak.backend.dto.WeatherResponse;
+import dev.karlkadak.backend.dto.WeatherRollupResponse;
 import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.RollupResolution;
 import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.entity.WeatherRollup;
 import dev.karlkadak.backend.exception.CityNotFoundException;
 import dev.karlkadak.backend.exception.MalformedCityNameException;
 import dev.karlkadak.backend.exception.WeatherDataMissingException;
 import dev.karlkadak.backend.repository.CityRepository;
 import dev.karlkadak.backend.repository.WeatherDataRepository;
+import dev.karlkadak.backend.repository.WeatherRollupRepository;
+import dev.karlkadak.backend.service.CityListVersion;
 import dev.karlkadak.backend.service.CityManager;
+import dev.karlkadak.backend.service.CitySuggester;
+import dev.karlkadak.backend.service.LatestWeatherStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,26 +41,46 @@ import java.util.Optional;
 @RequestMapping("${api.prefix}/cities")
 public class CityController {
 
+    /**
+     * Maximum amount of weather data entries or time buckets returned by a single history or rollup request
+     */
+    private static final int MAX_HISTORY_LIMIT = 1000;
+
     private final CityRepository cityRepository;
     private final CityManager cityManager;
     private final WeatherDataRepository weatherDataRepository;
+    private final CitySuggester citySuggester;
+    private final LatestWeatherStore latestWeatherStore;
+    private final CityListVersion cityListVersion;
+    private final WeatherRollupRepository weatherRollupRepository;
 
     @Autowired
     public CityController(CityRepository cityRepository, CityManager cityManager,
-                          WeatherDataRepository weatherDataRepository) {
+                          WeatherDataRepository weatherDataRepository, CitySuggester citySuggester,
+                          LatestWeatherStore latestWeatherStore, CityListVersion cityListVersion,
+                          WeatherRollupRepository weatherRollupRepository) {
         this.cityRepository = cityRepository;
         this.cityManager = cityManager;
         this.weatherDataRepository = weatherDataRepository;
+        this.citySuggester = citySuggester;
+        this.latestWeatherStore = latestWeatherStore;
+        this.cityListVersion = cityListVersion;
+        this.weatherRollupRepository = weatherRollupRepository;
     }
 
     /**
-     * API endpoint for retrieving information about all {@link City} objects for which data collection is enabled
+     * API endpoint for retrieving information about all {@link City} objects for which data collection is
+     * enabled<br> Tagged with the {@link CityListVersion}, a request whose If-None-Match header holds the current tag
+     * is answered with 304 Not Modified without loading the cities
      *
+     * @param webRequest request to check the conditional headers of
      * @return list of {@link CityResponse} objects representing all {@link City} objects for which data collection is
      * enabled
      */
     @GetMapping
-    ResponseEntity<List<CityResponse>> all() {
+    ResponseEntity<List<CityResponse>> all(WebRequest webRequest) {
+        if (webRequest.checkNotModified(String.format("\"cities-%d\"", cityListVersion.current()))) return null;
+
         List<City> cities = cityRepository.findAllByImportingDataTrue();
         List<CityResponse> responseList = new ArrayList<>();
         for (City city : cities) {
@@ -55,6 +89,34 @@ public class CityController {
         return ResponseEntity.ok(responseList);
     }
 
+    /**
+     * API endpoint for retrieving all {@link City} objects for which data collection is enabled along with their most
+     * recent weather data<br> The cities are loaded using a single query, their weather data is taken from the
+     * {@link LatestWeatherStore}<br> Tagged with the versions of the {@link CityListVersion} and the
+     * {@link LatestWeatherStore}, a request whose If-None-Match header holds the current tag is answered with 304 Not
+     * Modified without loading the cities
+     *
+     * @param country    country code to limit the cities to, case-insensitive, all cities are returned if omitted
+     * @param webRequest request to check the conditional headers of
+     * @return list of {@link CityWeatherResponse} objects representing the cities and their latest weather data
+     */
+    @GetMapping("/weather")
+    ResponseEntity<List<CityWeatherResponse>> allWeather(@RequestParam(required = false) String country,
+                                                         WebRequest webRequest) {
+        String eTag = String.format("\"cities-%d-weather-%d\"", cityListVersion.current(),
+                                    latestWeatherStore.version());
+        if (webRequest.checkNotModified(eTag)) return null;
+
+        List<City> cities;
+        if (country == null || country.isBlank()) cities = cityRepository.findAllByImportingDataTrue();
+        else cities = cityRepository.findAllByImportingDataTrueAndCountryCodeIgnoreCase(country.strip());
+        List<CityWeatherResponse> responseList = new ArrayList<>(cities.size());
+        for (City city : cities) {
+            responseList.add(new CityWeatherResponse(city, latestWeatherStore.find(city.getId()).orElse(null)));
+        }
+        return ResponseEntity.ok(responseList);
+    }
+
     /**
      * API endpoint for adding and / or enabling weather data tracking for a {@link City} object
      *
@@ -72,6 +134,43 @@ public class CityController {
         return ResponseEntity.status(HttpStatus.CREATED).body(new CityResponse(city));
     }
 
+    /**
+     * API endpoint for adding and / or enabling weather data tracking for a batch of {@link City} objects, names which
+     * can not be enabled are reported in their results instead of failing the whole request
+     *
+     * @param addCitiesRequest request body (city names)
+     * @return a {@link CityBatchResponse} object for every requested name, in the order of the names
+     */
+    @PostMapping("/batch")
+    ResponseEntity<List<CityBatchResponse>> enableAll(@RequestBody AddCitiesRequest addCitiesRequest) {
+        List<String> names = addCitiesRequest.getNames() == null ? List.of() : addCitiesRequest.getNames();
+
+        List<CityBatchResponse> responseList = new ArrayList<>();
+        for (CityManager.BatchResult batchResult : cityManager.enableImportingAll(names)) {
+            responseList.add(new CityBatchResponse(batchResult));
+        }
+        return ResponseEntity.ok(responseList);
+    }
+
+    /**
+     * API endpoint for suggesting city names matching a partially typed name, served from memory by
+     * {@link CitySuggester}
+     *
+     * @param q     partially typed city name
+     * @param limit maximum amount of suggestions to return, clamped between 1 and {@link CitySuggester#MAX_LIMIT}
+     * @return list of {@link CitySuggestionResponse} objects representing the best matching cities, tracked cities
+     * first
+     */
+    @GetMapping("/suggest")
+    ResponseEntity<List<CitySuggestionResponse>> suggest(@RequestParam(defaultValue = "") String q,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        List<CitySuggestionResponse> responseList = new ArrayList<>();
+        for (CitySuggester.Suggestion suggestion : citySuggester.suggest(q, limit)) {
+            responseList.add(new CitySuggestionResponse(suggestion));
+        }
+        return ResponseEntity.ok(responseList);
+    }
+
     /**
      * API endpoint for retrieving information about a single {@link City} object
      *
@@ -99,17 +198,111 @@ public class CityController {
     }
 
     /**
-     * API endpoint for requesting the most recent weather data linked to a {@link City} object
+     * API endpoint for requesting the most recent weather data linked to a {@link City} object<br> Served from the
+     * {@link LatestWeatherStore}, the database is only queried for cities missing from it<br> Tagged with the
+     * {@link City#id id} and timestamp of the weather data, a request whose If-None-Match header holds the current tag
+     * or whose If-Modified-Since header is not older than the timestamp is answered with 304 Not Modified
      *
-     * @param id the {@link City} object's {@link City#id id}
+     * @param id         the {@link City} object's {@link City#id id}
+     * @param webRequest request to check the conditional headers of
      * @return the DTO of latest recorded {@link WeatherData} object
      */
     @GetMapping("/{id}/weather")
-    ResponseEntity<WeatherResponse> weather(@PathVariable Long id) {
+    ResponseEntity<WeatherResponse> weather(@PathVariable Long id, WebRequest webRequest) {
+        LatestWeatherStore.Reading reading = latestWeatherStore.find(id).orElseGet(() -> loadLatestWeather(id));
+
+        String eTag = String.format("\"%d-%d\"", id, reading.timestamp());
+        if (webRequest.checkNotModified(eTag, reading.timestamp() * 1000)) return null;
+        return ResponseEntity.ok(new WeatherResponse(reading));
+    }
+
+    /**
+     * API endpoint for requesting a page of the weather data linked to a {@link City} object within a time range<br>
+     * Further pages are requested by passing the {@link WeatherHistoryResponse#getNext() next} and
+     * {@link WeatherHistoryResponse#getNextId() nextId} values of the previous page as the after and afterId
+     * parameters
+     *
+     * @param id      the {@link City} object's {@link City#id id}
+     * @param from    UNIX timestamp, UTC, from which to return weather data, inclusive
+     * @param to      UNIX timestamp, UTC, until which to return weather data, inclusive
+     * @param after   UNIX timestamp, UTC, after which to return weather data, exclusive
+     * @param afterId ID of the weather data after which to return weather data with a timestamp equal to after,
+     *                exclusive
+     * @param limit   maximum amount of entries to return, clamped between 1 and {@link #MAX_HISTORY_LIMIT}
+     * @return the DTO of the page of recorded {@link WeatherData} objects, oldest first
+     */
+    @GetMapping("/{id}/weather/history")
+    ResponseEntity<WeatherHistoryResponse> weatherHistory(@PathVariable Long id,
+                                                          @RequestParam(defaultValue = "0") long from,
+                                                          @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                                          @RequestParam(defaultValue = "" + Long.MIN_VALUE) long after,
+                                                          @RequestParam(defaultValue = "" + Long.MIN_VALUE)
+                                                          long afterId,
+                                                          @RequestParam(defaultValue = "100") int limit) {
+        if (!cityRepository.existsById(id)) throw new CityNotFoundException(id);
+
+        // Request one more entry than returned to find out whether a next page exists
+        int pageSize = Math.clamp(limit, 1, MAX_HISTORY_LIMIT);
+        List<WeatherDataRepository.Observation> observations =
+                weatherDataRepository.findHistory(id, from, to, after, afterId, Limit.of(pageSize + 1));
+
+        List<WeatherResponse> entries = new ArrayList<>(Math.min(observations.size(), pageSize));
+        for (WeatherDataRepository.Observation observation : observations) {
+            if (entries.size() == pageSize) break;
+            entries.add(new WeatherResponse(observation));
+        }
+        if (observations.size() <= pageSize) return ResponseEntity.ok(new WeatherHistoryResponse(entries, null, null));
+
+        WeatherDataRepository.Observation last = observations.get(pageSize - 1);
+        return ResponseEntity.ok(new WeatherHistoryResponse(entries, last.getTimestamp(), last.getId()));
+    }
+
+    /**
+     * API endpoint for requesting aggregated weather data linked to a {@link City} object within a time range, read
+     * from the hourly or daily {@link WeatherRollup} objects instead of the individual weather data entries
+     *
+     * @param id         the {@link City} object's {@link City#id id}
+     * @param resolution length of the time buckets to return
+     * @param from       UNIX timestamp, UTC, from which to return time buckets, inclusive
+     * @param to         UNIX timestamp, UTC, until which to return time buckets, inclusive
+     * @param limit      maximum amount of time buckets to return, clamped between 1 and {@link #MAX_HISTORY_LIMIT}
+     * @return list of {@link WeatherRollupResponse} objects representing the time buckets, oldest first
+     */
+    @GetMapping("/{id}/weather/rollups")
+    ResponseEntity<List<WeatherRollupResponse>> weatherRollups(@PathVariable Long id,
+                                                               @RequestParam(defaultValue = "DAILY")
+                                                               RollupResolution resolution,
+                                                               @RequestParam(defaultValue = "0") long from,
+                                                               @RequestParam(defaultValue = "" + Long.MAX_VALUE)
+                                                               long to,
+                                                               @RequestParam(defaultValue = "100") int limit) {
+        if (!cityRepository.existsById(id)) throw new CityNotFoundException(id);
+
+        // Include the bucket containing the start of the range
+        List<WeatherRollup> rollups = weatherRollupRepository
+                .findAllByCity_IdAndResolutionAndBucketStartBetweenOrderByBucketStart(
+                        id, resolution, resolution.bucketStart(from), to,
+                        Limit.of(Math.clamp(limit, 1, MAX_HISTORY_LIMIT)));
+        List<WeatherRollupResponse> responseList = new ArrayList<>(rollups.size());
+        for (WeatherRollup rollup : rollups) {
+            responseList.add(new WeatherRollupResponse(rollup));
+        }
+        return ResponseEntity.ok(responseList);
+    }
+
+    /**
+     * Loads the most recent weather data of a {@link City} object missing from the {@link LatestWeatherStore} from the
+     * database and records it in the store
+     *
+     * @param id the {@link City} object's {@link City#id id}
+     * @return the latest recorded weather data of the city
+     */
+    private LatestWeatherStore.Reading loadLatestWeather(Long id) {
         City city = cityRepository.findById(id).orElse(null);
         if (city == null) throw new CityNotFoundException(id);
         Optional<WeatherData> weatherDataOptional = weatherDataRepository.findTopByCity_IdOrderByTimestampDesc(id);
         if (weatherDataOptional.isEmpty()) throw new WeatherDataMissingException();
-        return ResponseEntity.ok(new WeatherResponse(weatherDataOptional.get()));
+        latestWeatherStore.record(weatherDataOptional.get());
+        return LatestWeatherStore.Reading.of(weatherDataOptional.get());
     }
 }
@@ -0,0 +1,65 @@
+package dev.karlkadak.backend.controller;
+
+import dev.karlkadak.backend.dto.ImportRunResponse;
+import dev.karlkadak.backend.entity.ImportRun;
+import dev.karlkadak.backend.entity.ImportStatus;
+import dev.karlkadak.backend.repository.ImportRunCityRepository;
+import dev.karlkadak.backend.repository.ImportRunRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.*;
+
+/**
+ * REST controller for reading the journal of the weather data import runs
+ */
+@RestController
+@RequestMapping("${api.prefix}/imports")
+public class ImportRunController {
+
+    /**
+     * Maximum amount of runs returned by a single request
+     */
+    private static final int MAX_LIMIT = 100;
+
+    private final ImportRunRepository importRunRepository;
+    private final ImportRunCityRepository importRunCityRepository;
+
+    @Autowired
+    public ImportRunController(ImportRunRepository importRunRepository,
+                               ImportRunCityRepository importRunCityRepository) {
+        this.importRunRepository = importRunRepository;
+        this.importRunCityRepository = importRunCityRepository;
+    }
+
+    /**
+     * API endpoint for retrieving the most recent {@link ImportRun} objects along with the amount of their saved,
+     * unchanged, failed and pending cities
+     *
+     * @param limit maximum amount of runs to return, clamped between 1 and {@link #MAX_LIMIT}
+     * @return list of {@link ImportRunResponse} objects representing the most recent runs, newest first
+     */
+    @GetMapping
+    ResponseEntity<List<ImportRunResponse>> recent(@RequestParam(defaultValue = "20") int limit) {
+        List<ImportRun> runs = importRunRepository.findAllByOrderByIdDesc(Limit.of(Math.clamp(limit, 1, MAX_LIMIT)));
+        if (runs.isEmpty()) return ResponseEntity.ok(List.of());
+
+        Map<Long, Map<ImportStatus, Long>> statusCounts = new HashMap<>();
+        List<Long> runIds = runs.stream().map(ImportRun::getId).toList();
+        for (ImportRunCityRepository.StatusCount count : importRunCityRepository.countByRunIdsGroupByStatus(runIds)) {
+            statusCounts.computeIfAbsent(count.getRunId(), _ -> new EnumMap<>(ImportStatus.class))
+                        .put(count.getStatus(), count.getCount());
+        }
+
+        List<ImportRunResponse> responseList = new ArrayList<>();
+        for (ImportRun run : runs) {
+            responseList.add(new ImportRunResponse(run, statusCounts.getOrDefault(run.getId(), Map.of())));
+        }
+        return ResponseEntity.ok(responseList);
+    }
+}
@@ -0,0 +1,24 @@
+package dev.karlkadak.backend.cron;
+
+/**
+ * Modes of scheduling the weather data import used by {@link WeatherDataImportScheduler}
+ */
+public enum ImportMode {
+
+    /**
+     * All tracked cities are imported at once whenever the cron expression fires
+     */
+    CRON,
+
+    /**
+     * Every tracked city is assigned a stable slice of the import interval and the slices are imported one after
+     * another, spreading the load evenly over the interval
+     */
+    SMOOTHED,
+
+    /**
+     * Every tracked city is imported once it is due, the refresh interval of every city is adapted to how much its
+     * weather has recently been changing
+     */
+    ADAPTIVE
+}
@@ -1,13 +1,20 @@
 package dev.karlkadak.backend.cron;
 
+import dev.karlkadak.backend.service.ClusterCoordinator;
+import dev.karlkadak.backend.service.LatestWeatherStore;
+import dev.karlkadak.backend.service.RefreshPlanner;
 import dev.karlkadak.backend.service.WeatherDataImporter;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 /**
@@ -20,7 +27,12 @@ import java.util.logging.Logger;
 public class WeatherDataImportScheduler {
 
     private final ThreadPoolTaskScheduler taskScheduler;
+    private final ThreadPoolTaskScheduler heartbeatScheduler;
+    private final ThreadPoolTaskScheduler maintenanceScheduler;
     private final WeatherDataImporter weatherDataImporter;
+    private final RefreshPlanner refreshPlanner;
+    private final ClusterCoordinator clusterCoordinator;
+    private final LatestWeatherStore latestWeatherStore;
     private final Logger logger;
 
     /**
@@ -31,22 +43,134 @@ public class WeatherDataImportScheduler {
     @Setter
     private String importerCronExpression;
 
+    /**
+     * Import scheduling mode gathered from application.properties
+     */
+    @Value("${importer.mode}")
+    @Setter
+    private ImportMode importMode;
+
+    /**
+     * Interval gathered from application.properties in which every tracked city is imported once when using the
+     * {@link ImportMode#SMOOTHED SMOOTHED} mode
+     */
+    @Value("${importer.smoothing.interval}")
+    @Setter
+    private Duration smoothingInterval;
+
+    /**
+     * Amount of slices gathered from application.properties the {@link #smoothingInterval} is divided into when using
+     * the {@link ImportMode#SMOOTHED SMOOTHED} mode
+     */
+    @Value("${importer.smoothing.slices}")
+    @Setter
+    private int smoothingSlices;
+
+    /**
+     * Delay gathered from application.properties between the checks for due cities when using the
+     * {@link ImportMode#ADAPTIVE ADAPTIVE} mode
+     */
+    @Value("${importer.adaptive.tick}")
+    @Setter
+    private Duration adaptiveTick;
+
+    /**
+     * Interval gathered from application.properties in which the heartbeat of this instance is stored when the import
+     * is split between multiple instances by the {@link ClusterCoordinator}
+     */
+    @Value("${cluster.heartbeat.interval}")
+    @Setter
+    private Duration heartbeatInterval;
+
+    /**
+     * Delay gathered from application.properties between the refreshes of the {@link LatestWeatherStore} when the
+     * import is split between multiple instances by the {@link ClusterCoordinator}
+     */
+    @Value("${cluster.weather.refresh.interval}")
+    @Setter
+    private Duration weatherRefreshInterval;
+
     @Autowired
-    public WeatherDataImportScheduler(ThreadPoolTaskScheduler taskScheduler, WeatherDataImporter weatherDataImporter,
+    public WeatherDataImportScheduler(ThreadPoolTaskScheduler taskScheduler,
+                                      @Qualifier("heartbeatScheduler") ThreadPoolTaskScheduler heartbeatScheduler,
+                                      @Qualifier("maintenanceScheduler") ThreadPoolTaskScheduler maintenanceScheduler,
+                                      WeatherDataImporter weatherDataImporter, RefreshPlanner refreshPlanner,
+                                      ClusterCoordinator clusterCoordinator, LatestWeatherStore latestWeatherStore,
                                       Logger logger) {
         this.taskScheduler = taskScheduler;
+        this.heartbeatScheduler = heartbeatScheduler;
+        this.maintenanceScheduler = maintenanceScheduler;
         this.weatherDataImporter = weatherDataImporter;
+        this.refreshPlanner = refreshPlanner;
+        this.clusterCoordinator = clusterCoordinator;
+        this.latestWeatherStore = latestWeatherStore;
         this.logger = logger;
     }
 
     /**
-     * Initially runs and schedules the
+     * Resumes an import run interrupted by a previous shutdown unless the import is split between multiple instances,
+     * then schedules the weather data import based on the {@link #importMode}<br> In the {@link ImportMode#CRON CRON}
+     * mode initially runs, unless an interrupted run was resumed, and schedules the
      * {@link dev.karlkadak.backend.service.WeatherDataImporter#defaultImport WeatherDataImporter.defaultImport} method
-     * to run using the cron expression specified in application.properties
+     * to run using the cron expression specified in application.properties<br> In the
+     * {@link ImportMode#SMOOTHED SMOOTHED} mode schedules
+     * {@link dev.karlkadak.backend.service.WeatherDataImporter#sliceImport WeatherDataImporter.sliceImport} to run at
+     * the start of every slice of the {@link #smoothingInterval}, starting from the next slice boundary, every run
+     * imports the slice following the previous one regardless of scheduling jitter<br> In the
+     * {@link ImportMode#ADAPTIVE ADAPTIVE} mode imports the cities which are due according to the
+     * {@link RefreshPlanner} every {@link #adaptiveTick}<br> If the import is split between multiple instances, also
+     * schedules the heartbeat of the {@link ClusterCoordinator} to run every {@link #heartbeatInterval} on the separate
+     * {@link #heartbeatScheduler}, and as each instance only imports its own shard of the cities, the
+     * {@link LatestWeatherStore} is refreshed every {@link #weatherRefreshInterval} on the separate
+     * {@link #maintenanceScheduler} to pick up the weather data imported by other instances
      */
     public void scheduleImport() {
-        weatherDataImporter.defaultImport();
+        if (clusterCoordinator.isEnabled()) {
+            heartbeatScheduler.scheduleAtFixedRate(clusterCoordinator::heartbeat, heartbeatInterval);
+            maintenanceScheduler.scheduleWithFixedDelay(latestWeatherStore::refresh, weatherRefreshInterval);
+        }
+        // Other instances take over the cities of a stopped instance, so its interrupted runs are not resumed
+        boolean resumed = !clusterCoordinator.isEnabled() && weatherDataImporter.resumeUnfinishedImport();
+
+        if (importMode == ImportMode.ADAPTIVE) {
+            taskScheduler.scheduleWithFixedDelay(this::importDueCities, adaptiveTick);
+            logger.info(String.format("Scheduled adaptive weather data fetching, checking for due cities every %d "
+                                      + "seconds.", adaptiveTick.toSeconds()));
+            return;
+        }
+
+        if (importMode == ImportMode.SMOOTHED) {
+            // Starts at the next slice boundary of the wall clock, every run then imports the following slice
+            long sliceMillis = smoothingInterval.dividedBy(smoothingSlices).toMillis();
+            long firstSliceIndex = Math.ceilDiv(System.currentTimeMillis(), sliceMillis);
+            AtomicLong sliceIndex = new AtomicLong(firstSliceIndex);
+            taskScheduler.scheduleAtFixedRate(() -> importSlice(sliceIndex.getAndIncrement()),
+                                              Instant.ofEpochMilli(firstSliceIndex * sliceMillis),
+                                              Duration.ofMillis(sliceMillis));
+            logger.info(String.format("Scheduled weather data fetching in %d slices of %d seconds.", smoothingSlices,
+                                      sliceMillis / 1000));
+            return;
+        }
+
+        if (!resumed) weatherDataImporter.defaultImport();
         taskScheduler.schedule(weatherDataImporter::defaultImport, new CronTrigger(importerCronExpression));
         logger.info("Scheduled weather data fetching.");
     }
+
+    /**
+     * Imports a slice of the {@link #smoothingInterval}, slices are numbered by the wall clock so that every city keeps
+     * its position in the interval across restarts
+     *
+     * @param sliceIndex amount of whole slices between the UNIX epoch and the start of the slice
+     */
+    private void importSlice(long sliceIndex) {
+        weatherDataImporter.sliceImport((int) (sliceIndex % smoothingSlices), smoothingSlices);
+    }
+
+    /**
+     * Imports the cities which are currently due according to the {@link RefreshPlanner}
+     */
+    private void importDueCities() {
+        weatherDataImporter.importCities(refreshPlanner.pollDueCities(Instant.now().getEpochSecond()));
+    }
 }
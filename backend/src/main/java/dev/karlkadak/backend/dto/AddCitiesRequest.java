@@ -0,0 +1,16 @@
+package dev.karlkadak.backend.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Data transfer object for an HTTP POST request for adding a batch of cities to the list of tracked cities
+ */
+@Setter
+@Getter
+public class AddCitiesRequest {
+
+    private List<String> names;
+}
@@ -0,0 +1,29 @@
+package dev.karlkadak.backend.dto;
+
+import dev.karlkadak.backend.service.CityManager;
+import lombok.Getter;
+
+/**
+ * Data transfer object for HTTP responses describing the result of enabling a single city of a batch
+ */
+@Getter
+public class CityBatchResponse {
+
+    private final String name;
+    private final CityManager.BatchResult.Status status;
+    private final CityResponse city;
+    private final String error;
+
+    /**
+     * Default constructor, {@link #city} is null if the city could not be resolved and {@link #error} is null
+     * otherwise
+     *
+     * @param batchResult {@link CityManager.BatchResult} object to build the response object from
+     */
+    public CityBatchResponse(CityManager.BatchResult batchResult) {
+        this.name = batchResult.name();
+        this.status = batchResult.status();
+        this.city = batchResult.city() == null ? null : new CityResponse(batchResult.city());
+        this.error = batchResult.error();
+    }
+}
@@ -0,0 +1,32 @@
+package dev.karlkadak.backend.dto;
+
+import dev.karlkadak.backend.service.CitySuggester;
+import lombok.Getter;
+
+/**
+ * Data transfer object for HTTP responses for city name suggestion requests
+ */
+@Getter
+public class CitySuggestionResponse {
+
+    private final String name;
+    private final String countryCode;
+    private final double latitude;
+    private final double longitude;
+    private final Long id;
+    private final boolean tracked;
+
+    /**
+     * Default constructor, {@link #id} is null if the suggested city is not tracked
+     *
+     * @param suggestion {@link CitySuggester.Suggestion} object to build the response object from
+     */
+    public CitySuggestionResponse(CitySuggester.Suggestion suggestion) {
+        this.name = suggestion.name();
+        this.countryCode = suggestion.countryCode();
+        this.latitude = suggestion.latitude();
+        this.longitude = suggestion.longitude();
+        this.id = suggestion.cityId();
+        this.tracked = suggestion.cityId() != null;
+    }
+}
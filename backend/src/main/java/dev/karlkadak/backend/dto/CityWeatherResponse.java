@@ -0,0 +1,26 @@
+package dev.karlkadak.backend.dto;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.service.LatestWeatherStore;
+import lombok.Getter;
+
+/**
+ * Data transfer object for HTTP responses for requests of the latest weather data of all tracked cities
+ */
+@Getter
+public class CityWeatherResponse {
+
+    private final CityResponse city;
+    private final WeatherResponse weather;
+
+    /**
+     * Default constructor, {@link #weather} is null if no weather data has been recorded for the city
+     *
+     * @param city    {@link City} object to build the response object from
+     * @param reading latest {@link LatestWeatherStore.Reading} of the city, null if none has been recorded
+     */
+    public CityWeatherResponse(City city, LatestWeatherStore.Reading reading) {
+        this.city = new CityResponse(city);
+        this.weather = reading == null ? null : new WeatherResponse(reading);
+    }
+}
@@ -0,0 +1,42 @@
+package dev.karlkadak.backend.dto;
+
+import dev.karlkadak.backend.entity.ImportRun;
+import dev.karlkadak.backend.entity.ImportStatus;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Data transfer object for HTTP responses for import run requests
+ */
+@Getter
+public class ImportRunResponse {
+
+    private final long id;
+    private final long startedAt;
+    private final Long finishedAt;
+    private final Long durationSeconds;
+    private final int cityCount;
+    private final long savedCount;
+    private final long unchangedCount;
+    private final long failedCount;
+    private final long pendingCount;
+
+    /**
+     * Default constructor, {@link #finishedAt} and {@link #durationSeconds} are null if the run has not finished
+     *
+     * @param importRun    {@link ImportRun} object to build the response object from
+     * @param statusCounts amount of the run's cities per status, missing statuses are treated as 0
+     */
+    public ImportRunResponse(ImportRun importRun, Map<ImportStatus, Long> statusCounts) {
+        this.id = importRun.getId();
+        this.startedAt = importRun.getStartedAt();
+        this.finishedAt = importRun.getFinishedAt();
+        this.durationSeconds = finishedAt == null ? null : finishedAt - startedAt;
+        this.cityCount = importRun.getCityCount();
+        this.savedCount = statusCounts.getOrDefault(ImportStatus.SAVED, 0L);
+        this.unchangedCount = statusCounts.getOrDefault(ImportStatus.UNCHANGED, 0L);
+        this.failedCount = statusCounts.getOrDefault(ImportStatus.FAILED, 0L);
+        this.pendingCount = statusCounts.getOrDefault(ImportStatus.PENDING, 0L);
+    }
+}
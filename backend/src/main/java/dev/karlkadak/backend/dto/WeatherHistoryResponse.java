@@ -0,0 +1,29 @@
+package dev.karlkadak.backend.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Data transfer object for HTTP responses for weather data history requests
+ */
+@Getter
+public class WeatherHistoryResponse {
+
+    private final List<WeatherResponse> entries;
+    private final Long next;
+    private final Long nextId;
+
+    /**
+     * Default constructor
+     *
+     * @param entries weather data of the page, oldest first
+     * @param next    value of the after parameter for requesting the next page, null if there are no more entries
+     * @param nextId  value of the afterId parameter for requesting the next page, null if there are no more entries
+     */
+    public WeatherHistoryResponse(List<WeatherResponse> entries, Long next, Long nextId) {
+        this.entries = entries;
+        this.next = next;
+        this.nextId = nextId;
+    }
+}
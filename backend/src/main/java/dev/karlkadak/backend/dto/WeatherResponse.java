@@ -1,6 +1,8 @@
 package dev.karlkadak.backend.dto;
 
 import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import dev.karlkadak.backend.service.LatestWeatherStore;
 import lombok.Getter;
 
 /**
@@ -26,7 +28,41 @@ public class WeatherResponse {
         this.airTemp = weatherData.getAirTemperature();
         this.windSpeed = weatherData.getWindSpeed();
         this.humidity = weatherData.getHumidity();
-        if (weatherData.getIconCode() == null || weatherData.getIconCode().isBlank()) this.iconHref = null;
-        else this.iconHref = "https://openweathermap.org/img/wn/" + weatherData.getIconCode() + "@2x.png";
+        this.iconHref = iconHref(weatherData.getIconCode());
+    }
+
+    /**
+     * Builds the response object from an in-memory reading, see {@link #WeatherResponse(WeatherData)}
+     *
+     * @param reading {@link LatestWeatherStore.Reading} object to build the response object from
+     */
+    public WeatherResponse(LatestWeatherStore.Reading reading) {
+        this.timestamp = reading.timestamp();
+        this.airTemp = reading.airTemperature();
+        this.windSpeed = reading.windSpeed();
+        this.humidity = reading.humidity();
+        this.iconHref = iconHref(reading.iconCode());
+    }
+
+    /**
+     * Builds the response object from a stored observation, see {@link #WeatherResponse(WeatherData)}
+     *
+     * @param observation {@link WeatherDataRepository.Observation} object to build the response object from
+     */
+    public WeatherResponse(WeatherDataRepository.Observation observation) {
+        this.timestamp = observation.getTimestamp();
+        this.airTemp = observation.getAirTemperature();
+        this.windSpeed = observation.getWindSpeed();
+        this.humidity = observation.getHumidity();
+        this.iconHref = iconHref(observation.getIconCode());
+    }
+
+    /**
+     * @param iconCode icon code of the weather condition
+     * @return URL of the condition's icon, null if the icon code is null or blank
+     */
+    private static String iconHref(String iconCode) {
+        if (iconCode == null || iconCode.isBlank()) return null;
+        return "https://openweathermap.org/img/wn/" + iconCode + "@2x.png";
     }
 }
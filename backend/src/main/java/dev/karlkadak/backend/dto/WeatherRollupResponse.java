@@ -0,0 +1,43 @@
+package dev.karlkadak.backend.dto;
+
+import dev.karlkadak.backend.entity.WeatherRollup;
+import lombok.Getter;
+
+/**
+ * Data transfer object for HTTP responses for aggregated weather data requests, statistics are null if no values were
+ * recorded within the time bucket
+ */
+@Getter
+public class WeatherRollupResponse {
+
+    private final long bucketStart;
+    private final long count;
+    private final Double airTempMin;
+    private final Double airTempMax;
+    private final Double airTempAvg;
+    private final Double windSpeedMin;
+    private final Double windSpeedMax;
+    private final Double windSpeedAvg;
+    private final Double humidityMin;
+    private final Double humidityMax;
+    private final Double humidityAvg;
+
+    /**
+     * Default constructor
+     *
+     * @param weatherRollup {@link WeatherRollup} object to build the response object from
+     */
+    public WeatherRollupResponse(WeatherRollup weatherRollup) {
+        this.bucketStart = weatherRollup.getBucketStart();
+        this.count = weatherRollup.getObservationCount();
+        this.airTempMin = weatherRollup.getAirTemperature().getMin();
+        this.airTempMax = weatherRollup.getAirTemperature().getMax();
+        this.airTempAvg = weatherRollup.getAirTemperature().getAverage();
+        this.windSpeedMin = weatherRollup.getWindSpeed().getMin();
+        this.windSpeedMax = weatherRollup.getWindSpeed().getMax();
+        this.windSpeedAvg = weatherRollup.getWindSpeed().getAverage();
+        this.humidityMin = weatherRollup.getHumidity().getMin();
+        this.humidityMax = weatherRollup.getHumidity().getMax();
+        this.humidityAvg = weatherRollup.getHumidity().getAverage();
+    }
+}
@@ -0,0 +1,59 @@
+package dev.karlkadak.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Used to store the amount, sum, minimum and maximum of the values of a single weather metric in a
+ * {@link WeatherRollup}, missing values are not counted
+ */
+@Getter
+@Embeddable
+@NoArgsConstructor
+@AllArgsConstructor
+public class Aggregate {
+
+    /**
+     * Amount of aggregated values
+     */
+    @Column(nullable = false)
+    private long count;
+
+    /**
+     * Sum of the aggregated values<br> Null if no values have been aggregated
+     */
+    private Double sum;
+
+    /**
+     * Smallest aggregated value<br> Null if no values have been aggregated
+     */
+    private Double min;
+
+    /**
+     * Largest aggregated value<br> Null if no values have been aggregated
+     */
+    private Double max;
+
+    /**
+     * Adds a value to the aggregate
+     *
+     * @param value value to add, ignored if null
+     */
+    public void add(Double value) {
+        if (value == null) return;
+        count++;
+        sum = sum == null ? value : sum + value;
+        min = min == null ? value : Math.min(min, value);
+        max = max == null ? value : Math.max(max, value);
+    }
+
+    /**
+     * @return average of the aggregated values, null if no values have been aggregated
+     */
+    public Double getAverage() {
+        return count == 0 ? null : sum / count;
+    }
+}
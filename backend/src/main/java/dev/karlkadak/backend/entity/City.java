@@ -1,5 +1,6 @@
 package dev.karlkadak.backend.entity;
 
+import dev.karlkadak.backend.util.CityNames;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -15,7 +16,8 @@ public class City {
      * Primary key
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "city_sequence")
+    @SequenceGenerator(name = "city_sequence", sequenceName = "city_seq", allocationSize = 50)
     private long id;
 
     /**
@@ -25,6 +27,13 @@ public class City {
     @Column(unique = true, nullable = false)
     private String name;
 
+    /**
+     * {@link #name} normalized using {@link CityNames#normalize}, used for case- and accent-insensitive lookups<br>
+     * Null only for cities stored before the column was introduced, until they are backfilled on startup
+     */
+    @Column(unique = true)
+    private String normalizedName;
+
     /**
      * Specifies if weather data collection for the city is enabled
      */
@@ -45,6 +54,24 @@ public class City {
     @Getter
     private String countryCode;
 
+    /**
+     * UNIX timestamp, UTC, at which the weather data of the city is next due for importing when using adaptive refresh
+     * intervals<br> Null in case the city has not been scheduled yet
+     */
+    private Long nextImportAt;
+
+    /**
+     * Current refresh interval of the city's weather data in seconds when using adaptive refresh intervals<br> Null in
+     * case the city has not been scheduled yet
+     */
+    private Long refreshInterval;
+
+    /**
+     * Specifies if the {@link WeatherRollup} objects of the city have been built from all of its weather data<br> Null
+     * for cities stored before the column was introduced, until their rollups are backfilled
+     */
+    private Boolean rollupsBackfilled;
+
     /**
      * Default constructor using coordinate values, sets {@link #importingData} field to
      * {@link java.lang.Boolean#TRUE TRUE}
@@ -55,8 +82,10 @@ public class City {
      */
     public City(@NonNull String name, @NonNull Double latitude, @NonNull Double longitude, String countryCode) {
         this.name = name;
+        this.normalizedName = CityNames.normalize(name);
         this.importingData = Boolean.TRUE;
         this.coordinatePair = new CoordinatePair(latitude, longitude);
         this.countryCode = countryCode;
+        this.rollupsBackfilled = Boolean.TRUE;
     }
 }
@@ -0,0 +1,51 @@
+package dev.karlkadak.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+/**
+ * Class representing a previously looked up city name which resolved to a {@link City} with a differently normalized
+ * name, such as an alternative spelling, so that later lookups of the same name are resolved locally
+ */
+@Getter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED) // Required for JPA
+public class CityAlias {
+
+    /**
+     * Primary key
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "city_alias_sequence")
+    @SequenceGenerator(name = "city_alias_sequence", sequenceName = "city_alias_seq", allocationSize = 50)
+    private long id;
+
+    /**
+     * The looked up name, normalized using {@link dev.karlkadak.backend.util.CityNames#normalize CityNames.normalize}
+     */
+    @NonNull
+    @Column(unique = true, nullable = false)
+    private String query;
+
+    /**
+     * The city the name resolved to
+     */
+    @NonNull
+    @JoinColumn(name = "city_id", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    private City city;
+
+    /**
+     * Default constructor
+     *
+     * @param query The looked up name, normalized
+     * @param city  The city the name resolved to
+     */
+    public CityAlias(@NonNull String query, @NonNull City city) {
+        this.query = query;
+        this.city = city;
+    }
+}
@@ -0,0 +1,43 @@
+package dev.karlkadak.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Class representing the revision of the list of tracked cities shared by every backend instance, stored as a single
+ * row with the {@link #ID} primary key
+ */
+@Getter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED) // Required for JPA
+public class CityListRevision {
+
+    /**
+     * Primary key of the single row
+     */
+    public static final long ID = 1;
+
+    /**
+     * Primary key, always {@link #ID}
+     */
+    @Id
+    private long id;
+
+    /**
+     * Revision of the list of tracked cities, incremented whenever a city is enabled or disabled
+     */
+    @Column(nullable = false)
+    private long revision;
+
+    /**
+     * @param revision Initial revision of the list of tracked cities
+     */
+    public CityListRevision(long revision) {
+        this.id = ID;
+        this.revision = revision;
+    }
+}
@@ -0,0 +1,40 @@
+package dev.karlkadak.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+/**
+ * Class representing a single backend instance taking part in the weather data import, used for splitting the tracked
+ * cities between the live instances
+ */
+@Getter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED) // Required for JPA
+public class ImportNode {
+
+    /**
+     * Primary key, unique identifier of the backend instance
+     */
+    @Id
+    private String nodeId;
+
+    /**
+     * UNIX timestamp, UTC, of the latest heartbeat of the backend instance
+     */
+    @Column(nullable = false)
+    private long heartbeatAt;
+
+    /**
+     * @param nodeId      Unique identifier of the backend instance
+     * @param heartbeatAt UNIX timestamp, UTC, of the heartbeat
+     */
+    public ImportNode(@NonNull String nodeId, long heartbeatAt) {
+        this.nodeId = nodeId;
+        this.heartbeatAt = heartbeatAt;
+    }
+}
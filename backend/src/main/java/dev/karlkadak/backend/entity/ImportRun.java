@@ -0,0 +1,51 @@
+package dev.karlkadak.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Class representing a single run of the weather data import, the statuses of its cities are stored as
+ * {@link ImportRunCity} objects
+ */
+@Getter
+@Entity
+@NoArgsConstructor(access = AccessLevel.PROTECTED) // Required for JPA
+public class ImportRun {
+
+    /**
+     * Primary key
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_run_sequence")
+    @SequenceGenerator(name = "import_run_sequence", sequenceName = "import_run_seq", allocationSize = 1)
+    private long id;
+
+    /**
+     * UNIX timestamp, UTC, at which the run started
+     */
+    @Column(nullable = false)
+    private long startedAt;
+
+    /**
+     * UNIX timestamp, UTC, at which the run finished<br> Null in case the run has not finished, either because it is
+     * still running or because the application stopped during the run
+     */
+    private Long finishedAt;
+
+    /**
+     * Amount of cities the run was started with
+     */
+    @Column(nullable = false)
+    private int cityCount;
+
+    /**
+     * @param startedAt UNIX timestamp, UTC, at which the run started
+     * @param cityCount Amount of cities the run is started with
+     */
+    public ImportRun(long startedAt, int cityCount) {
+        this.startedAt = startedAt;
+        this.cityCount = cityCount;
+    }
+}
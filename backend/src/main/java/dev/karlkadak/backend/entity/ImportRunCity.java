@@ -0,0 +1,69 @@
+package dev.karlkadak.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+/**
+ * Class representing the status of a single city in an {@link ImportRun}
+ */
+@Getter
+@Entity
+@Table(indexes = @Index(columnList = "run_id, status"))
+@NoArgsConstructor(access = AccessLevel.PROTECTED) // Required for JPA
+public class ImportRunCity {
+
+    /**
+     * Maximum length of {@link #error}, longer messages are truncated
+     */
+    public static final int MAX_ERROR_LENGTH = 255;
+
+    /**
+     * Primary key
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_run_city_sequence")
+    @SequenceGenerator(name = "import_run_city_sequence", sequenceName = "import_run_city_seq", allocationSize = 50)
+    private long id;
+
+    /**
+     * The run the city belongs to
+     */
+    @NonNull
+    @JoinColumn(name = "run_id", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    private ImportRun run;
+
+    /**
+     * {@link City#id ID} of the city
+     */
+    @Column(nullable = false)
+    private long cityId;
+
+    /**
+     * Current status of the city in the run
+     */
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ImportStatus status;
+
+    /**
+     * Reason of the failure in case of the {@link ImportStatus#FAILED FAILED} status, null otherwise
+     */
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+
+    /**
+     * Default constructor, sets the {@link #status} to {@link ImportStatus#PENDING PENDING}
+     *
+     * @param run    The run the city belongs to
+     * @param cityId {@link City#id ID} of the city
+     */
+    public ImportRunCity(@NonNull ImportRun run, long cityId) {
+        this.run = run;
+        this.cityId = cityId;
+        this.status = ImportStatus.PENDING;
+    }
+}
@@ -0,0 +1,23 @@
+package dev.karlkadak.backend.entity;
+
+/**
+ * Status of a single city in an {@link ImportRun}
+ */
+public enum ImportStatus {
+    /**
+     * The city has not been processed yet
+     */
+    PENDING,
+    /**
+     * The fetched weather data of the city was saved
+     */
+    SAVED,
+    /**
+     * The fetched weather data of the city was skipped as it had already been saved
+     */
+    UNCHANGED,
+    /**
+     * Fetching or saving the weather data of the city failed
+     */
+    FAILED
+}
@@ -0,0 +1,35 @@
+package dev.karlkadak.backend.entity;
+
+import lombok.Getter;
+
+/**
+ * Length of the time buckets of a {@link WeatherRollup}, buckets are aligned to the UNIX epoch in UTC
+ */
+@Getter
+public enum RollupResolution {
+    /**
+     * Buckets of a single hour
+     */
+    HOURLY(3600),
+    /**
+     * Buckets of a single day
+     */
+    DAILY(86400);
+
+    /**
+     * Length of a bucket in seconds
+     */
+    private final long seconds;
+
+    RollupResolution(long seconds) {
+        this.seconds = seconds;
+    }
+
+    /**
+     * @param timestamp UNIX timestamp, UTC
+     * @return UNIX timestamp, UTC, of the start of the bucket containing the given timestamp
+     */
+    public long bucketStart(long timestamp) {
+        return Math.floorDiv(timestamp, seconds) * seconds;
+    }
+}
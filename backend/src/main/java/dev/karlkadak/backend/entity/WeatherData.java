@@ -7,9 +7,16 @@ import lombok.NoArgsConstructor;
 import lombok.NonNull;
 
 /**
- * Class representing a single point of gathered weather data for a single city
+ * Class representing a single point of gathered weather data for a single city<br> A city has at most one point per
+ * timestamp, so that instances importing the same city concurrently cannot store duplicates<br> The constraint is
+ * added to databases of earlier versions by {@link dev.karlkadak.backend.config.WeatherDataDeduplication}<br> The
+ * history of a city is paged on its timestamp and ID, which the index on the city, timestamp and ID covers without
+ * relying on the index backing the constraint
  */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_weather_data_city_timestamp",
+                                             columnNames = {"city_id", "timestamp"}),
+       indexes = {@Index(columnList = "timestamp"), @Index(columnList = "city_id, timestamp, id")})
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // Required for JPA
 public class WeatherData {
 
@@ -17,7 +24,8 @@ public class WeatherData {
      * Primary key
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_data_sequence")
+    @SequenceGenerator(name = "weather_data_sequence", sequenceName = "weather_data_seq", allocationSize = 50)
     private long id;
 
     /**
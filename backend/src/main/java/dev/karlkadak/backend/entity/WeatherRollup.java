@@ -0,0 +1,127 @@
+package dev.karlkadak.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+
+/**
+ * Class representing the aggregated {@link WeatherData} of a single city within a single time bucket, such as an hour
+ * or a day, so that statistics over long periods are read without scanning the individual observations
+ */
+@Getter
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"city_id", "resolution", "bucket_start"}))
+@NoArgsConstructor(access = AccessLevel.PROTECTED) // Required for JPA
+public class WeatherRollup {
+
+    /**
+     * Primary key
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_rollup_sequence")
+    @SequenceGenerator(name = "weather_rollup_sequence", sequenceName = "weather_rollup_seq", allocationSize = 50)
+    private long id;
+
+    /**
+     * The city for which the data is aggregated
+     */
+    @NonNull
+    @JoinColumn(name = "city_id", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    private City city;
+
+    /**
+     * Length of the time bucket
+     */
+    @NonNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RollupResolution resolution;
+
+    /**
+     * UNIX timestamp of the start of the time bucket, UTC
+     */
+    @Column(nullable = false)
+    private long bucketStart;
+
+    /**
+     * Amount of aggregated observations
+     */
+    @Column(nullable = false)
+    private long observationCount;
+
+    /**
+     * Aggregated air temperatures, Celsius
+     */
+    @Embedded
+    @AttributeOverride(name = "count", column = @Column(name = "air_temperature_count", nullable = false))
+    @AttributeOverride(name = "sum", column = @Column(name = "air_temperature_sum"))
+    @AttributeOverride(name = "min", column = @Column(name = "air_temperature_min"))
+    @AttributeOverride(name = "max", column = @Column(name = "air_temperature_max"))
+    private Aggregate airTemperature = new Aggregate();
+
+    /**
+     * Aggregated wind speeds, meter/sec
+     */
+    @Embedded
+    @AttributeOverride(name = "count", column = @Column(name = "wind_speed_count", nullable = false))
+    @AttributeOverride(name = "sum", column = @Column(name = "wind_speed_sum"))
+    @AttributeOverride(name = "min", column = @Column(name = "wind_speed_min"))
+    @AttributeOverride(name = "max", column = @Column(name = "wind_speed_max"))
+    private Aggregate windSpeed = new Aggregate();
+
+    /**
+     * Aggregated humidities, %
+     */
+    @Embedded
+    @AttributeOverride(name = "count", column = @Column(name = "humidity_count", nullable = false))
+    @AttributeOverride(name = "sum", column = @Column(name = "humidity_sum"))
+    @AttributeOverride(name = "min", column = @Column(name = "humidity_min"))
+    @AttributeOverride(name = "max", column = @Column(name = "humidity_max"))
+    private Aggregate humidity = new Aggregate();
+
+    /**
+     * Default constructor, creates an empty rollup
+     *
+     * @param city        The city for which the data is aggregated
+     * @param resolution  Length of the time bucket
+     * @param bucketStart UNIX timestamp of the start of the time bucket, UTC
+     */
+    public WeatherRollup(@NonNull City city, @NonNull RollupResolution resolution, long bucketStart) {
+        this.city = city;
+        this.resolution = resolution;
+        this.bucketStart = bucketStart;
+    }
+
+    /**
+     * Adds the values of an observation to the rollup
+     *
+     * @param airTemperature air temperature, Celsius, null in case of missing value
+     * @param windSpeed      wind speed, meter/sec, null in case of missing value
+     * @param humidity       humidity, %, null in case of missing value
+     */
+    public void add(Double airTemperature, Double windSpeed, Integer humidity) {
+        observationCount++;
+        this.airTemperature.add(airTemperature);
+        this.windSpeed.add(windSpeed);
+        this.humidity.add(humidity == null ? null : humidity.doubleValue());
+    }
+
+    /**
+     * Replaces the values of the rollup with the values aggregated from every observation within its time bucket
+     *
+     * @param observationCount amount of aggregated observations
+     * @param airTemperature   aggregated air temperatures, Celsius
+     * @param windSpeed        aggregated wind speeds, meter/sec
+     * @param humidity         aggregated humidities, %
+     */
+    public void replace(long observationCount, @NonNull Aggregate airTemperature, @NonNull Aggregate windSpeed,
+                        @NonNull Aggregate humidity) {
+        this.observationCount = observationCount;
+        this.airTemperature = airTemperature;
+        this.windSpeed = windSpeed;
+        this.humidity = humidity;
+    }
+}
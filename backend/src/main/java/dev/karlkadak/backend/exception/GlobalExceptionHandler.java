@@ -42,4 +42,15 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleWeatherDataMissingException(WeatherDataMissingException ex) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(new ErrorResponse(ex.getMessage()));
     }
+
+    @ExceptionHandler(UpstreamRateLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleUpstreamRateLimitExceededException(
+            UpstreamRateLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(new ErrorResponse(ex.getMessage()));
+    }
+
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleUpstreamUnavailableException(UpstreamUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new ErrorResponse(ex.getMessage()));
+    }
 }
@@ -0,0 +1,8 @@
+package dev.karlkadak.backend.exception;
+
+public class UpstreamRateLimitExceededException extends RuntimeException {
+
+    public UpstreamRateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package dev.karlkadak.backend.exception;
+
+import lombok.Getter;
+
+public class UpstreamRequestException extends RuntimeException {
+
+    /**
+     * HTTP status code of the upstream response, null if no response was received
+     */
+    @Getter
+    private final Integer statusCode;
+
+    public UpstreamRequestException(int statusCode) {
+        super("Upstream responded with status code " + statusCode + ".");
+        this.statusCode = statusCode;
+    }
+
+    public UpstreamRequestException(Throwable cause) {
+        super("Upstream request failed.", cause);
+        this.statusCode = null;
+    }
+}
@@ -0,0 +1,8 @@
+package dev.karlkadak.backend.exception;
+
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String upstreamName) {
+        super("Upstream \"" + upstreamName + "\" is temporarily unavailable.");
+    }
+}
@@ -0,0 +1,32 @@
+package dev.karlkadak.backend.repository;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.CityAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository for interacting with the CityAlias table
+ */
+@Repository
+public interface CityAliasRepository extends JpaRepository<CityAlias, Long> {
+
+    /**
+     * Finds the {@link dev.karlkadak.backend.entity.City City} object the specified name resolved to
+     *
+     * @param query The looked up name, normalized
+     * @return An {@link java.util.Optional} with the {@link dev.karlkadak.backend.entity.City City} object the name
+     * resolved to or an empty one if the name has no alias
+     */
+    @Query("select a.city from CityAlias a where a.query = :query")
+    Optional<City> findCityByQuery(String query);
+
+    /**
+     * @param query The looked up name, normalized
+     * @return true if the name has an alias, false otherwise
+     */
+    boolean existsByQuery(String query);
+}
@@ -0,0 +1,37 @@
+package dev.karlkadak.backend.repository;
+
+import dev.karlkadak.backend.entity.CityListRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Repository for interacting with the CityListRevision table
+ */
+@Repository
+public interface CityListRevisionRepository extends JpaRepository<CityListRevision, Long> {
+
+    /**
+     * Finds the revision of the list of tracked cities
+     *
+     * @param id {@link dev.karlkadak.backend.entity.CityListRevision#ID ID} of the single row
+     * @return An {@link java.util.Optional} containing the revision, empty if the row has not been created
+     */
+    @Query("select r.revision from CityListRevision r where r.id = :id")
+    Optional<Long> findRevision(long id);
+
+    /**
+     * Increments the revision of the list of tracked cities in a single statement, so that concurrent increments by
+     * several instances are not lost
+     *
+     * @param id {@link dev.karlkadak.backend.entity.CityListRevision#ID ID} of the single row
+     */
+    @Modifying
+    @Transactional
+    @Query("update CityListRevision r set r.revision = r.revision + 1 where r.id = :id")
+    void incrementRevision(long id);
+}
@@ -2,8 +2,12 @@ package dev.karlkadak.backend.repository;
 
 import dev.karlkadak.backend.entity.City;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,16 +19,24 @@ public interface CityRepository extends JpaRepository<City, Long> {
 
     /**
      * Finds the {@link dev.karlkadak.backend.entity.City City} object with the specified
-     * {@link dev.karlkadak.backend.entity.City#name name}
+     * {@link dev.karlkadak.backend.entity.City#normalizedName normalizedName}
      *
-     * @param name The {@link dev.karlkadak.backend.entity.City City} object's
-     *             {@link dev.karlkadak.backend.entity.City#name name}
+     * @param normalizedName The {@link dev.karlkadak.backend.entity.City City} object's
+     *                       {@link dev.karlkadak.backend.entity.City#normalizedName normalizedName}
      * @return An {@link java.util.Optional} with the {@link dev.karlkadak.backend.entity.City City} object with the
-     * specified {@link dev.karlkadak.backend.entity.City#name name} or an empty one if a
-     * {@link dev.karlkadak.backend.entity.City City} with the specified
-     * {@link dev.karlkadak.backend.entity.City#name name} was not found
+     * specified {@link dev.karlkadak.backend.entity.City#normalizedName normalizedName} or an empty one if such a
+     * {@link dev.karlkadak.backend.entity.City City} was not found
      */
-    Optional<City> findByName(String name);
+    Optional<City> findByNormalizedName(String normalizedName);
+
+    /**
+     * Finds all {@link dev.karlkadak.backend.entity.City City} objects stored before
+     * {@link dev.karlkadak.backend.entity.City#normalizedName normalizedName} was introduced
+     *
+     * @return A {@link java.util.List} containing all {@link dev.karlkadak.backend.entity.City City} objects without a
+     * {@link dev.karlkadak.backend.entity.City#normalizedName normalizedName}
+     */
+    List<City> findAllByNormalizedNameIsNull();
 
     /**
      * Finds all {@link dev.karlkadak.backend.entity.City City} objects which have
@@ -34,4 +46,106 @@ public interface CityRepository extends JpaRepository<City, Long> {
      * {@link dev.karlkadak.backend.entity.City#importingData importingData} set as {@link java.lang.Boolean#TRUE TRUE}
      */
     List<City> findAllByImportingDataTrue();
+
+    /**
+     * Finds all {@link dev.karlkadak.backend.entity.City City} objects of a country which have
+     * {@link dev.karlkadak.backend.entity.City#importingData importingData} set as {@link java.lang.Boolean#TRUE TRUE}
+     *
+     * @param countryCode country code of the cities, case-insensitive
+     * @return A {@link java.util.List} containing all {@link dev.karlkadak.backend.entity.City City} objects with the
+     * given {@link dev.karlkadak.backend.entity.City#countryCode countryCode} which have
+     * {@link dev.karlkadak.backend.entity.City#importingData importingData} set as {@link java.lang.Boolean#TRUE TRUE}
+     */
+    List<City> findAllByImportingDataTrueAndCountryCodeIgnoreCase(String countryCode);
+
+    /**
+     * Finds all {@link dev.karlkadak.backend.entity.City City} objects which have
+     * {@link dev.karlkadak.backend.entity.City#importingData importingData} set as {@link java.lang.Boolean#TRUE TRUE}
+     * and are assigned to the specified slice, a city is assigned to the slice equal to its
+     * {@link dev.karlkadak.backend.entity.City#id id} modulo the amount of slices
+     *
+     * @param slice      index of the slice, between 0 and sliceCount - 1
+     * @param sliceCount total amount of slices
+     * @return A {@link java.util.List} containing all {@link dev.karlkadak.backend.entity.City City} objects of the
+     * slice which have {@link dev.karlkadak.backend.entity.City#importingData importingData} set as
+     * {@link java.lang.Boolean#TRUE TRUE}
+     */
+    @Query("select c from City c where c.importingData = true and mod(c.id, :sliceCount) = :slice")
+    List<City> findAllByImportingDataTrueInSlice(int slice, int sliceCount);
+
+    /**
+     * Updates the adaptive import schedule of the {@link dev.karlkadak.backend.entity.City City} object with the
+     * specified {@link dev.karlkadak.backend.entity.City#id id}
+     *
+     * @param id              The {@link dev.karlkadak.backend.entity.City City} object's
+     *                        {@link dev.karlkadak.backend.entity.City#id id}
+     * @param nextImportAt    New value of {@link dev.karlkadak.backend.entity.City#nextImportAt nextImportAt}
+     * @param refreshInterval New value of {@link dev.karlkadak.backend.entity.City#refreshInterval refreshInterval}
+     */
+    @Modifying
+    @Transactional
+    @Query("update City c set c.nextImportAt = :nextImportAt, c.refreshInterval = :refreshInterval where c.id = :id")
+    void updateImportSchedule(long id, long nextImportAt, long refreshInterval);
+
+    /**
+     * Updates the adaptive import schedules of the {@link dev.karlkadak.backend.entity.City City} objects with the
+     * specified {@link dev.karlkadak.backend.entity.City#id ids} to the same values with a single statement
+     *
+     * @param ids             The {@link dev.karlkadak.backend.entity.City City} objects'
+     *                        {@link dev.karlkadak.backend.entity.City#id ids}
+     * @param nextImportAt    New value of {@link dev.karlkadak.backend.entity.City#nextImportAt nextImportAt}
+     * @param refreshInterval New value of {@link dev.karlkadak.backend.entity.City#refreshInterval refreshInterval}
+     */
+    @Modifying
+    @Transactional
+    @Query("update City c set c.nextImportAt = :nextImportAt, c.refreshInterval = :refreshInterval "
+           + "where c.id in :ids")
+    void updateImportSchedules(Collection<Long> ids, long nextImportAt, long refreshInterval);
+
+    /**
+     * Updates the {@link dev.karlkadak.backend.entity.City#normalizedName normalizedName} of the
+     * {@link dev.karlkadak.backend.entity.City City} object with the specified
+     * {@link dev.karlkadak.backend.entity.City#id id}
+     *
+     * @param id             The {@link dev.karlkadak.backend.entity.City City} object's
+     *                       {@link dev.karlkadak.backend.entity.City#id id}
+     * @param normalizedName New value of {@link dev.karlkadak.backend.entity.City#normalizedName normalizedName}
+     */
+    @Modifying
+    @Transactional
+    @Query("update City c set c.normalizedName = :normalizedName where c.id = :id")
+    void updateNormalizedName(long id, String normalizedName);
+
+    /**
+     * Updates the {@link dev.karlkadak.backend.entity.City#importingData importingData} of the
+     * {@link dev.karlkadak.backend.entity.City City} object with the specified
+     * {@link dev.karlkadak.backend.entity.City#id id}
+     *
+     * @param id            The {@link dev.karlkadak.backend.entity.City City} object's
+     *                      {@link dev.karlkadak.backend.entity.City#id id}
+     * @param importingData New value of {@link dev.karlkadak.backend.entity.City#importingData importingData}
+     */
+    @Modifying
+    @Transactional
+    @Query("update City c set c.importingData = :importingData where c.id = :id")
+    void updateImportingData(long id, boolean importingData);
+
+    /**
+     * @return A {@link java.util.List} containing every {@link dev.karlkadak.backend.entity.City City} object whose
+     * {@link dev.karlkadak.backend.entity.WeatherRollup WeatherRollup} objects have not been backfilled
+     */
+    List<City> findAllByRollupsBackfilledIsNull();
+
+    /**
+     * Marks the {@link dev.karlkadak.backend.entity.WeatherRollup WeatherRollup} objects of the
+     * {@link dev.karlkadak.backend.entity.City City} object with the specified
+     * {@link dev.karlkadak.backend.entity.City#id id} as backfilled
+     *
+     * @param id The {@link dev.karlkadak.backend.entity.City City} object's
+     *           {@link dev.karlkadak.backend.entity.City#id id}
+     */
+    @Modifying
+    @Transactional
+    @Query("update City c set c.rollupsBackfilled = true where c.id = :id")
+    void updateRollupsBackfilled(long id);
 }
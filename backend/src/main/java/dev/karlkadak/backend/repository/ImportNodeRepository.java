@@ -0,0 +1,38 @@
+package dev.karlkadak.backend.repository;
+
+import dev.karlkadak.backend.entity.ImportNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository for interacting with the ImportNode table
+ */
+@Repository
+public interface ImportNodeRepository extends JpaRepository<ImportNode, String> {
+
+    /**
+     * Finds all {@link dev.karlkadak.backend.entity.ImportNode ImportNode} objects with a heartbeat at or after the
+     * specified time
+     *
+     * @param heartbeatAt UNIX timestamp, UTC, of the earliest accepted heartbeat
+     * @return A {@link java.util.List} containing all live {@link dev.karlkadak.backend.entity.ImportNode ImportNode}
+     * objects ordered by their {@link dev.karlkadak.backend.entity.ImportNode#nodeId nodeId}
+     */
+    List<ImportNode> findAllByHeartbeatAtGreaterThanEqualOrderByNodeIdAsc(long heartbeatAt);
+
+    /**
+     * Deletes all {@link dev.karlkadak.backend.entity.ImportNode ImportNode} objects with their latest heartbeat
+     * before the specified time
+     *
+     * @param heartbeatAt UNIX timestamp, UTC, of the earliest accepted heartbeat
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ImportNode n where n.heartbeatAt < :heartbeatAt")
+    void deleteAllByHeartbeatAtBefore(long heartbeatAt);
+}
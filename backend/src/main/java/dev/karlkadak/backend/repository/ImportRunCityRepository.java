@@ -0,0 +1,80 @@
+package dev.karlkadak.backend.repository;
+
+import dev.karlkadak.backend.entity.ImportRunCity;
+import dev.karlkadak.backend.entity.ImportStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for interacting with the ImportRunCity table
+ */
+@Repository
+public interface ImportRunCityRepository extends JpaRepository<ImportRunCity, Long> {
+
+    /**
+     * Finds the {@link dev.karlkadak.backend.entity.City#id IDs} of the cities with the specified status in the
+     * specified run
+     *
+     * @param runId  {@link dev.karlkadak.backend.entity.ImportRun#id ID} of the run
+     * @param status Status of the cities
+     * @return A {@link java.util.List} containing the {@link dev.karlkadak.backend.entity.City#id IDs} of the cities
+     */
+    @Query("select e.cityId from ImportRunCity e where e.run.id = :runId and e.status = :status")
+    List<Long> findCityIdsByRunIdAndStatus(long runId, ImportStatus status);
+
+    /**
+     * Counts the cities of the specified runs grouped by their status
+     *
+     * @param runIds {@link dev.karlkadak.backend.entity.ImportRun#id IDs} of the runs
+     * @return A {@link java.util.List} containing the amount of cities per run and status, statuses without cities
+     * are omitted
+     */
+    @Query("select e.run.id as runId, e.status as status, count(e) as count from ImportRunCity e "
+           + "where e.run.id in :runIds group by e.run.id, e.status")
+    List<StatusCount> countByRunIdsGroupByStatus(Collection<Long> runIds);
+
+    /**
+     * Updates the status of the specified cities in the specified run
+     *
+     * @param runId   {@link dev.karlkadak.backend.entity.ImportRun#id ID} of the run
+     * @param cityIds {@link dev.karlkadak.backend.entity.City#id IDs} of the cities
+     * @param status  New status of the cities
+     * @param error   Reason of the failure, null unless the new status is
+     *                {@link dev.karlkadak.backend.entity.ImportStatus#FAILED FAILED}
+     */
+    @Modifying
+    @Transactional
+    @Query("update ImportRunCity e set e.status = :status, e.error = :error "
+           + "where e.run.id = :runId and e.cityId in :cityIds")
+    void updateStatus(long runId, Collection<Long> cityIds, ImportStatus status, String error);
+
+    /**
+     * Deletes the cities of the finished {@link dev.karlkadak.backend.entity.ImportRun ImportRun} objects started
+     * before the specified time
+     *
+     * @param before UNIX timestamp, UTC, before which the runs started
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ImportRunCity e where e.run.id in "
+           + "(select r.id from ImportRun r where r.startedAt < :before and r.finishedAt is not null)")
+    void deleteByFinishedRunsStartedBefore(long before);
+
+    /**
+     * Amount of cities with a single status in a single run
+     */
+    interface StatusCount {
+
+        long getRunId();
+
+        ImportStatus getStatus();
+
+        long getCount();
+    }
+}
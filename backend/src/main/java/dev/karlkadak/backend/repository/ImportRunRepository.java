@@ -0,0 +1,61 @@
+package dev.karlkadak.backend.repository;
+
+import dev.karlkadak.backend.entity.ImportRun;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Repository for interacting with the ImportRun table
+ */
+@Repository
+public interface ImportRunRepository extends JpaRepository<ImportRun, Long> {
+
+    /**
+     * Finds the most recent {@link dev.karlkadak.backend.entity.ImportRun ImportRun} objects
+     *
+     * @param limit Maximum amount of runs to find
+     * @return A {@link java.util.List} containing the most recent
+     * {@link dev.karlkadak.backend.entity.ImportRun ImportRun} objects, newest first
+     */
+    List<ImportRun> findAllByOrderByIdDesc(Limit limit);
+
+    /**
+     * Finds all {@link dev.karlkadak.backend.entity.ImportRun ImportRun} objects which have not finished
+     *
+     * @return A {@link java.util.List} containing all unfinished
+     * {@link dev.karlkadak.backend.entity.ImportRun ImportRun} objects, newest first
+     */
+    List<ImportRun> findAllByFinishedAtIsNullOrderByIdDesc();
+
+    /**
+     * Marks the {@link dev.karlkadak.backend.entity.ImportRun ImportRun} object with the specified
+     * {@link dev.karlkadak.backend.entity.ImportRun#id id} as finished
+     *
+     * @param id         The {@link dev.karlkadak.backend.entity.ImportRun ImportRun} object's
+     *                   {@link dev.karlkadak.backend.entity.ImportRun#id id}
+     * @param finishedAt UNIX timestamp, UTC, at which the run finished
+     */
+    @Modifying
+    @Transactional
+    @Query("update ImportRun r set r.finishedAt = :finishedAt where r.id = :id")
+    void updateFinishedAt(long id, long finishedAt);
+
+    /**
+     * Deletes the finished {@link dev.karlkadak.backend.entity.ImportRun ImportRun} objects started before the
+     * specified time, their {@link dev.karlkadak.backend.entity.ImportRunCity ImportRunCity} objects need to be
+     * deleted beforehand
+     *
+     * @param before UNIX timestamp, UTC, before which the deleted runs started
+     * @return Amount of deleted runs
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from ImportRun r where r.startedAt < :before and r.finishedAt is not null")
+    int deleteFinishedStartedBefore(long before);
+}
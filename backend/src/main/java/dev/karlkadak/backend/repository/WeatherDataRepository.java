@@ -1,9 +1,13 @@
 package dev.karlkadak.backend.repository;
 
 import dev.karlkadak.backend.entity.WeatherData;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -26,4 +30,211 @@ public interface WeatherDataRepository extends JpaRepository<WeatherData, Long>
      * {@link dev.karlkadak.backend.entity.City#id id} has not been recorded
      */
     Optional<WeatherData> findTopByCity_IdOrderByTimestampDesc(Long city_id);
+
+    /**
+     * Finds the up to the specified amount of latest {@link dev.karlkadak.backend.entity.WeatherData WeatherData}
+     * objects observed since the specified time of each of the {@link dev.karlkadak.backend.entity.City City} objects
+     * with the specified {@link dev.karlkadak.backend.entity.City#id ids} with a single query, using the index on the
+     * city and timestamp columns<br> Only the objects observed since the specified time are counted, so that the cost
+     * of the query does not grow with the history of the cities
+     *
+     * @param cityIds The {@link dev.karlkadak.backend.entity.City City} objects'
+     *                {@link dev.karlkadak.backend.entity.City#id ids}
+     * @param since   UNIX timestamp, UTC, from which to find objects, inclusive
+     * @param count   Maximum amount of objects to find per {@link dev.karlkadak.backend.entity.City City}
+     * @return A {@link java.util.List} containing the latest
+     * {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects, grouped by city and newest first
+     */
+    @Query("select w from WeatherData w join fetch w.city where w.city.id in :cityIds and w.timestamp >= :since "
+           + "and (select count(l) from WeatherData l where l.city = w.city and l.timestamp > w.timestamp) < :count "
+           + "order by w.city.id, w.timestamp desc")
+    List<WeatherData> findLatestByCityIds(Collection<Long> cityIds, long since, long count);
+
+    /**
+     * Finds a page of the values of the {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects of a
+     * {@link dev.karlkadak.backend.entity.City City} recorded within a time range, using the index on the city and
+     * timestamp columns<br> Pages are continued from the timestamp and ID of the last value of the previous page, so
+     * that the cost of a page does not depend on its position in the range and values sharing a timestamp are neither
+     * skipped nor repeated
+     *
+     * @param cityId  The {@link dev.karlkadak.backend.entity.City City} object's
+     *                {@link dev.karlkadak.backend.entity.City#id id}
+     * @param from    UNIX timestamp, UTC, from which to find values, inclusive
+     * @param to      UNIX timestamp, UTC, until which to find values, inclusive
+     * @param after   UNIX timestamp, UTC, after which to find values, exclusive
+     * @param afterId ID of the {@link dev.karlkadak.backend.entity.WeatherData WeatherData} object after which to find
+     *                values with a timestamp equal to after, exclusive
+     * @param limit   Maximum amount of values to find
+     * @return A {@link java.util.List} containing a {@link Observation} for every found
+     * {@link dev.karlkadak.backend.entity.WeatherData WeatherData} object, oldest first
+     */
+    @Query("select w.id as id, w.timestamp as timestamp, w.airTemperature as airTemperature, "
+           + "w.windSpeed as windSpeed, w.humidity as humidity, w.iconCode as iconCode from WeatherData w "
+           + "where w.city.id = :cityId and w.timestamp >= :from and w.timestamp <= :to "
+           + "and (w.timestamp > :after or (w.timestamp = :after and w.id > :afterId)) order by w.timestamp, w.id")
+    List<Observation> findHistory(long cityId, long from, long to, long after, long afterId, Limit limit);
+
+    /**
+     * Finds the {@link dev.karlkadak.backend.entity.WeatherData#timestamp timestamp} of the latest
+     * {@link dev.karlkadak.backend.entity.WeatherData WeatherData} object of every
+     * {@link dev.karlkadak.backend.entity.City City}
+     *
+     * @return A {@link java.util.List} containing a {@link CityTimestamp} for every
+     * {@link dev.karlkadak.backend.entity.City City} with recorded weather data
+     */
+    @Query("select w.city.id as cityId, max(w.timestamp) as timestamp from WeatherData w group by w.city.id")
+    List<CityTimestamp> findLatestTimestamps();
+
+    /**
+     * Finds the values of the latest {@link dev.karlkadak.backend.entity.WeatherData WeatherData} object of every
+     * {@link dev.karlkadak.backend.entity.City City}
+     *
+     * @return A {@link java.util.List} containing a {@link LatestWeather} for every
+     * {@link dev.karlkadak.backend.entity.City City} with recorded weather data
+     */
+    @Query("select w.city.id as cityId, w.timestamp as timestamp, w.airTemperature as airTemperature, "
+           + "w.windSpeed as windSpeed, w.humidity as humidity, w.iconCode as iconCode from WeatherData w "
+           + "where w.timestamp = (select max(l.timestamp) from WeatherData l where l.city = w.city)")
+    List<LatestWeather> findLatestWeather();
+
+    /**
+     * Finds the values of the {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects observed after the
+     * specified time, using the index on the timestamp column
+     *
+     * @param after UNIX timestamp, UTC, after which to find values, exclusive
+     * @return A {@link java.util.List} containing a {@link LatestWeather} for every found
+     * {@link dev.karlkadak.backend.entity.WeatherData WeatherData} object
+     */
+    @Query("select w.city.id as cityId, w.timestamp as timestamp, w.airTemperature as airTemperature, "
+           + "w.windSpeed as windSpeed, w.humidity as humidity, w.iconCode as iconCode from WeatherData w "
+           + "where w.timestamp > :after")
+    List<LatestWeather> findWeatherObservedAfter(long after);
+
+    /**
+     * Selects the aggregated values of the {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects of
+     * every {@link dev.karlkadak.backend.entity.City City} as a {@link BucketAggregate}
+     */
+    String BUCKET_AGGREGATE_SELECT = "select w.city.id as cityId, count(w) as observationCount, "
+                                     + "count(w.airTemperature) as airTemperatureCount, "
+                                     + "sum(w.airTemperature) as airTemperatureSum, "
+                                     + "min(w.airTemperature) as airTemperatureMin, "
+                                     + "max(w.airTemperature) as airTemperatureMax, "
+                                     + "count(w.windSpeed) as windSpeedCount, sum(w.windSpeed) as windSpeedSum, "
+                                     + "min(w.windSpeed) as windSpeedMin, max(w.windSpeed) as windSpeedMax, "
+                                     + "count(w.humidity) as humidityCount, "
+                                     + "sum(cast(w.humidity as Double)) as humiditySum, "
+                                     + "min(cast(w.humidity as Double)) as humidityMin, "
+                                     + "max(cast(w.humidity as Double)) as humidityMax from WeatherData w ";
+
+    /**
+     * Aggregates the values of the {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects of the
+     * specified {@link dev.karlkadak.backend.entity.City City} objects observed within a time range
+     *
+     * @param cityIds The {@link dev.karlkadak.backend.entity.City City} objects'
+     *                {@link dev.karlkadak.backend.entity.City#id ids}
+     * @param from    UNIX timestamp, UTC, from which to aggregate values, inclusive
+     * @param to      UNIX timestamp, UTC, until which to aggregate values, exclusive
+     * @return A {@link java.util.List} containing a {@link BucketAggregate} for every
+     * {@link dev.karlkadak.backend.entity.City City} with weather data observed within the time range
+     */
+    @Query(BUCKET_AGGREGATE_SELECT + "where w.city.id in :cityIds and w.timestamp >= :from and w.timestamp < :to "
+           + "group by w.city.id")
+    List<BucketAggregate> aggregateObservedBetween(Collection<Long> cityIds, long from, long to);
+
+    /**
+     * Aggregates the values of the {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects of every
+     * {@link dev.karlkadak.backend.entity.City City} observed within a time range, using the index on the timestamp
+     * column
+     *
+     * @param from UNIX timestamp, UTC, from which to aggregate values, inclusive
+     * @param to   UNIX timestamp, UTC, until which to aggregate values, exclusive
+     * @return A {@link java.util.List} containing a {@link BucketAggregate} for every
+     * {@link dev.karlkadak.backend.entity.City City} with weather data observed within the time range
+     */
+    @Query(BUCKET_AGGREGATE_SELECT + "where w.timestamp >= :from and w.timestamp < :to group by w.city.id")
+    List<BucketAggregate> aggregateObservedBetween(long from, long to);
+
+    /**
+     * Projection of a {@link dev.karlkadak.backend.entity.City City} object's
+     * {@link dev.karlkadak.backend.entity.City#id id} and a timestamp
+     */
+    interface CityTimestamp {
+
+        long getCityId();
+
+        long getTimestamp();
+    }
+
+    /**
+     * Projection of the values of a {@link dev.karlkadak.backend.entity.WeatherData WeatherData} object along with its
+     * {@link dev.karlkadak.backend.entity.City City} object's {@link dev.karlkadak.backend.entity.City#id id}
+     */
+    interface LatestWeather {
+
+        long getCityId();
+
+        long getTimestamp();
+
+        Double getAirTemperature();
+
+        Double getWindSpeed();
+
+        Integer getHumidity();
+
+        String getIconCode();
+    }
+
+    /**
+     * Projection of the values of a {@link dev.karlkadak.backend.entity.WeatherData WeatherData} object
+     */
+    interface Observation {
+
+        long getId();
+
+        long getTimestamp();
+
+        Double getAirTemperature();
+
+        Double getWindSpeed();
+
+        Integer getHumidity();
+
+        String getIconCode();
+    }
+
+    /**
+     * Projection of the aggregated values of the {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects
+     * of a {@link dev.karlkadak.backend.entity.City City} object along with its
+     * {@link dev.karlkadak.backend.entity.City#id id}, missing values are not counted
+     */
+    interface BucketAggregate {
+
+        long getCityId();
+
+        long getObservationCount();
+
+        long getAirTemperatureCount();
+
+        Double getAirTemperatureSum();
+
+        Double getAirTemperatureMin();
+
+        Double getAirTemperatureMax();
+
+        long getWindSpeedCount();
+
+        Double getWindSpeedSum();
+
+        Double getWindSpeedMin();
+
+        Double getWindSpeedMax();
+
+        long getHumidityCount();
+
+        Double getHumiditySum();
+
+        Double getHumidityMin();
+
+        Double getHumidityMax();
+    }
 }
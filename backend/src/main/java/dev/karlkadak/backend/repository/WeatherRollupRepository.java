@@ -0,0 +1,69 @@
+package dev.karlkadak.backend.repository;
+
+import dev.karlkadak.backend.entity.RollupResolution;
+import dev.karlkadak.backend.entity.WeatherRollup;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for interacting with the WeatherRollup table
+ */
+@Repository
+public interface WeatherRollupRepository extends JpaRepository<WeatherRollup, Long> {
+
+    /**
+     * Finds the {@link dev.karlkadak.backend.entity.WeatherRollup WeatherRollup} objects of the specified
+     * {@link dev.karlkadak.backend.entity.City City} objects of the specified resolution starting at the specified time
+     *
+     * @param city_ids    The {@link dev.karlkadak.backend.entity.City City} objects'
+     *                    {@link dev.karlkadak.backend.entity.City#id ids}
+     * @param resolution  Length of the time bucket
+     * @param bucketStart UNIX timestamp, UTC, of the start of the time bucket
+     * @return A {@link java.util.List} containing the found
+     * {@link dev.karlkadak.backend.entity.WeatherRollup WeatherRollup} objects
+     */
+    List<WeatherRollup> findAllByCity_IdInAndResolutionAndBucketStart(Collection<Long> city_ids,
+                                                                      RollupResolution resolution, long bucketStart);
+
+    /**
+     * Finds the {@link dev.karlkadak.backend.entity.WeatherRollup WeatherRollup} objects of every
+     * {@link dev.karlkadak.backend.entity.City City} of the specified resolution starting at the specified time
+     *
+     * @param resolution  Length of the time bucket
+     * @param bucketStart UNIX timestamp, UTC, of the start of the time bucket
+     * @return A {@link java.util.List} containing the found
+     * {@link dev.karlkadak.backend.entity.WeatherRollup WeatherRollup} objects
+     */
+    List<WeatherRollup> findAllByResolutionAndBucketStart(RollupResolution resolution, long bucketStart);
+
+    /**
+     * Finds the {@link dev.karlkadak.backend.entity.WeatherRollup WeatherRollup} objects of a
+     * {@link dev.karlkadak.backend.entity.City City} of the specified resolution starting within a time range
+     *
+     * @param city_id    The {@link dev.karlkadak.backend.entity.City City} object's
+     *                   {@link dev.karlkadak.backend.entity.City#id id}
+     * @param resolution Length of the time buckets
+     * @param from       UNIX timestamp, UTC, from which to find time buckets, inclusive
+     * @param to         UNIX timestamp, UTC, until which to find time buckets, inclusive
+     * @param limit      Maximum amount of time buckets to find
+     * @return A {@link java.util.List} containing the found
+     * {@link dev.karlkadak.backend.entity.WeatherRollup WeatherRollup} objects, oldest first
+     */
+    List<WeatherRollup> findAllByCity_IdAndResolutionAndBucketStartBetweenOrderByBucketStart(
+            Long city_id, RollupResolution resolution, long from, long to, Limit limit);
+
+    /**
+     * Finds the {@link dev.karlkadak.backend.entity.WeatherRollup WeatherRollup} objects of every resolution of a
+     * {@link dev.karlkadak.backend.entity.City City}
+     *
+     * @param city_id The {@link dev.karlkadak.backend.entity.City City} object's
+     *                {@link dev.karlkadak.backend.entity.City#id id}
+     * @return A {@link java.util.List} containing the found
+     * {@link dev.karlkadak.backend.entity.WeatherRollup WeatherRollup} objects
+     */
+    List<WeatherRollup> findAllByCity_Id(Long city_id);
+}
@@ -0,0 +1,53 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.CityListRevision;
+import dev.karlkadak.backend.repository.CityListRevisionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Version of the list of tracked cities, changed whenever a city is enabled or disabled<br> Stored in the database as
+ * the {@link CityListRevision}, so that every instance sharing the database answers conditional requests for the list
+ * with the same version, read with a single primary key lookup instead of loading the list<br> Safe to use from
+ * multiple threads
+ */
+@Component
+public class CityListVersion {
+
+    private final CityListRevisionRepository cityListRevisionRepository;
+
+    @Autowired
+    public CityListVersion(CityListRevisionRepository cityListRevisionRepository) {
+        this.cityListRevisionRepository = cityListRevisionRepository;
+    }
+
+    /**
+     * Creates the {@link CityListRevision} unless another instance has already created it, the first version is the
+     * creation time so that versions of an earlier database are not reused
+     */
+    @PostConstruct
+    public void init() {
+        if (cityListRevisionRepository.existsById(CityListRevision.ID)) return;
+        try {
+            cityListRevisionRepository.save(new CityListRevision(System.currentTimeMillis()));
+        } catch (DataIntegrityViolationException _) {
+            // Another instance sharing the database has created it in the meantime
+        }
+    }
+
+    /**
+     * @return the current version of the list of tracked cities
+     */
+    public long current() {
+        return cityListRevisionRepository.findRevision(CityListRevision.ID).orElse(0L);
+    }
+
+    /**
+     * Marks the list of tracked cities as changed, must be called after the change has been saved
+     */
+    public void changed() {
+        cityListRevisionRepository.incrementRevision(CityListRevision.ID);
+    }
+}
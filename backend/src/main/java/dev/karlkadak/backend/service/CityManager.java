@@ -3,17 +3,36 @@ package dev.karlkadak.backend.service;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.karlkadak.backend.client.CircuitBreaker;
+import dev.karlkadak.backend.client.RetryPolicy;
+import dev.karlkadak.backend.client.UpstreamClient;
+import dev.karlkadak.backend.client.UpstreamPriority;
 import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.CityAlias;
 import dev.karlkadak.backend.exception.*;
+import dev.karlkadak.backend.repository.CityAliasRepository;
 import dev.karlkadak.backend.repository.CityRepository;
+import dev.karlkadak.backend.util.CityNames;
+import dev.karlkadak.backend.util.SingleFlight;
+import dev.karlkadak.backend.util.StripedLocks;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Map;
-import java.util.Optional;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.Lock;
 import java.util.logging.Logger;
 
 /**
@@ -23,11 +42,56 @@ import java.util.logging.Logger;
 @Service
 public class CityManager {
 
+    /**
+     * Amount of locks shared by the cities being saved, see {@link #cityLocks}
+     */
+    private static final int CITY_LOCK_STRIPES = 64;
+
     private final CityRepository cityRepository;
+    private final CityAliasRepository cityAliasRepository;
     private final Logger logger;
-    private final RestTemplate restTemplate;
+    private final UpstreamClient upstreamClient;
     private final ObjectMapper objectMapper;
     private final WeatherDataImporter weatherDataImporter;
+    private final CircuitBreaker geocodingCircuitBreaker;
+    private final RetryPolicy retryPolicy;
+    private final RefreshPlanner refreshPlanner;
+    private final GeocodingCache geocodingCache;
+    private final OfflineGazetteer offlineGazetteer;
+    private final CitySuggester citySuggester;
+    private final CityListVersion cityListVersion;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor cityImportExecutor;
+
+    /**
+     * Enable requests in flight by their normalized city name, concurrent requests for the same name share one
+     */
+    private final SingleFlight<String, City> enableRequests = new SingleFlight<>();
+
+    /**
+     * Serializes saving cities with the same normalized name, which different names can resolve to
+     */
+    private final StripedLocks cityLocks = new StripedLocks(CITY_LOCK_STRIPES);
+
+    /**
+     * Result of enabling a single city of a batch
+     *
+     * @param name   city name as requested
+     * @param status outcome of enabling the city
+     * @param city   the resolved {@link City}, null in case the city could not be resolved
+     * @param error  reason of the failure in case the city could not be resolved, null otherwise
+     */
+    public record BatchResult(String name, Status status, City city, String error) {
+
+        public enum Status {
+            CREATED,
+            ENABLED,
+            ALREADY_TRACKED,
+            NOT_FOUND,
+            MALFORMED,
+            FAILED
+        }
+    }
 
     /**
      * API key gathered from application.properties which is used for accessing the
@@ -36,38 +100,149 @@ public class CityManager {
     @Value("${openweather.api.key}")
     private String apiKey;
 
+    /**
+     * Maximum amount of names gathered from application.properties geocoded concurrently when enabling a batch of
+     * cities
+     */
+    @Value("${geocoding.batch.concurrency}")
+    private int batchConcurrency;
+
     @Autowired
-    public CityManager(CityRepository cityRepository, Logger logger, RestTemplate restTemplate,
-                       ObjectMapper objectMapper, WeatherDataImporter weatherDataImporter) {
+    public CityManager(CityRepository cityRepository, CityAliasRepository cityAliasRepository, Logger logger,
+                       UpstreamClient upstreamClient, ObjectMapper objectMapper,
+                       WeatherDataImporter weatherDataImporter,
+                       @Qualifier("geocodingCircuitBreaker") CircuitBreaker geocodingCircuitBreaker,
+                       RetryPolicy retryPolicy, RefreshPlanner refreshPlanner, GeocodingCache geocodingCache,
+                       OfflineGazetteer offlineGazetteer, CitySuggester citySuggester,
+                       CityListVersion cityListVersion, TransactionTemplate transactionTemplate,
+                       @Qualifier("cityImportExecutor") TaskExecutor cityImportExecutor) {
         this.cityRepository = cityRepository;
+        this.cityAliasRepository = cityAliasRepository;
         this.logger = logger;
-        this.restTemplate = restTemplate;
+        this.upstreamClient = upstreamClient;
         this.objectMapper = objectMapper;
         this.weatherDataImporter = weatherDataImporter;
+        this.geocodingCircuitBreaker = geocodingCircuitBreaker;
+        this.retryPolicy = retryPolicy;
+        this.refreshPlanner = refreshPlanner;
+        this.geocodingCache = geocodingCache;
+        this.offlineGazetteer = offlineGazetteer;
+        this.citySuggester = citySuggester;
+        this.cityListVersion = cityListVersion;
+        this.transactionTemplate = transactionTemplate;
+        this.cityImportExecutor = cityImportExecutor;
+    }
+
+    /**
+     * Fills in the {@link City#getNormalizedName() normalized names} of cities stored before the column was
+     * introduced<br> Legacy cities whose names normalize to the same name, such as "Tallinn" and "tallinn", cannot all
+     * have it as the column is unique, so only the oldest one is normalized and the others are merged into the city
+     * holding the normalized name, see {@link #merge}, instead of failing the startup
+     */
+    @PostConstruct
+    public void normalizeStoredNames() {
+        List<City> legacyCities = new ArrayList<>(cityRepository.findAllByNormalizedNameIsNull());
+        legacyCities.sort(Comparator.comparing(City::getId));
+
+        Map<String, City> normalizedCities = new HashMap<>();
+        boolean isListChanged = false;
+        for (City city : legacyCities) {
+            String normalizedName = CityNames.normalize(city.getName());
+            Optional<City> survivingCity = Optional.ofNullable(normalizedCities.get(normalizedName))
+                                                   .or(() -> cityRepository.findByNormalizedName(normalizedName));
+            if (survivingCity.isEmpty()) {
+                try {
+                    cityRepository.updateNormalizedName(city.getId(), normalizedName);
+                    normalizedCities.put(normalizedName, city);
+                    continue;
+                } catch (DataIntegrityViolationException _) {
+                    // Normalized by another instance in the meantime
+                    survivingCity = cityRepository.findByNormalizedName(normalizedName);
+                }
+            }
+            if (survivingCity.isEmpty()) {
+                logger.warning(String.format("Could not normalize the name of city %d (%s), the normalized name "
+                                             + "\"%s\" is taken.", city.getId(), city.getName(), normalizedName));
+                continue;
+            }
+            isListChanged |= merge(city, survivingCity.get());
+        }
+        if (isListChanged) cityListVersion.changed();
+    }
+
+    /**
+     * Merges a legacy city into the city holding its normalized name, the surviving city is tracked if either of them
+     * was and the merged city is no longer tracked, so that the list of tracked cities holds a single city per
+     * normalized name<br> The weather data of the merged city is kept as it is
+     *
+     * @param city          legacy {@link City} whose name could not be normalized
+     * @param survivingCity {@link City} holding the normalized name
+     * @return true if the list of tracked cities changed
+     */
+    private boolean merge(City city, City survivingCity) {
+        logger.warning(String.format("Merged city %d (%s) into city %d (%s), as the normalized name \"%s\" already "
+                                     + "belongs to it.", city.getId(), city.getName(), survivingCity.getId(),
+                                     survivingCity.getName(), CityNames.normalize(city.getName())));
+        if (!city.isImportingData()) return false;
+
+        if (!survivingCity.isImportingData()) {
+            cityRepository.updateImportingData(survivingCity.getId(), true);
+            survivingCity.setImportingData(true);
+        }
+        cityRepository.updateImportingData(city.getId(), false);
+        city.setImportingData(false);
+        return true;
     }
 
     /**
      * Adds a {@link City} object with the given name to the database or enables tracking its weather data in case it
-     * already exists
+     * already exists<br> Concurrent requests for the same normalized name are performed once and share the result
      *
      * @param name name of the city to add / toggle
      * @return generated / toggled {@link City} object
      */
     public City enableImporting(String name) {
+        return enableRequests.execute(CityNames.normalize(name), () -> enable(name));
+    }
+
+    /**
+     * Performs a single request of {@link #enableImporting}
+     *
+     * @param name name of the city to add / toggle
+     * @return generated / toggled {@link City} object
+     */
+    private City enable(String name) {
         // Retrieve the complete city object
         City city = retrieveCompleteCity(name);
 
-        boolean cityIsPresent = cityRepository.exists(Example.of(city));
+        // Check and save the city while holding its lock, so that concurrent requests do not both add it
+        Lock cityLock = cityLocks.get(city.getNormalizedName());
+        cityLock.lock();
+        try {
+            boolean cityIsPresent = cityRepository.exists(Example.of(city));
 
-        // Throw exception if city is already being tracked
-        if (cityIsPresent && city.isImportingData()) throw new CityAlreadyBeingTrackedException();
+            // Throw exception if city is already being tracked
+            if (cityIsPresent && city.isImportingData()) throw new CityAlreadyBeingTrackedException();
 
-        // Enable data tracking if city is present and not being tracked
-        if (cityIsPresent) city.setImportingData(true);
+            // Enable data tracking if city is present and not being tracked
+            if (cityIsPresent) city.setImportingData(true);
 
-        // Save the city to database (adds it if not present / edits the current instance if present)
-        // Also gets current weather data
-        cityRepository.save(city);
+            // Save the city to database (adds it if not present / edits the current instance if present)
+            // Another instance sharing the database may have added the city in the meantime
+            try {
+                cityRepository.save(city);
+            } catch (DataIntegrityViolationException _) {
+                throw new CityAlreadyBeingTrackedException();
+            }
+            rememberAlias(CityNames.normalize(name), city);
+        } finally {
+            cityLock.unlock();
+        }
+
+        // Plan its imports, suggest it, list it and get current weather data
+        refreshPlanner.track(city);
+        citySuggester.track(city);
+        cityListVersion.changed();
         weatherDataImporter.fetchAndSave(city);
 
         // Log the action
@@ -76,6 +251,165 @@ public class CityManager {
         return city;
     }
 
+    /**
+     * Adds or enables tracking the weather data of a batch of cities, the names are geocoded concurrently at most
+     * {@link #batchConcurrency} at a time and wait for the upstream rate limit instead of failing<br> The changed
+     * cities are saved in a single transaction while holding their locks like in {@link #enableImporting}, a city
+     * added or enabled concurrently by another request or instance is reported as already tracked<br> The weather data
+     * of the saved cities is fetched by a single import performed after returning on the separate
+     * {@link #cityImportExecutor}, so that it does not wait for a scheduled import, names which resolve to the same
+     * city share its result
+     *
+     * @param names names of the cities to add / toggle
+     * @return the result of every requested name, in the order of the names
+     */
+    public List<BatchResult> enableImportingAll(List<String> names) {
+        // Resolve the distinct names concurrently
+        Map<String, Future<City>> lookups = new HashMap<>();
+        Semaphore inFlightPermits = new Semaphore(Math.max(1, batchConcurrency));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (String name : names) {
+                if (name == null || lookups.containsKey(CityNames.normalize(name))) continue;
+                inFlightPermits.acquireUninterruptibly();
+                lookups.put(CityNames.normalize(name), executor.submit(() -> {
+                    try {
+                        return retrieveCompleteCity(name, UpstreamPriority.BACKGROUND);
+                    } finally {
+                        inFlightPermits.release();
+                    }
+                }));
+            }
+        }
+
+        // Decide the outcome of every resolved city once, keyed by its normalized name
+        Map<String, BatchResult.Status> cityStatuses = new HashMap<>();
+        Map<String, City> resolvedCities = new HashMap<>();
+        List<City> changedCities = new ArrayList<>();
+        List<BatchResult> results = new ArrayList<>();
+        for (String name : names) {
+            Future<City> lookup = name == null ? null : lookups.get(CityNames.normalize(name));
+            if (lookup == null || lookup.state() == Future.State.FAILED) {
+                Throwable e = lookup == null ? new MalformedCityNameException() : lookup.exceptionNow();
+                results.add(new BatchResult(name, statusOf(e), null, e.getMessage()));
+                continue;
+            }
+
+            City city = resolvedCities.computeIfAbsent(lookup.resultNow().getNormalizedName(),
+                                                       _ -> lookup.resultNow());
+            BatchResult.Status status = cityStatuses.computeIfAbsent(city.getNormalizedName(), _ -> {
+                // Cities which are not stored yet have no ID assigned
+                if (city.getId() != 0 && city.isImportingData()) return BatchResult.Status.ALREADY_TRACKED;
+                changedCities.add(city);
+                if (city.getId() == 0) return BatchResult.Status.CREATED;
+                city.setImportingData(true);
+                return BatchResult.Status.ENABLED;
+            });
+            results.add(new BatchResult(name, status, city, null));
+        }
+
+        // Save every changed city, those added or enabled concurrently are reported as already tracked
+        Map<String, City> savedCities = saveChanged(changedCities);
+        for (City city : changedCities) {
+            City savedCity = savedCities.get(city.getNormalizedName());
+            if (savedCity != null) {
+                resolvedCities.put(city.getNormalizedName(), savedCity);
+                continue;
+            }
+            cityStatuses.put(city.getNormalizedName(), BatchResult.Status.ALREADY_TRACKED);
+            cityRepository.findByNormalizedName(city.getNormalizedName())
+                          .ifPresent(storedCity -> resolvedCities.put(storedCity.getNormalizedName(), storedCity));
+        }
+        results.replaceAll(result -> result.city() == null ? result : new BatchResult(
+                result.name(), cityStatuses.get(result.city().getNormalizedName()),
+                resolvedCities.get(result.city().getNormalizedName()), null));
+
+        // Then plan their imports, suggest them, list them and get their current weather data
+        for (BatchResult result : results) {
+            if (result.city() != null && result.city().getId() != 0) {
+                rememberAlias(CityNames.normalize(result.name()), result.city());
+            }
+        }
+        for (City city : savedCities.values()) {
+            refreshPlanner.track(city);
+            citySuggester.track(city);
+        }
+        if (!savedCities.isEmpty()) {
+            List<City> citiesToImport = new ArrayList<>(savedCities.values());
+            cityListVersion.changed();
+            cityImportExecutor.execute(() -> weatherDataImporter.importCities(citiesToImport));
+        }
+
+        // Log the action
+        logger.info(String.format("Enabled tracking for %d cities of a batch of %d names.", savedCities.size(),
+                                  names.size()));
+
+        return results;
+    }
+
+    /**
+     * Saves the cities added or enabled by {@link #enableImportingAll} in a single transaction while holding their
+     * locks, except those which have been added or enabled in the meantime<br> If another instance sharing the
+     * database adds one of the cities before the transaction commits, the cities are saved one at a time instead
+     *
+     * @param cities {@link City} objects to save
+     * @return the saved {@link City} objects mapped by their normalized names
+     */
+    private Map<String, City> saveChanged(List<City> cities) {
+        Map<String, City> savedCities = new LinkedHashMap<>();
+        if (cities.isEmpty()) return savedCities;
+
+        List<Lock> locks = cityLocks.getAll(cities.stream().map(City::getNormalizedName).toList());
+        locks.forEach(Lock::lock);
+        try {
+            transactionTemplate.executeWithoutResult(_ -> {
+                for (City city : cities) {
+                    if (!isAddedOrEnabled(city)) savedCities.put(city.getNormalizedName(), city);
+                }
+                cityRepository.saveAll(new ArrayList<>(savedCities.values()));
+            });
+        } catch (DataIntegrityViolationException _) {
+            savedCities.clear();
+            for (City city : cities) {
+                saveChanged(city).ifPresent(savedCity -> savedCities.put(city.getNormalizedName(), savedCity));
+            }
+        } finally {
+            locks.reversed().forEach(Lock::unlock);
+        }
+        return savedCities;
+    }
+
+    /**
+     * Saves a city added or enabled by {@link #enableImportingAll} on its own, unless a stored city has been enabled
+     * in the meantime, must be called while holding the lock of the city
+     *
+     * @param city {@link City} to save
+     * @return the saved {@link City}, empty if it has been added or enabled concurrently
+     */
+    private Optional<City> saveChanged(City city) {
+        // Cities which are not stored yet have no ID assigned
+        boolean isEnabled = city.getId() != 0 && cityRepository.findById(city.getId())
+                                                               .map(City::isImportingData).orElse(false);
+        if (isEnabled) return Optional.empty();
+
+        try {
+            // The failed transaction may have assigned an ID to a new city, saving it then stores a copy
+            return Optional.of(cityRepository.save(city));
+        } catch (DataIntegrityViolationException _) {
+            // Another instance sharing the database may have added the city in the meantime
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param city {@link City} to be saved by {@link #enableImportingAll}
+     * @return true if a new city has been added or a stored city has been enabled since it was resolved
+     */
+    private boolean isAddedOrEnabled(City city) {
+        // Cities which are not stored yet have no ID assigned
+        if (city.getId() == 0) return cityRepository.findByNormalizedName(city.getNormalizedName()).isPresent();
+        return cityRepository.findById(city.getId()).map(City::isImportingData).orElse(false);
+    }
+
     /**
      * Disables the weather data tracking for {@link City} object with given ID
      *
@@ -94,8 +428,10 @@ public class CityManager {
         // Toggle the tracking
         city.setImportingData(false);
 
-        // Save the city to database
+        // Save the city to database, stop suggesting it as tracked and remove it from the list
         cityRepository.save(city);
+        citySuggester.untrack(city);
+        cityListVersion.changed();
 
         // Log the action
         logger.info(String.format("Disabled tracking for city \"%s\".", city.getName()));
@@ -106,7 +442,8 @@ public class CityManager {
     /**
      * Retrieves a complete {@link City} object using the city name received using the <a
      * href="https://openweathermap.org/api">OpenWeather API</a><br> In case such city already exists in the database,
-     * returns that instance instead
+     * returns that instance instead<br> Cities whose normalized name or a previously seen alias matches the name, as
+     * well as cities known by the {@link OfflineGazetteer}, are resolved locally without performing the API request
      * <br>Needs to be package-private in order to test directly
      *
      * @param name city name to look up
@@ -114,52 +451,120 @@ public class CityManager {
      * instance
      */
     City retrieveCompleteCity(String name) {
+        return retrieveCompleteCity(name, UpstreamPriority.INTERACTIVE);
+    }
+
+    /**
+     * Retrieves a complete {@link City} object like {@link #retrieveCompleteCity(String)}, performing the API request
+     * with the specified priority
+     * <br>Needs to be package-private in order to test directly
+     *
+     * @param name     city name to look up
+     * @param priority priority of the API request
+     * @return a {@link City} object linked to the name of the city input, if city is present in database returns that
+     * instance
+     */
+    City retrieveCompleteCity(String name, UpstreamPriority priority) {
         // Check the name for correct formatting
         if (!nameFormattedCorrectly(name)) throw new MalformedCityNameException();
 
+        // Look the city up from the database, the offline gazetteer and the cache before performing the API request
+        String query = CityNames.normalize(name);
+        Optional<City> knownCity = cityRepository.findByNormalizedName(query)
+                                                 .or(() -> cityAliasRepository.findCityByQuery(query));
+        if (knownCity.isPresent()) return knownCity.get();
+        GeocodingCache.Place place = offlineGazetteer.find(query)
+                                                     .or(() -> geocodingCache.find(query))
+                                                     .orElseGet(() -> geocode(name, query, priority));
+
+        // Return the existing city if present, a new city object otherwise
+        Optional<City> cityOptional = cityRepository.findByNormalizedName(CityNames.normalize(place.name()));
+        return cityOptional.orElseGet(
+                () -> new City(place.name(), place.latitude(), place.longitude(), place.countryCode()));
+    }
+
+    /**
+     * Looks the city up using the <a href="https://openweathermap.org/api">OpenWeather API</a> and caches the result
+     *
+     * @param name     city name to look up, used in log messages
+     * @param query    normalized city name to look up
+     * @param priority priority of the API request
+     * @return the location of the city
+     */
+    private GeocodingCache.Place geocode(String name, String query, UpstreamPriority priority) {
         // Initialize variables
         JsonNode arrayNode;
-        String completeName;
-        double latitude;
-        double longitude;
-        String countryCode;
+        GeocodingCache.Place place;
 
         // Perform the API request
         try {
             String requestUrl = String.format("https://api.openweathermap.org/geo/1.0/direct?q=%s=&limit=1&appid=%s",
-                                              name, apiKey);
-            String jsonResponse = restTemplate.getForObject(requestUrl, String.class);
+                                              URLEncoder.encode(name.strip(), StandardCharsets.UTF_8), apiKey);
+            String jsonResponse = geocodingCircuitBreaker.execute(
+                    () -> retryPolicy.execute(() -> upstreamClient.get(requestUrl, priority)));
             arrayNode = objectMapper.readTree(jsonResponse);
 
             // Throw exception in case of a processing error or an empty response
             if (arrayNode == null || !arrayNode.isArray()) throw new Exception();
+        } catch (UpstreamRateLimitExceededException | UpstreamUnavailableException e) {
+            logger.warning(String.format("Could not request data for city \"%s\". Reason: %s", name, e.getMessage()));
+            throw e;
         } catch (Exception e) {
             logger.warning(String.format("API response processing error when retrieving data for city \"%s\".", name));
             throw new FailedCityDataImportException();
         }
 
-        // Throw exception if city is not present
-        if (arrayNode.isEmpty()) throw new CityNotFoundException();
+        // Throw exception if city is not present, remembering the result for repeated lookups
+        if (arrayNode.isEmpty()) {
+            geocodingCache.putNotFound(query);
+            throw new CityNotFoundException();
+        }
 
         // Process the API response
         try {
             Map<String, Object> responseMap = objectMapper.convertValue(arrayNode.get(0), new TypeReference<>() {
             });
-            completeName = (String) responseMap.get("name");
-
-            // Return the existing city if present
-            Optional<City> cityOptional = cityRepository.findByName(completeName);
-            if (cityOptional.isPresent()) return cityOptional.get();
-
-            // Return a new city object
-            latitude = (double) responseMap.get("lat");
-            longitude = (double) responseMap.get("lon");
-            countryCode = (String) responseMap.get("country");
-            return new City(completeName, latitude, longitude, countryCode);
+            String completeName = (String) responseMap.get("name");
+            if (completeName == null) throw new Exception();
+            place = new GeocodingCache.Place(completeName, ((Number) responseMap.get("lat")).doubleValue(),
+                                             ((Number) responseMap.get("lon")).doubleValue(),
+                                             (String) responseMap.get("country"));
         } catch (Exception e) {
             logger.warning(String.format("Error when processing retrieved city data for city \"%s\".", name));
             throw new FailedCityDataImportException();
         }
+
+        geocodingCache.putFound(query, place);
+        return place;
+    }
+
+    /**
+     * Stores the looked up name as an alias of the city, unless it matches the city's own normalized name or is already
+     * stored
+     *
+     * @param query normalized city name which was looked up
+     * @param city  saved {@link City} the name resolved to
+     */
+    private void rememberAlias(String query, City city) {
+        if (query.equals(city.getNormalizedName()) || cityAliasRepository.existsByQuery(query)) return;
+
+        try {
+            cityAliasRepository.save(new CityAlias(query, city));
+        } catch (DataIntegrityViolationException _) {
+            // Stored concurrently by another request
+        }
+    }
+
+    /**
+     * @param e reason the name of a batch could not be resolved
+     * @return the corresponding outcome of enabling the city
+     */
+    private static BatchResult.Status statusOf(Throwable e) {
+        return switch (e) {
+            case MalformedCityNameException _ -> BatchResult.Status.MALFORMED;
+            case CityNotFoundException _ -> BatchResult.Status.NOT_FOUND;
+            default -> BatchResult.Status.FAILED;
+        };
     }
 
     /**
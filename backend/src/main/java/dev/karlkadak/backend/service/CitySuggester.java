@@ -0,0 +1,186 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.repository.CityRepository;
+import dev.karlkadak.backend.util.CityNames;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Suggests city names matching the beginning of a partially typed name, from the tracked cities and the places of the
+ * {@link OfflineGazetteer}<br> Tracked cities are suggested first, matches are ranked by the population of the place
+ * known to the gazetteer<br> The places of the gazetteer are kept sorted by their normalized name, so that the places
+ * matching a prefix form a range found using binary search, the best ranked places of all one and two character
+ * prefixes are computed ahead of time<br> Tracked cities are kept in a sorted map updated as cities are enabled and
+ * disabled<br> Safe to use from multiple threads
+ */
+@Component
+public class CitySuggester {
+
+    /**
+     * Maximum amount of suggestions returned by a single lookup
+     */
+    public static final int MAX_LIMIT = 20;
+
+    /**
+     * Length up to which the best ranked places of every prefix are computed ahead of time, longer prefixes match few
+     * enough places to rank them on every lookup
+     */
+    private static final int PRECOMPUTED_PREFIX_LENGTH = 2;
+
+    /**
+     * Amount of places ranked per prefix, more than {@link #MAX_LIMIT} since places sharing a name with a tracked city
+     * are left out
+     */
+    private static final int RANKED_PLACE_COUNT = 2 * MAX_LIMIT;
+
+    private static final Comparator<Suggestion> BY_POPULATION =
+            Comparator.comparingLong(Suggestion::population).reversed().thenComparing(Suggestion::name);
+
+    /**
+     * Suggested city name
+     *
+     * @param name        complete name of the city
+     * @param countryCode country code of the city
+     * @param latitude    latitude of the city
+     * @param longitude   longitude of the city
+     * @param cityId      {@link City#getId() ID} of the city if it is tracked, null otherwise
+     * @param population  population of the city according to the gazetteer, 0 if unknown
+     */
+    public record Suggestion(String name, String countryCode, double latitude, double longitude, Long cityId,
+                             long population) {
+    }
+
+    private final CityRepository cityRepository;
+
+    // Places of the gazetteer sorted by their normalized names in placeKeys
+    private final String[] placeKeys;
+    private final List<OfflineGazetteer.Entry> places;
+    private final Map<String, int[]> rankedPlacesByPrefix = new HashMap<>();
+
+    // Tracked cities by their normalized names
+    private final ConcurrentSkipListMap<String, Suggestion> trackedCities = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public CitySuggester(CityRepository cityRepository, OfflineGazetteer offlineGazetteer) {
+        this.cityRepository = cityRepository;
+        this.places = offlineGazetteer.entries();
+        this.placeKeys = places.stream().map(OfflineGazetteer.Entry::key).toArray(String[]::new);
+
+        for (int length = 1; length <= PRECOMPUTED_PREFIX_LENGTH; length++) {
+            for (int from = 0, to; from < placeKeys.length; from = to) {
+                if (placeKeys[from].length() < length) {
+                    to = from + 1;
+                    continue;
+                }
+                String prefix = placeKeys[from].substring(0, length);
+                to = upperBound(prefix);
+                rankedPlacesByPrefix.put(prefix, rankPlaces(from, to));
+            }
+        }
+    }
+
+    /**
+     * Loads all tracked cities from the database
+     */
+    @PostConstruct
+    public void warmUp() {
+        for (City city : cityRepository.findAllByImportingDataTrue()) track(city);
+    }
+
+    /**
+     * Starts suggesting a newly tracked city, replacing a previously tracked city with the same normalized name
+     *
+     * @param city tracked {@link City}
+     */
+    public void track(City city) {
+        String key = CityNames.normalize(city.getName());
+        int index = Arrays.binarySearch(placeKeys, key);
+        long population = index < 0 ? 0 : places.get(index).population();
+        trackedCities.put(key, new Suggestion(city.getName(), city.getCountryCode(),
+                                              city.getCoordinatePair().getLatitude(),
+                                              city.getCoordinatePair().getLongitude(), city.getId(), population));
+    }
+
+    /**
+     * Stops suggesting a city as tracked, it is still suggested if the gazetteer knows it
+     *
+     * @param city {@link City} which is no longer tracked
+     */
+    public void untrack(City city) {
+        trackedCities.computeIfPresent(CityNames.normalize(city.getName()),
+                                       (_, suggestion) -> suggestion.cityId() == city.getId() ? null : suggestion);
+    }
+
+    /**
+     * @param query partially typed city name
+     * @param limit maximum amount of suggestions to return, clamped between 1 and {@link #MAX_LIMIT}
+     * @return the best ranked cities whose normalized name starts with the normalized query, tracked cities first
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        String prefix = CityNames.normalize(query);
+        if (prefix.isEmpty()) return List.of();
+        int maxSize = Math.clamp(limit, 1, MAX_LIMIT);
+
+        List<Suggestion> suggestions = new ArrayList<>(maxSize);
+        Set<String> suggestedKeys = new HashSet<>();
+        trackedCities.subMap(prefix, upperKey(prefix)).values().stream().sorted(BY_POPULATION).limit(maxSize)
+                     .forEach(suggestion -> {
+                         suggestions.add(suggestion);
+                         suggestedKeys.add(CityNames.normalize(suggestion.name()));
+                     });
+
+        for (int index : rankedPlaces(prefix)) {
+            if (suggestions.size() == maxSize) break;
+            GeocodingCache.Place place = places.get(index).place();
+            if (!suggestedKeys.add(CityNames.normalize(place.name()))) continue;
+            suggestions.add(new Suggestion(place.name(), place.countryCode(), place.latitude(), place.longitude(), null,
+                                           places.get(index).population()));
+        }
+        return suggestions;
+    }
+
+    /**
+     * @param prefix normalized prefix
+     * @return indexes of the most populous places whose normalized name starts with the prefix, most populous first
+     */
+    private int[] rankedPlaces(String prefix) {
+        if (prefix.length() <= PRECOMPUTED_PREFIX_LENGTH) return rankedPlacesByPrefix.getOrDefault(prefix, new int[0]);
+
+        int index = Arrays.binarySearch(placeKeys, prefix);
+        return rankPlaces(index < 0 ? -index - 1 : index, upperBound(prefix));
+    }
+
+    /**
+     * @param from index of the first place to rank
+     * @param to   index after the last place to rank
+     * @return indexes of the at most {@link #RANKED_PLACE_COUNT} most populous places of the range, most populous first
+     */
+    private int[] rankPlaces(int from, int to) {
+        Integer[] indexes = new Integer[to - from];
+        for (int i = from; i < to; i++) indexes[i - from] = i;
+        Arrays.sort(indexes, Comparator.comparingLong((Integer i) -> places.get(i).population()).reversed());
+        return Arrays.stream(indexes).limit(RANKED_PLACE_COUNT).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param prefix normalized prefix
+     * @return index after the last place whose normalized name starts with the prefix
+     */
+    private int upperBound(String prefix) {
+        int index = Arrays.binarySearch(placeKeys, upperKey(prefix));
+        return index < 0 ? -index - 1 : index;
+    }
+
+    /**
+     * @param prefix normalized prefix
+     * @return a key sorted after all keys starting with the prefix
+     */
+    private static String upperKey(String prefix) {
+        return prefix + Character.MAX_VALUE;
+    }
+}
@@ -0,0 +1,157 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.ImportNode;
+import dev.karlkadak.backend.repository.ImportNodeRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Splits the tracked {@link City} objects between multiple backend instances sharing the same database<br> Every
+ * instance regularly stores a heartbeat in the ImportNode table, the live instances ordered by their ID each own the
+ * shard of cities whose {@link City#id ID} modulo the amount of live instances equals their position<br> Once an
+ * instance stops sending heartbeats, its cities are taken over by the remaining instances
+ */
+@Component
+public class ClusterCoordinator {
+
+    private final ImportNodeRepository importNodeRepository;
+    private final ObservationTracker observationTracker;
+    private final Logger logger;
+
+    /**
+     * Specifies if the import is split between multiple backend instances, gathered from application.properties
+     */
+    @Value("${cluster.enabled}")
+    @Setter
+    @Getter
+    private boolean enabled;
+
+    /**
+     * Unique identifier of this backend instance gathered from application.properties
+     */
+    @Value("${cluster.node.id}")
+    @Setter
+    private String nodeId;
+
+    /**
+     * Duration gathered from application.properties after which an instance without a heartbeat is considered dead
+     */
+    @Value("${cluster.heartbeat.timeout}")
+    @Setter
+    private Duration heartbeatTimeout;
+
+    /**
+     * Shard owned by this instance during the previous import
+     */
+    private Shard previousShard = Shard.WHOLE;
+
+    @Autowired
+    public ClusterCoordinator(ImportNodeRepository importNodeRepository, ObservationTracker observationTracker,
+                              Logger logger) {
+        this.importNodeRepository = importNodeRepository;
+        this.observationTracker = observationTracker;
+        this.logger = logger;
+    }
+
+    /**
+     * Stores the heartbeat of this instance and removes the instances whose heartbeat has expired, has no effect
+     * unless {@link #enabled}
+     */
+    public void heartbeat() {
+        if (!enabled) return;
+
+        long now = Instant.now().getEpochSecond();
+        importNodeRepository.save(new ImportNode(nodeId, now));
+        importNodeRepository.deleteAllByHeartbeatAtBefore(now - heartbeatTimeout.toSeconds());
+    }
+
+    /**
+     * Determines the shard currently owned by this instance based on the live instances<br> In case the shard has
+     * changed since the previous import, the other instances may have saved observations of the newly owned cities,
+     * so the {@link ObservationTracker} is reloaded from the database
+     *
+     * @return the {@link Shard} owned by this instance, {@link Shard#WHOLE} unless {@link #enabled}
+     */
+    public synchronized Shard currentShard() {
+        if (!enabled) return Shard.WHOLE;
+
+        heartbeat();
+        List<String> liveNodeIds = findLiveNodeIds();
+        // Joins as the last node in the unlikely case the own heartbeat has not been read back
+        int index = liveNodeIds.indexOf(nodeId);
+        Shard shard = index < 0 ? new Shard(liveNodeIds.size(), liveNodeIds.size() + 1)
+                                : new Shard(index, liveNodeIds.size());
+
+        if (!shard.equals(previousShard)) {
+            logger.info(String.format("Importing shard %d of %d live nodes.", shard.index() + 1, shard.count()));
+            observationTracker.warmUp();
+            previousShard = shard;
+        }
+        return shard;
+    }
+
+    /**
+     * Checks whether this instance still holds the lease of the shard returned by the latest {@link #currentShard}
+     * call, that is its heartbeat has not expired and the live instances have not changed since<br> Once the lease is
+     * lost, other instances may already be importing the same cities, so the running import must not save its data
+     *
+     * @return true if the lease is held or unless {@link #enabled}, false otherwise
+     */
+    public synchronized boolean holdsLease() {
+        if (!enabled) return true;
+
+        List<String> liveNodeIds = findLiveNodeIds();
+        int index = liveNodeIds.indexOf(nodeId);
+        return index >= 0 && new Shard(index, liveNodeIds.size()).equals(previousShard);
+    }
+
+    /**
+     * Removes the heartbeat of this instance on shutdown so that the remaining instances take over its cities without
+     * waiting for the {@link #heartbeatTimeout}
+     */
+    @PreDestroy
+    public void leave() {
+        if (enabled) importNodeRepository.deleteById(nodeId);
+    }
+
+    /**
+     * @return IDs of the instances whose heartbeat has not expired, ordered by ID
+     */
+    private List<String> findLiveNodeIds() {
+        long liveSince = Instant.now().getEpochSecond() - heartbeatTimeout.toSeconds();
+        return importNodeRepository.findAllByHeartbeatAtGreaterThanEqualOrderByNodeIdAsc(liveSince)
+                                   .stream().map(ImportNode::getNodeId).toList();
+    }
+
+    /**
+     * Part of the tracked cities owned by a single instance
+     *
+     * @param index position of the owning instance, between 0 and count - 1
+     * @param count total amount of shards
+     */
+    public record Shard(int index, int count) {
+
+        /**
+         * Single shard containing all cities, used when the import is not split
+         */
+        public static final Shard WHOLE = new Shard(0, 1);
+
+        /**
+         * @param city {@link City} to check
+         * @return true if the city belongs to this shard, false otherwise
+         */
+        public boolean owns(City city) {
+            return Math.floorMod(city.getId(), count) == index;
+        }
+    }
+}
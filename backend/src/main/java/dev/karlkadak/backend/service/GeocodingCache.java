@@ -0,0 +1,113 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.exception.CityNotFoundException;
+import dev.karlkadak.backend.util.ExpiringLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Caches the results of geocoding API lookups by their normalized query, so that repeated lookups of the same city do
+ * not spend upstream quota<br> Lookups of cities which do not exist are cached as well, for a shorter time<br> Safe to
+ * use from multiple threads
+ */
+@Component
+public class GeocodingCache {
+
+    /**
+     * Counted cache lookups, tagged by their result
+     */
+    static final String REQUESTS = "geocoding.cache.requests";
+
+    /**
+     * Location returned by the geocoding API
+     *
+     * @param name        complete name of the city
+     * @param latitude    latitude of the city
+     * @param longitude   longitude of the city
+     * @param countryCode country code of the city
+     */
+    public record Place(String name, double latitude, double longitude, String countryCode) {
+    }
+
+    /**
+     * Cached value of lookups which found no city
+     */
+    private static final Place NOT_FOUND = new Place(null, 0, 0, null);
+
+    private final ExpiringLruCache<String, Place> places;
+    private final Duration timeToLive;
+    private final Duration notFoundTimeToLive;
+    private final Counter hits;
+    private final Counter notFoundHits;
+    private final Counter misses;
+
+    /**
+     * Default constructor
+     *
+     * @param meterRegistry      registry to record the cache metrics in
+     * @param maxSize            maximum amount of cached lookups gathered from application.properties
+     * @param timeToLive         time gathered from application.properties a found city is cached for
+     * @param notFoundTimeToLive time gathered from application.properties a lookup which found no city is cached for
+     */
+    @Autowired
+    public GeocodingCache(MeterRegistry meterRegistry, @Value("${geocoding.cache.size}") int maxSize,
+                          @Value("${geocoding.cache.ttl}") Duration timeToLive,
+                          @Value("${geocoding.cache.negative.ttl}") Duration notFoundTimeToLive) {
+        this(meterRegistry, maxSize, timeToLive, notFoundTimeToLive, System::nanoTime);
+    }
+
+    GeocodingCache(MeterRegistry meterRegistry, int maxSize, Duration timeToLive, Duration notFoundTimeToLive,
+                   LongSupplier nanoClock) {
+        this.places = new ExpiringLruCache<>(maxSize, nanoClock);
+        this.timeToLive = timeToLive;
+        this.notFoundTimeToLive = notFoundTimeToLive;
+        this.hits = meterRegistry.counter(REQUESTS, "result", "hit");
+        this.notFoundHits = meterRegistry.counter(REQUESTS, "result", "not_found_hit");
+        this.misses = meterRegistry.counter(REQUESTS, "result", "miss");
+        Gauge.builder("geocoding.cache.size", places, ExpiringLruCache::size)
+             .description("Amount of cached geocoding lookups")
+             .register(meterRegistry);
+    }
+
+    /**
+     * @param query normalized query of the lookup
+     * @return the cached location, or an empty optional if the lookup is not cached
+     * @throws CityNotFoundException in case the lookup is cached as having found no city
+     */
+    public Optional<Place> find(String query) {
+        Place place = places.get(query);
+        if (place == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        if (place == NOT_FOUND) {
+            notFoundHits.increment();
+            throw new CityNotFoundException();
+        }
+        hits.increment();
+        return Optional.of(place);
+    }
+
+    /**
+     * @param query normalized query of the lookup
+     * @param place location found by the lookup
+     */
+    public void putFound(String query, Place place) {
+        places.put(query, place, timeToLive);
+    }
+
+    /**
+     * @param query normalized query of the lookup which found no city
+     */
+    public void putNotFound(String query) {
+        places.put(query, NOT_FOUND, notFoundTimeToLive);
+    }
+}
@@ -0,0 +1,156 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.ImportRun;
+import dev.karlkadak.backend.entity.ImportRunCity;
+import dev.karlkadak.backend.entity.ImportStatus;
+import dev.karlkadak.backend.repository.ImportRunCityRepository;
+import dev.karlkadak.backend.repository.ImportRunRepository;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+/**
+ * Journals the runs of the weather data import in the database, the status of every city of a run is updated as soon
+ * as the city has been processed, so that a run interrupted by a crash can be resumed for its remaining cities<br>
+ * Finished runs are deleted once they are older than the {@link #retention}<br> A failure to update the journal is
+ * logged without interrupting the import, a run which fails to be journaled is imported unjournaled
+ */
+@Component
+public class ImportJournal {
+
+    /**
+     * {@link ImportRun#id ID} returned for a run which failed to be journaled, ignored when updating the journal
+     */
+    public static final long UNJOURNALED_RUN_ID = -1;
+
+    private final ImportRunRepository importRunRepository;
+    private final ImportRunCityRepository importRunCityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Logger logger;
+
+    /**
+     * Duration gathered from application.properties after which finished runs are deleted
+     */
+    @Value("${importer.journal.retention}")
+    @Setter
+    private Duration retention;
+
+    @Autowired
+    public ImportJournal(ImportRunRepository importRunRepository, ImportRunCityRepository importRunCityRepository,
+                         TransactionTemplate transactionTemplate, Logger logger) {
+        this.importRunRepository = importRunRepository;
+        this.importRunCityRepository = importRunCityRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.logger = logger;
+    }
+
+    /**
+     * Journals a new run with all of its cities {@link ImportStatus#PENDING PENDING} in a single transaction, so that
+     * a run is never journaled without its cities
+     *
+     * @param cities {@link City} objects of the run
+     * @return {@link ImportRun#id ID} of the new run, {@link #UNJOURNALED_RUN_ID} if journaling it failed
+     */
+    public long start(List<City> cities) {
+        try {
+            return transactionTemplate.execute(_ -> {
+                ImportRun run = importRunRepository.save(new ImportRun(Instant.now().getEpochSecond(),
+                                                                       cities.size()));
+                importRunCityRepository.saveAll(cities.stream()
+                                                      .map(city -> new ImportRunCity(run, city.getId())).toList());
+                return run.getId();
+            });
+        } catch (RuntimeException e) {
+            logger.warning(String.format("Failed journaling an import run of %d cities, importing it unjournaled. "
+                                         + "Reason: %s", cities.size(), e.getMessage()));
+            return UNJOURNALED_RUN_ID;
+        }
+    }
+
+    /**
+     * Updates the status of the specified cities in a run
+     *
+     * @param runId   {@link ImportRun#id ID} of the run, ignored if {@link #UNJOURNALED_RUN_ID}
+     * @param cityIds {@link City#id IDs} of the cities
+     * @param status  new status of the cities
+     * @param error   reason of the failure, null unless the new status is {@link ImportStatus#FAILED FAILED}
+     */
+    public void record(long runId, Collection<Long> cityIds, ImportStatus status, String error) {
+        if (runId == UNJOURNALED_RUN_ID || cityIds.isEmpty()) return;
+        if (error != null && error.length() > ImportRunCity.MAX_ERROR_LENGTH) {
+            error = error.substring(0, ImportRunCity.MAX_ERROR_LENGTH);
+        }
+
+        try {
+            importRunCityRepository.updateStatus(runId, cityIds, status, error);
+        } catch (RuntimeException e) {
+            logger.warning(String.format("Failed journaling %d cities of import run %d. Reason: %s", cityIds.size(),
+                                         runId, e.getMessage()));
+        }
+    }
+
+    /**
+     * Marks a run as finished, its remaining {@link ImportStatus#PENDING PENDING} cities are not resumed, and deletes
+     * the finished runs older than the {@link #retention}
+     *
+     * @param runId {@link ImportRun#id ID} of the run, ignored if {@link #UNJOURNALED_RUN_ID}
+     */
+    public void finish(long runId) {
+        if (runId == UNJOURNALED_RUN_ID) return;
+        try {
+            importRunRepository.updateFinishedAt(runId, Instant.now().getEpochSecond());
+        } catch (RuntimeException e) {
+            logger.warning(String.format("Failed finishing import run %d. Reason: %s", runId, e.getMessage()));
+        }
+        prune();
+    }
+
+    /**
+     * Deletes the finished runs started before the {@link #retention} along with their cities
+     */
+    private void prune() {
+        long before = Instant.now().minus(retention).getEpochSecond();
+        try {
+            importRunCityRepository.deleteByFinishedRunsStartedBefore(before);
+            int deletedRunCount = importRunRepository.deleteFinishedStartedBefore(before);
+            if (deletedRunCount > 0) logger.info(String.format("Deleted %d expired import runs.", deletedRunCount));
+        } catch (RuntimeException e) {
+            logger.warning(String.format("Failed deleting expired import runs. Reason: %s", e.getMessage()));
+        }
+    }
+
+    /**
+     * Finds the most recent unfinished run, any older unfinished runs are marked as finished as their cities have
+     * been imported by the later runs
+     *
+     * @return an {@link Optional} with the most recent unfinished run or an empty one if all runs have finished
+     */
+    public Optional<UnfinishedRun> findUnfinishedRun() {
+        List<ImportRun> unfinishedRuns = importRunRepository.findAllByFinishedAtIsNullOrderByIdDesc();
+        if (unfinishedRuns.isEmpty()) return Optional.empty();
+
+        for (ImportRun olderRun : unfinishedRuns.subList(1, unfinishedRuns.size())) finish(olderRun.getId());
+        long runId = unfinishedRuns.getFirst().getId();
+        return Optional.of(new UnfinishedRun(runId, importRunCityRepository.findCityIdsByRunIdAndStatus(
+                runId, ImportStatus.PENDING)));
+    }
+
+    /**
+     * Run which was interrupted before all of its cities were processed
+     *
+     * @param runId          {@link ImportRun#id ID} of the run
+     * @param pendingCityIds {@link City#id IDs} of the cities which have not been processed
+     */
+    public record UnfinishedRun(long runId, List<Long> pendingCityIds) {
+    }
+}
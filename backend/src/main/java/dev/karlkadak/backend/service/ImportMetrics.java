@@ -0,0 +1,147 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.exception.UpstreamRateLimitExceededException;
+import dev.karlkadak.backend.exception.UpstreamRequestException;
+import dev.karlkadak.backend.exception.UpstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Records the Micrometer metrics of the weather data import, exposed through the Prometheus actuator endpoint<br> Safe
+ * to use from multiple threads
+ */
+@Component
+public class ImportMetrics {
+
+    /**
+     * Counted cities, tagged by their result and the reason of skipped and failed cities
+     */
+    static final String CITIES = "weather.import.cities";
+
+    private final MeterRegistry meterRegistry;
+    private final Timer cycleTimer;
+    private final Timer fetchTimer;
+    private final Timer parseTimer;
+    private final Timer persistTimer;
+
+    @Autowired
+    public ImportMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.cycleTimer = Timer.builder("weather.import.cycle")
+                               .description("Duration of a complete import cycle")
+                               .register(meterRegistry);
+        this.fetchTimer = Timer.builder("weather.import.fetch")
+                               .description("Latency of a single upstream weather data request")
+                               .publishPercentileHistogram()
+                               .register(meterRegistry);
+        this.parseTimer = Timer.builder("weather.import.parse")
+                               .description("Time spent parsing a single upstream response")
+                               .register(meterRegistry);
+        this.persistTimer = Timer.builder("weather.import.persist")
+                                 .description("Time spent saving a single batch of weather data")
+                                 .register(meterRegistry);
+    }
+
+    /**
+     * @param cycle complete import cycle to perform and time
+     */
+    public void timeCycle(Runnable cycle) {
+        cycleTimer.record(cycle);
+    }
+
+    /**
+     * @param request upstream request to perform and time, failed requests are timed as well
+     * @return the result of the request
+     */
+    public <T> T timeFetch(Supplier<T> request) {
+        return fetchTimer.record(request);
+    }
+
+    /**
+     * @param parsing parsing of an upstream response to perform and time
+     * @return the result of the parsing
+     */
+    public <T> T timeParse(Supplier<T> parsing) {
+        return parseTimer.record(parsing);
+    }
+
+    /**
+     * @param persisting saving of a batch to perform and time
+     */
+    public void timePersist(Runnable persisting) {
+        persistTimer.record(persisting);
+    }
+
+    /**
+     * @param count amount of cities whose weather data was saved
+     */
+    public void countSaved(int count) {
+        countCities("saved", "none", count);
+    }
+
+    /**
+     * Counts a city whose weather data was skipped as it has not changed since the latest saved observation
+     */
+    public void countUnchanged() {
+        countCities("skipped", "unchanged", 1);
+    }
+
+    /**
+     * @param count amount of cities which were not fetched as the upstream is unavailable
+     */
+    public void countNotFetched(int count) {
+        countCities("skipped", "upstream_unavailable", count);
+    }
+
+    /**
+     * Counts a city whose weather data could not be requested
+     *
+     * @param failure failure of the request, used for determining the reason
+     */
+    public void countRequestFailed(RuntimeException failure) {
+        countCities("failed", requestFailureReason(failure), 1);
+    }
+
+    /**
+     * Counts a city whose weather data could not be parsed from the upstream response
+     */
+    public void countInvalidResponse() {
+        countCities("failed", "invalid_response", 1);
+    }
+
+    /**
+     * @param count amount of cities whose weather data failed to be saved
+     */
+    public void countPersistFailed(int count) {
+        countCities("failed", "persist_failed", count);
+    }
+
+    private void countCities(String result, String reason, int count) {
+        if (count <= 0) return;
+        Counter.builder(CITIES)
+               .description("Cities processed by the import")
+               .tag("result", result)
+               .tag("reason", reason)
+               .register(meterRegistry)
+               .increment(count);
+    }
+
+    /**
+     * @param failure failure of an upstream request
+     * @return the reason tag of the failure
+     */
+    private static String requestFailureReason(RuntimeException failure) {
+        return switch (failure) {
+            case UpstreamUnavailableException _ -> "upstream_unavailable";
+            case UpstreamRateLimitExceededException _ -> "rate_limited";
+            case UpstreamRequestException e when e.getStatusCode() == null -> "upstream_unreachable";
+            case UpstreamRequestException _ -> "upstream_error";
+            default -> "request_failed";
+        };
+    }
+}
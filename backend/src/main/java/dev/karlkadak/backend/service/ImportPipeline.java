@@ -0,0 +1,215 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.WeatherData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Processes the API responses fetched during a single import in two further stages connected by bounded queues: the
+ * responses are parsed by a fixed amount of parse workers and the parsed {@link WeatherData} objects are saved in
+ * batches by a single persist worker<br> When a stage falls behind, its full queue blocks the previous stage, so a
+ * slow database eventually slows down the fetching instead of accumulating data in memory<br> Fetched responses may be
+ * submitted from multiple threads
+ */
+class ImportPipeline {
+
+    /**
+     * Marks the end of the fetched responses in the {@link #parseQueue}
+     */
+    private static final FetchedResponse END_OF_RESPONSES = new FetchedResponse(List.of(), null, null);
+
+    /**
+     * Marks the end of the parsed data in the {@link #persistQueue}, compared by identity
+     */
+    private static final List<WeatherData> END_OF_DATA = new ArrayList<>();
+
+    private final Logger logger;
+    private final int parseWorkerCount;
+    private final Function<FetchedResponse, List<WeatherData>> parser;
+    private final WeatherDataBatchWriter batchWriter;
+    private final BlockingQueue<FetchedResponse> parseQueue;
+    private final BlockingQueue<List<WeatherData>> persistQueue;
+    private final List<Thread> workers = new ArrayList<>();
+
+    /**
+     * Default constructor
+     *
+     * @param logger           logger used for logging unexpected failures of the workers
+     * @param queueCapacity    capacity of each queue, values below 1 are treated as 1
+     * @param parseWorkerCount amount of parse workers, values below 1 are treated as 1
+     * @param parser           parses a fetched response into the {@link WeatherData} objects to save
+     * @param batchWriter      batch writer used by the persist worker
+     */
+    ImportPipeline(Logger logger, int queueCapacity, int parseWorkerCount,
+                   Function<FetchedResponse, List<WeatherData>> parser, WeatherDataBatchWriter batchWriter) {
+        this.logger = logger;
+        this.parseWorkerCount = Math.max(1, parseWorkerCount);
+        this.parser = parser;
+        this.batchWriter = batchWriter;
+        this.parseQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.persistQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    /**
+     * Starts the parse and persist workers
+     */
+    void start() {
+        for (int i = 0; i < parseWorkerCount; i++) {
+            workers.add(Thread.ofPlatform().name("weather-import-parse-" + i).daemon().start(this::runParseWorker));
+        }
+        workers.add(Thread.ofPlatform().name("weather-import-persist").daemon().start(this::runPersistWorker));
+    }
+
+    /**
+     * Hands a fetched response over to the parse workers, blocks while the {@link #parseQueue} is full
+     *
+     * @param fetchedResponse fetched response
+     */
+    void submit(FetchedResponse fetchedResponse) {
+        putUninterruptibly(parseQueue, fetchedResponse);
+    }
+
+    /**
+     * Waits until all submitted responses have been parsed and the parsed data has been saved, no responses may be
+     * submitted afterwards
+     */
+    void finish() {
+        for (int i = 0; i < parseWorkerCount; i++) putUninterruptibly(parseQueue, END_OF_RESPONSES);
+        for (Thread worker : workers.subList(0, parseWorkerCount)) joinUninterruptibly(worker);
+        putUninterruptibly(persistQueue, END_OF_DATA);
+        joinUninterruptibly(workers.getLast());
+    }
+
+    /**
+     * @return amount of fetched responses waiting to be parsed
+     */
+    int getParseQueueDepth() {
+        return parseQueue.size();
+    }
+
+    /**
+     * @return amount of parsed responses waiting to be saved
+     */
+    int getPersistQueueDepth() {
+        return persistQueue.size();
+    }
+
+    /**
+     * Parses fetched responses until the end of the responses is reached, a failing response is logged without
+     * affecting the others<br> In case the worker fails unexpectedly, it keeps taking the remaining responses without
+     * parsing them until the end of the responses, so that {@link #submit} and {@link #finish} cannot block forever
+     */
+    private void runParseWorker() {
+        try {
+            FetchedResponse fetchedResponse;
+            while ((fetchedResponse = takeUninterruptibly(parseQueue)) != END_OF_RESPONSES) {
+                try {
+                    List<WeatherData> parsedData = parser.apply(fetchedResponse);
+                    if (!parsedData.isEmpty()) putUninterruptibly(persistQueue, parsedData);
+                } catch (RuntimeException e) {
+                    logger.warning(String.format("Failed parsing weather data for %d cities. Reason: %s",
+                                                 fetchedResponse.cityGroup().size(), e.getMessage()));
+                }
+            }
+        } catch (Throwable e) {
+            logger.severe(String.format("Parse worker failed, discarding the remaining responses. Reason: %s", e));
+            discardUntil(parseQueue, END_OF_RESPONSES);
+            throw e;
+        }
+    }
+
+    /**
+     * Saves parsed data in batches until the end of the data is reached and saves the remaining batch afterwards<br>
+     * In case the worker fails unexpectedly, it keeps taking the remaining data without saving it until the end of the
+     * data, so that the parse workers and {@link #finish} cannot block forever
+     */
+    private void runPersistWorker() {
+        try {
+            List<WeatherData> parsedData;
+            while ((parsedData = takeUninterruptibly(persistQueue)) != END_OF_DATA) {
+                for (WeatherData weatherData : parsedData) {
+                    try {
+                        batchWriter.add(weatherData);
+                    } catch (RuntimeException e) {
+                        logger.warning(String.format("Failed saving weather data. Reason: %s", e.getMessage()));
+                    }
+                }
+            }
+        } catch (Throwable e) {
+            logger.severe(String.format("Persist worker failed, discarding the remaining data. Reason: %s", e));
+            discardUntil(persistQueue, END_OF_DATA);
+            throw e;
+        }
+        batchWriter.flush();
+    }
+
+    /**
+     * Takes and discards the elements of a queue until the end marker is taken
+     *
+     * @param queue     queue to take the elements from
+     * @param endMarker element marking the end of the queue, compared by identity
+     */
+    private static <T> void discardUntil(BlockingQueue<T> queue, T endMarker) {
+        while (takeUninterruptibly(queue) != endMarker) {
+            // Discarded
+        }
+    }
+
+    private static <T> void putUninterruptibly(BlockingQueue<T> queue, T element) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(element);
+                break;
+            } catch (InterruptedException _) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private static <T> T takeUninterruptibly(BlockingQueue<T> queue) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException _) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException _) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * API response fetched for a group of nearby cities
+     *
+     * @param cityGroup    {@link City} objects the response is about
+     * @param jsonResponse API response, null if the request failed
+     * @param failure      failure of the request, null if the request succeeded
+     */
+    record FetchedResponse(List<City> cityGroup, String jsonResponse, RuntimeException failure) {
+    }
+}
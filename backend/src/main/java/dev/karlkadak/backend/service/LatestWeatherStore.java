@@ -0,0 +1,186 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import dev.karlkadak.backend.util.LongObjectHashMap;
+import jakarta.annotation.PostConstruct;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the latest saved {@link WeatherData} of every {@link dev.karlkadak.backend.entity.City City} in memory, so
+ * that requests for the current weather are served without accessing the database<br> Updated whenever the importer
+ * saves weather data and loaded from the database on startup, when the import is split between multiple instances the
+ * weather data saved by the other instances is picked up by {@link #refresh}<br> Safe to use from multiple threads,
+ * lookups do not block each other
+ */
+@Component
+public class LatestWeatherStore implements WeatherDataSaveListener {
+
+    /**
+     * Immutable copy of the values of a saved {@link WeatherData}
+     *
+     * @param timestamp      UNIX timestamp of the data calculation, UTC
+     * @param airTemperature air temperature, Celsius<br> Null in case of missing value
+     * @param windSpeed      wind speed, meter/sec<br> Null in case of missing value
+     * @param humidity       humidity, %<br> Null in case of missing value
+     * @param iconCode       icon code of the weather condition
+     */
+    public record Reading(long timestamp, Double airTemperature, Double windSpeed, Integer humidity,
+                          String iconCode) {
+
+        /**
+         * @param weatherData {@link WeatherData} to copy the values of
+         * @return reading with the values of the given {@link WeatherData}
+         */
+        public static Reading of(WeatherData weatherData) {
+            return new Reading(weatherData.getTimestamp(), weatherData.getAirTemperature(),
+                               weatherData.getWindSpeed(), weatherData.getHumidity(), weatherData.getIconCode());
+        }
+    }
+
+    private final WeatherDataRepository weatherDataRepository;
+
+    /**
+     * Latest readings mapped by {@link dev.karlkadak.backend.entity.City#id City ID}, guarded by {@link #lock}
+     */
+    private final LongObjectHashMap<Reading> readings = new LongObjectHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Timestamp of the newest recorded reading of any city, guarded by {@link #lock}
+     */
+    private long newestTimestamp;
+
+    /**
+     * Duration gathered from application.properties by which {@link #refresh} reads observations older than the
+     * newest recorded one, as other instances may save observations out of order, should exceed the delay between
+     * observing and saving weather data on any instance
+     */
+    @Value("${cluster.weather.refresh.lookback}")
+    @Setter
+    private Duration refreshLookback;
+
+    /**
+     * Changed whenever a reading is recorded, starts from the startup time so that versions of earlier runs are not
+     * reused
+     */
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    @Autowired
+    public LatestWeatherStore(WeatherDataRepository weatherDataRepository) {
+        this.weatherDataRepository = weatherDataRepository;
+    }
+
+    /**
+     * Loads the latest saved weather data of all cities from the database, merged with the current readings so that
+     * readings recorded in the meantime are kept
+     */
+    @PostConstruct
+    public void warmUp() {
+        recordAll(weatherDataRepository.findLatestWeather());
+    }
+
+    /**
+     * Loads the weather data observed since the newest recorded reading, less the {@link #refreshLookback}, and merges
+     * it with the current readings, so that the weather data imported by other instances is picked up without reading
+     * the latest weather data of every city<br> The window is based on the observation timestamps rather than the time
+     * of saving, so an observation which another instance saves with a timestamp older than the window, such as after
+     * a long upstream outage, is not picked up until it is superseded by a newer one of the same city or this
+     * instance restarts
+     */
+    public void refresh() {
+        long after;
+        lock.readLock().lock();
+        try {
+            after = newestTimestamp - refreshLookback.toSeconds();
+        } finally {
+            lock.readLock().unlock();
+        }
+        recordAll(weatherDataRepository.findWeatherObservedAfter(after));
+    }
+
+    /**
+     * @param cityId {@link dev.karlkadak.backend.entity.City#id ID} of the city
+     * @return the latest reading of the city, or an empty optional if none has been recorded
+     */
+    public Optional<Reading> find(long cityId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(readings.get(cityId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the current version of the readings, changed whenever a reading is recorded
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Records a saved {@link WeatherData}, older observations than the latest recorded one of the same city are
+     * ignored
+     *
+     * @param weatherData saved {@link WeatherData}
+     */
+    public void record(WeatherData weatherData) {
+        onSaved(List.of(weatherData));
+    }
+
+    @Override
+    public void onSaved(List<WeatherData> savedData) {
+        lock.writeLock().lock();
+        try {
+            for (WeatherData weatherData : savedData) {
+                record(weatherData.getCity().getId(), Reading.of(weatherData));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records the weather data loaded from the database, older observations than the latest recorded one of the same
+     * city are ignored
+     *
+     * @param weather values of the loaded weather data
+     */
+    private void recordAll(List<WeatherDataRepository.LatestWeather> weather) {
+        lock.writeLock().lock();
+        try {
+            for (WeatherDataRepository.LatestWeather latest : weather) {
+                record(latest.getCityId(), new Reading(latest.getTimestamp(), latest.getAirTemperature(),
+                                                       latest.getWindSpeed(), latest.getHumidity(),
+                                                       latest.getIconCode()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Must be called while holding the write lock
+     *
+     * @param cityId  {@link dev.karlkadak.backend.entity.City#id ID} of the observed city
+     * @param reading reading of the observation
+     */
+    private void record(long cityId, Reading reading) {
+        newestTimestamp = Math.max(newestTimestamp, reading.timestamp());
+        Reading current = readings.get(cityId);
+        if (current != null && reading.timestamp() <= current.timestamp()) return;
+        readings.put(cityId, reading);
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,66 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import dev.karlkadak.backend.util.LongLongHashMap;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps track of the {@link WeatherData#timestamp timestamp} of the latest saved {@link WeatherData} of every
+ * {@link dev.karlkadak.backend.entity.City City} in memory, used for skipping observations which have already been
+ * saved<br> Safe to use from multiple threads
+ */
+@Component
+public class ObservationTracker {
+
+    private final WeatherDataRepository weatherDataRepository;
+
+    /**
+     * Latest saved timestamps mapped by {@link dev.karlkadak.backend.entity.City#id City ID}
+     */
+    private final LongLongHashMap latestTimestamps = new LongLongHashMap();
+
+    @Autowired
+    public ObservationTracker(WeatherDataRepository weatherDataRepository) {
+        this.weatherDataRepository = weatherDataRepository;
+    }
+
+    /**
+     * Loads the latest saved timestamps of all cities from the database
+     */
+    @PostConstruct
+    public void warmUp() {
+        for (WeatherDataRepository.CityTimestamp latest : weatherDataRepository.findLatestTimestamps()) {
+            record(latest.getCityId(), latest.getTimestamp());
+        }
+    }
+
+    /**
+     * @param weatherData fetched {@link WeatherData}
+     * @return true if the observation is newer than the latest saved one of the same city, false otherwise
+     */
+    public synchronized boolean isNew(WeatherData weatherData) {
+        return weatherData.getTimestamp() > latestTimestamps.get(weatherData.getCity().getId(), Long.MIN_VALUE);
+    }
+
+    /**
+     * Records a saved {@link WeatherData}
+     *
+     * @param weatherData saved {@link WeatherData}
+     */
+    public void record(WeatherData weatherData) {
+        record(weatherData.getCity().getId(), weatherData.getTimestamp());
+    }
+
+    /**
+     * Records a saved observation, older observations than the latest recorded one are ignored
+     *
+     * @param cityId    {@link dev.karlkadak.backend.entity.City#id ID} of the observed city
+     * @param timestamp {@link WeatherData#timestamp timestamp} of the observation
+     */
+    private synchronized void record(long cityId, long timestamp) {
+        if (timestamp > latestTimestamps.get(cityId, Long.MIN_VALUE)) latestTimestamps.put(cityId, timestamp);
+    }
+}
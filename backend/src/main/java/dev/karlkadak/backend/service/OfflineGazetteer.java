@@ -0,0 +1,165 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.util.CityNames;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Resolves city names to locations without network calls using a local
+ * <a href="https://download.geonames.org/export/dump/">GeoNames</a> city dataset, such as {@code cities15000.txt}<br>
+ * Places are indexed by their normalized name and ASCII name, in case several places share a name the most populous
+ * one is used<br> The index is held in sorted parallel arrays and looked up using binary search, it is empty if no
+ * dataset is configured<br> Safe to use from multiple threads
+ */
+@Component
+public class OfflineGazetteer {
+
+    // Columns of the tab-separated GeoNames dataset
+    private static final int NAME_COLUMN = 1;
+    private static final int ASCII_NAME_COLUMN = 2;
+    private static final int LATITUDE_COLUMN = 4;
+    private static final int LONGITUDE_COLUMN = 5;
+    private static final int COUNTRY_CODE_COLUMN = 8;
+    private static final int POPULATION_COLUMN = 14;
+
+    /**
+     * Indexed place name
+     *
+     * @param key        normalized name of the place
+     * @param place      location of the place
+     * @param population population of the place, 0 if unknown
+     */
+    public record Entry(String key, GeocodingCache.Place place, long population) {
+    }
+
+    private final Logger logger;
+
+    // Parallel arrays sorted by the normalized names in keys
+    private String[] keys = new String[0];
+    private String[] names = new String[0];
+    private double[] latitudes = new double[0];
+    private double[] longitudes = new double[0];
+    private String[] countryCodes = new String[0];
+    private long[] populations = new long[0];
+
+    /**
+     * Default constructor, loads the dataset if one is configured
+     *
+     * @param logger      logger to report the loading of the dataset to
+     * @param datasetPath path of the dataset gathered from application.properties, blank to disable the gazetteer
+     */
+    @Autowired
+    public OfflineGazetteer(Logger logger, @Value("${geocoding.gazetteer.path}") String datasetPath) {
+        this.logger = logger;
+        if (datasetPath != null && !datasetPath.isBlank()) load(Path.of(datasetPath));
+    }
+
+    /**
+     * @param query normalized city name to look up
+     * @return the location of the most populous place with the given name, or an empty optional if no such place is
+     * indexed
+     */
+    public Optional<GeocodingCache.Place> find(String query) {
+        int index = Arrays.binarySearch(keys, query);
+        return index < 0 ? Optional.empty() : Optional.of(placeAt(index));
+    }
+
+    /**
+     * @return all indexed place names, in the order of their normalized names
+     */
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(keys.length);
+        for (int i = 0; i < keys.length; i++) entries.add(new Entry(keys[i], placeAt(i), populations[i]));
+        return entries;
+    }
+
+    /**
+     * @return amount of indexed names
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    private GeocodingCache.Place placeAt(int index) {
+        return new GeocodingCache.Place(names[index], latitudes[index], longitudes[index], countryCodes[index]);
+    }
+
+    /**
+     * Builds the index from the dataset, lines which can not be parsed are skipped<br> In case the dataset can not be
+     * read, the index stays empty and lookups fall back to the geocoding API
+     *
+     * @param datasetPath path of the dataset
+     */
+    private void load(Path datasetPath) {
+        // Most populous row of every normalized name
+        Map<String, String[]> rowsByKey = new HashMap<>();
+        int skippedLineCount = 0;
+        try (BufferedReader reader = Files.newBufferedReader(datasetPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] row = line.split("\t", -1);
+                if (!isValid(row)) {
+                    skippedLineCount++;
+                    continue;
+                }
+                for (String name : new String[]{row[NAME_COLUMN], row[ASCII_NAME_COLUMN]}) {
+                    if (name.isBlank()) continue;
+                    rowsByKey.merge(CityNames.normalize(name), row,
+                                    (current, other) -> population(other) > population(current) ? other : current);
+                }
+            }
+        } catch (IOException e) {
+            logger.warning(String.format("Could not load the offline gazetteer from \"%s\". Reason: %s", datasetPath,
+                                         e.getMessage()));
+            return;
+        }
+
+        String[] sortedKeys = rowsByKey.keySet().toArray(String[]::new);
+        Arrays.sort(sortedKeys);
+        names = new String[sortedKeys.length];
+        latitudes = new double[sortedKeys.length];
+        longitudes = new double[sortedKeys.length];
+        countryCodes = new String[sortedKeys.length];
+        populations = new long[sortedKeys.length];
+        for (int i = 0; i < sortedKeys.length; i++) {
+            String[] row = rowsByKey.get(sortedKeys[i]);
+            names[i] = row[NAME_COLUMN];
+            latitudes[i] = Double.parseDouble(row[LATITUDE_COLUMN]);
+            longitudes[i] = Double.parseDouble(row[LONGITUDE_COLUMN]);
+            countryCodes[i] = row[COUNTRY_CODE_COLUMN].isBlank() ? null : row[COUNTRY_CODE_COLUMN];
+            populations[i] = population(row);
+        }
+        keys = sortedKeys;
+
+        logger.info(String.format("Loaded %d place names into the offline gazetteer, skipped %d malformed lines.",
+                                  keys.length, skippedLineCount));
+    }
+
+    private static boolean isValid(String[] row) {
+        if (row.length <= POPULATION_COLUMN || row[NAME_COLUMN].isBlank()) return false;
+        try {
+            Double.parseDouble(row[LATITUDE_COLUMN]);
+            Double.parseDouble(row[LONGITUDE_COLUMN]);
+            return true;
+        } catch (NumberFormatException _) {
+            return false;
+        }
+    }
+
+    private static long population(String[] row) {
+        try {
+            return Long.parseLong(row[POPULATION_COLUMN]);
+        } catch (NumberFormatException _) {
+            return 0;
+        }
+    }
+}
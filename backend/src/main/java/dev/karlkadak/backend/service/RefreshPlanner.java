@@ -0,0 +1,258 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.cron.ImportMode;
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.repository.CityRepository;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Plans the weather data imports of every tracked {@link City} when using the {@link ImportMode#ADAPTIVE ADAPTIVE}
+ * import mode<br> Every city is refreshed with its own interval between {@link #minInterval} and {@link #maxInterval},
+ * cities whose temperature and wind speed have recently been changing are refreshed more often<br> The due times are
+ * kept in an in-memory priority queue and stored in the database alongside the {@link City} objects<br> Safe to use
+ * from multiple threads
+ */
+@Component
+public class RefreshPlanner implements WeatherDataSaveListener {
+
+    /**
+     * Amount of latest {@link WeatherData} objects of a city the refresh interval is computed from
+     */
+    private static final long RECENT_DATA_COUNT = 8;
+
+    /**
+     * Amount of steps the range between {@link #minInterval} and {@link #maxInterval} is divided into, the refresh
+     * intervals are rounded to the nearest step so that the cities of a batch share few distinct intervals
+     */
+    private static final int INTERVAL_STEPS = 12;
+
+    private final CityRepository cityRepository;
+    private final WeatherDataRepository weatherDataRepository;
+
+    /**
+     * Import scheduling mode gathered from application.properties, the planner is only active in the
+     * {@link ImportMode#ADAPTIVE ADAPTIVE} mode
+     */
+    @Value("${importer.mode}")
+    @Setter
+    private ImportMode importMode;
+
+    /**
+     * Refresh interval gathered from application.properties for cities whose weather is changing the most
+     */
+    @Value("${importer.adaptive.interval.min}")
+    @Setter
+    private Duration minInterval;
+
+    /**
+     * Refresh interval gathered from application.properties for cities whose weather is stable
+     */
+    @Value("${importer.adaptive.interval.max}")
+    @Setter
+    private Duration maxInterval;
+
+    /**
+     * Standard deviation of recent air temperatures gathered from application.properties, Celsius, at and above which
+     * a city is refreshed with the {@link #minInterval}
+     */
+    @Value("${importer.adaptive.temperature.scale}")
+    @Setter
+    private double temperatureScale;
+
+    /**
+     * Standard deviation of recent wind speeds gathered from application.properties, meter/sec, at and above which a
+     * city is refreshed with the {@link #minInterval}
+     */
+    @Value("${importer.adaptive.wind.scale}")
+    @Setter
+    private double windScale;
+
+    /**
+     * Due times of the cities ordered by time, may contain outdated entries which are skipped
+     */
+    private final PriorityQueue<DueEntry> dueQueue = new PriorityQueue<>(Comparator.comparingLong(DueEntry::dueAt));
+
+    /**
+     * Current schedules mapped by {@link City#id City ID}
+     */
+    private final Map<Long, Schedule> schedules = new HashMap<>();
+
+    @Autowired
+    public RefreshPlanner(CityRepository cityRepository, WeatherDataRepository weatherDataRepository) {
+        this.cityRepository = cityRepository;
+        this.weatherDataRepository = weatherDataRepository;
+    }
+
+    /**
+     * Loads the stored schedules of all tracked cities from the database, cities without a stored schedule are due
+     * immediately
+     */
+    @PostConstruct
+    public synchronized void warmUp() {
+        if (importMode != ImportMode.ADAPTIVE) return;
+
+        for (City city : cityRepository.findAllByImportingDataTrue()) {
+            long interval = city.getRefreshInterval() == null ? minInterval.toSeconds() : city.getRefreshInterval();
+            long dueAt = city.getNextImportAt() == null ? 0 : city.getNextImportAt();
+            schedule(city.getId(), dueAt, interval);
+        }
+    }
+
+    /**
+     * Starts planning the imports of a newly tracked city, has no effect if the city is already planned
+     *
+     * @param city tracked {@link City}
+     */
+    public synchronized void track(City city) {
+        if (importMode != ImportMode.ADAPTIVE || schedules.containsKey(city.getId())) return;
+
+        long interval = minInterval.toSeconds();
+        schedule(city.getId(), Instant.now().getEpochSecond() + interval, interval);
+    }
+
+    /**
+     * Removes and returns the tracked cities whose imports are due<br> Until the fetched weather data of a returned
+     * city is saved, the city is planned again after its current interval so that failed imports are retried, cities
+     * which are no longer tracked are dropped
+     *
+     * @param now current UNIX timestamp, UTC
+     * @return tracked {@link City} objects whose imports are due
+     */
+    public List<City> pollDueCities(long now) {
+        List<Long> dueCityIds = new ArrayList<>();
+        synchronized (this) {
+            while (!dueQueue.isEmpty() && dueQueue.peek().dueAt() <= now) {
+                DueEntry entry = dueQueue.poll();
+                Schedule schedule = schedules.get(entry.cityId());
+                if (schedule != null && schedule.dueAt() == entry.dueAt()) dueCityIds.add(entry.cityId());
+            }
+        }
+        if (dueCityIds.isEmpty()) return List.of();
+
+        List<City> dueCities = new ArrayList<>();
+        Set<Long> trackedCityIds = new HashSet<>();
+        for (City city : cityRepository.findAllById(dueCityIds)) {
+            if (!city.isImportingData()) continue;
+            dueCities.add(city);
+            trackedCityIds.add(city.getId());
+        }
+
+        synchronized (this) {
+            for (Long cityId : dueCityIds) {
+                Schedule schedule = schedules.get(cityId);
+                if (schedule == null) continue;
+                if (trackedCityIds.contains(cityId)) schedule(cityId, now + schedule.interval(), schedule.interval());
+                else schedules.remove(cityId);
+            }
+        }
+        return dueCities;
+    }
+
+    /**
+     * Plans the next imports of the cities of the saved {@link WeatherData} objects based on their recent weather<br>
+     * The recent weather of all cities of the batch is read with a single query, considering only the observations of
+     * the last {@link #RECENT_DATA_COUNT} maximum intervals, and the schedules are stored with one statement per
+     * distinct interval
+     *
+     * @param savedData {@link WeatherData} objects saved to the database
+     */
+    @Override
+    public void onSaved(List<WeatherData> savedData) {
+        if (importMode != ImportMode.ADAPTIVE || savedData.isEmpty()) return;
+
+        Set<Long> cityIds = new LinkedHashSet<>();
+        for (WeatherData weatherData : savedData) cityIds.add(weatherData.getCity().getId());
+
+        long now = Instant.now().getEpochSecond();
+        long since = now - RECENT_DATA_COUNT * maxInterval.toSeconds();
+        Map<Long, List<WeatherData>> recentDataByCity = new HashMap<>();
+        for (WeatherData weatherData : weatherDataRepository.findLatestByCityIds(cityIds, since, RECENT_DATA_COUNT)) {
+            recentDataByCity.computeIfAbsent(weatherData.getCity().getId(), _ -> new ArrayList<>()).add(weatherData);
+        }
+
+        Map<Long, List<Long>> cityIdsByInterval = new TreeMap<>();
+        synchronized (this) {
+            for (Long cityId : cityIds) {
+                long interval = computeInterval(recentDataByCity.getOrDefault(cityId, List.of()));
+                schedule(cityId, now + interval, interval);
+                cityIdsByInterval.computeIfAbsent(interval, _ -> new ArrayList<>()).add(cityId);
+            }
+        }
+        cityIdsByInterval.forEach(
+                (interval, ids) -> cityRepository.updateImportSchedules(ids, now + interval, interval));
+    }
+
+    /**
+     * Computes the refresh interval from the volatility of the recent weather, that is the larger of the air
+     * temperature's and the wind speed's standard deviation relative to their scales<br> Fully volatile weather results
+     * in the {@link #minInterval}, stable weather in the {@link #maxInterval}, values in between are interpolated
+     * linearly and rounded to the nearest of the {@link #INTERVAL_STEPS}<br> Needs to be package-private in order to
+     * test directly
+     *
+     * @param recentData recent {@link WeatherData} objects of a single city
+     * @return refresh interval in seconds
+     */
+    long computeInterval(List<WeatherData> recentData) {
+        long min = minInterval.toSeconds();
+        long max = Math.max(min, maxInterval.toSeconds());
+        if (recentData.size() < 2) return min;
+
+        double temperatureVolatility = standardDeviation(recentData, WeatherData::getAirTemperature) / temperatureScale;
+        double windVolatility = standardDeviation(recentData, WeatherData::getWindSpeed) / windScale;
+        double volatility = Math.min(1, Math.max(temperatureVolatility, windVolatility));
+        double steppedVolatility = (double) Math.round(volatility * INTERVAL_STEPS) / INTERVAL_STEPS;
+
+        return max - Math.round((max - min) * steppedVolatility);
+    }
+
+    /**
+     * Sets the schedule of a city, must be called while holding the instance lock
+     *
+     * @param cityId   {@link City#id ID} of the city
+     * @param dueAt    UNIX timestamp, UTC, at which the city is due
+     * @param interval refresh interval of the city in seconds
+     */
+    private void schedule(long cityId, long dueAt, long interval) {
+        schedules.put(cityId, new Schedule(dueAt, interval));
+        dueQueue.add(new DueEntry(cityId, dueAt));
+    }
+
+    /**
+     * @param recentData recent {@link WeatherData} objects
+     * @param value      extracts the value, null values are ignored
+     * @return the population standard deviation of the values, 0 in case of fewer than two values
+     */
+    private static double standardDeviation(List<WeatherData> recentData, Function<WeatherData, Double> value) {
+        int count = 0;
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (WeatherData weatherData : recentData) {
+            Double v = value.apply(weatherData);
+            if (v == null) continue;
+            count++;
+            sum += v;
+            sumOfSquares += v * v;
+        }
+        if (count < 2) return 0;
+
+        double mean = sum / count;
+        return Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+    }
+
+    private record DueEntry(long cityId, long dueAt) {
+    }
+
+    private record Schedule(long dueAt, long interval) {
+    }
+}
@@ -0,0 +1,206 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Accumulates the {@link WeatherData} objects fetched during a single import and saves them to the database in
+ * batches, each batch is saved in a single transaction<br> A batch containing an observation which is already saved is
+ * saved again one object at a time, skipping the already saved ones<br> Safe to use from multiple threads
+ */
+class WeatherDataBatchWriter {
+
+    private final WeatherDataRepository weatherDataRepository;
+    private final Logger logger;
+    private final ImportMetrics importMetrics;
+    private final int batchSize;
+    private final List<WeatherData> buffer;
+
+    /**
+     * Checked before saving every batch, a batch is not saved once it returns false
+     */
+    private final BooleanSupplier leaseCheck;
+
+    /**
+     * Called with every successfully saved batch, along with the objects of the batch which were already saved
+     */
+    private final Consumer<List<WeatherData>> writtenListener;
+
+    /**
+     * Called with every batch which was not saved along with the reason
+     */
+    private final BiConsumer<List<WeatherData>, String> failedListener;
+
+    /**
+     * Amount of {@link WeatherData} objects successfully saved to the database
+     */
+    private final AtomicInteger writtenCount = new AtomicInteger();
+
+    /**
+     * Amount of {@link WeatherData} objects which failed to be saved to the database
+     */
+    private final AtomicInteger failedCount = new AtomicInteger();
+
+    /**
+     * Default constructor
+     *
+     * @param weatherDataRepository repository used for saving the batches
+     * @param logger                logger used for logging failed batches
+     * @param importMetrics         metrics used for timing the batches and counting the saved and failed data
+     * @param batchSize             amount of {@link WeatherData} objects saved at once, values below 1 are treated as
+     *                              1
+     * @param leaseCheck            checked before saving every batch, a batch is not saved once it returns false
+     * @param writtenListener       called with every successfully saved batch, along with the objects of the batch
+     *                              which were already saved
+     * @param failedListener        called with every batch which was not saved along with the reason
+     */
+    WeatherDataBatchWriter(WeatherDataRepository weatherDataRepository, Logger logger, ImportMetrics importMetrics,
+                           int batchSize, BooleanSupplier leaseCheck, Consumer<List<WeatherData>> writtenListener,
+                           BiConsumer<List<WeatherData>, String> failedListener) {
+        this.weatherDataRepository = weatherDataRepository;
+        this.logger = logger;
+        this.importMetrics = importMetrics;
+        this.batchSize = Math.max(1, batchSize);
+        this.buffer = new ArrayList<>(this.batchSize);
+        this.leaseCheck = leaseCheck;
+        this.writtenListener = writtenListener;
+        this.failedListener = failedListener;
+    }
+
+    /**
+     * Adds a {@link WeatherData} object to the current batch, saves the batch if it is full
+     *
+     * @param weatherData {@link WeatherData} object to save
+     */
+    void add(WeatherData weatherData) {
+        List<WeatherData> fullBatch = null;
+        synchronized (buffer) {
+            buffer.add(weatherData);
+            if (buffer.size() >= batchSize) fullBatch = drainBuffer();
+        }
+        if (fullBatch != null) write(fullBatch);
+    }
+
+    /**
+     * Saves the remaining {@link WeatherData} objects of the current batch
+     */
+    void flush() {
+        List<WeatherData> remainingBatch;
+        synchronized (buffer) {
+            remainingBatch = drainBuffer();
+        }
+        if (!remainingBatch.isEmpty()) write(remainingBatch);
+    }
+
+    /**
+     * @return amount of {@link WeatherData} objects successfully saved to the database
+     */
+    int getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * @return amount of {@link WeatherData} objects which failed to be saved to the database
+     */
+    int getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * Empties the buffer, must be called while holding its lock
+     *
+     * @return the {@link WeatherData} objects which were present in the buffer
+     */
+    private List<WeatherData> drainBuffer() {
+        List<WeatherData> batch = new ArrayList<>(buffer);
+        buffer.clear();
+        return batch;
+    }
+
+    /**
+     * Saves a batch of {@link WeatherData} objects to the database and notifies the {@link #writtenListener}, a failed
+     * batch is logged, counted and passed to the {@link #failedListener}<br> The batch is not saved if the
+     * {@link #leaseCheck} fails, as other instances may already be importing the same cities
+     *
+     * @param batch {@link WeatherData} objects to save
+     */
+    private void write(List<WeatherData> batch) {
+        if (!leaseCheck.getAsBoolean()) {
+            fail(batch, "Lost the lease of the imported shard");
+            return;
+        }
+        try {
+            importMetrics.timePersist(() -> weatherDataRepository.saveAll(batch));
+        } catch (DataIntegrityViolationException _) {
+            writeEach(batch);
+            return;
+        } catch (RuntimeException e) {
+            fail(batch, e.getMessage());
+            return;
+        }
+        writtenCount.addAndGet(batch.size());
+        importMetrics.countSaved(batch.size());
+        writtenListener.accept(batch);
+    }
+
+    /**
+     * Saves the {@link WeatherData} objects of a batch which violated a constraint one at a time, so that an
+     * observation already saved by another import does not prevent saving the rest of the batch<br> Copies of the
+     * objects are saved, as the failed batch already assigned IDs to the originals
+     *
+     * @param batch {@link WeatherData} objects to save
+     */
+    private void writeEach(List<WeatherData> batch) {
+        List<WeatherData> savedData = new ArrayList<>(batch.size());
+        List<WeatherData> duplicateData = new ArrayList<>();
+        List<WeatherData> failedData = new ArrayList<>();
+        String failureReason = null;
+        for (WeatherData weatherData : batch) {
+            WeatherData copy = new WeatherData(weatherData.getCity(), weatherData.getTimestamp(),
+                                               weatherData.getAirTemperature(), weatherData.getWindSpeed(),
+                                               weatherData.getHumidity(), weatherData.getIconCode());
+            try {
+                importMetrics.timePersist(() -> weatherDataRepository.save(copy));
+                savedData.add(copy);
+            } catch (DataIntegrityViolationException _) {
+                duplicateData.add(weatherData);
+            } catch (RuntimeException e) {
+                failedData.add(weatherData);
+                failureReason = e.getMessage();
+            }
+        }
+
+        if (!duplicateData.isEmpty()) {
+            logger.info(String.format("Skipped saving weather data for %d cities, as it was already saved.",
+                                      duplicateData.size()));
+        }
+        writtenCount.addAndGet(savedData.size());
+        importMetrics.countSaved(savedData.size());
+        savedData.addAll(duplicateData);
+        if (!savedData.isEmpty()) writtenListener.accept(savedData);
+        if (!failedData.isEmpty()) fail(failedData, failureReason);
+    }
+
+    /**
+     * Logs and counts a batch of {@link WeatherData} objects which was not saved and notifies the
+     * {@link #failedListener}
+     *
+     * @param batch  {@link WeatherData} objects which were not saved
+     * @param reason reason the batch was not saved
+     */
+    private void fail(List<WeatherData> batch, String reason) {
+        failedCount.addAndGet(batch.size());
+        importMetrics.countPersistFailed(batch.size());
+        logger.warning(String.format("Failed saving weather data for %d cities. Reason: %s", batch.size(), reason));
+        failedListener.accept(batch, reason);
+    }
+}
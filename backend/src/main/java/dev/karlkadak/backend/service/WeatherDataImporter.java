@@ -1,20 +1,34 @@
 package dev.karlkadak.backend.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.karlkadak.backend.client.CircuitBreaker;
+import dev.karlkadak.backend.client.RetryPolicy;
+import dev.karlkadak.backend.client.UpstreamClient;
+import dev.karlkadak.backend.client.UpstreamPriority;
 import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.CoordinatePair;
+import dev.karlkadak.backend.entity.ImportStatus;
 import dev.karlkadak.backend.entity.WeatherData;
 import dev.karlkadak.backend.exception.FailedWeatherDataFetchException;
 import dev.karlkadak.backend.repository.CityRepository;
 import dev.karlkadak.backend.repository.WeatherDataRepository;
+import dev.karlkadak.backend.util.Geohash;
+import lombok.Setter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 /**
@@ -27,8 +41,15 @@ public class WeatherDataImporter {
     private final WeatherDataRepository weatherDataRepository;
     private final CityRepository cityRepository;
     private final Logger logger;
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    private final UpstreamClient upstreamClient;
+    private final WeatherPayloadDecoder weatherPayloadDecoder;
+    private final ObservationTracker observationTracker;
+    private final CircuitBreaker weatherCircuitBreaker;
+    private final RetryPolicy retryPolicy;
+    private final List<WeatherDataSaveListener> saveListeners;
+    private final ClusterCoordinator clusterCoordinator;
+    private final ImportMetrics importMetrics;
+    private final ImportJournal importJournal;
 
     /**
      * API key gathered from application.properties which is used for accessing the
@@ -37,113 +58,437 @@ public class WeatherDataImporter {
     @Value("${openweather.api.key}")
     private String apiKey;
 
+    /**
+     * Maximum amount of cities gathered from application.properties for which weather data is fetched simultaneously
+     * during {@link #importAll}
+     */
+    @Value("${importer.concurrency.limit}")
+    @Setter
+    private int concurrencyLimit;
+
+    /**
+     * Amount of fetched weather data entries gathered from application.properties which are saved to the database in a
+     * single batch during {@link #importAll}
+     */
+    @Value("${importer.batch.size}")
+    @Setter
+    private int batchSize;
+
+    /**
+     * Geohash precision gathered from application.properties, cities within the same geohash cell of this precision
+     * share a single upstream request during {@link #importAll}, 0 disables coalescing
+     */
+    private int coalescingPrecision;
+
+    /**
+     * Amount of workers gathered from application.properties which parse the fetched API responses during
+     * {@link #importAll}
+     */
+    @Value("${importer.pipeline.parse.workers}")
+    @Setter
+    private int parseWorkerCount;
+
+    /**
+     * Capacity gathered from application.properties of the queues between the fetch, parse and persist stages of
+     * {@link #importAll}, a full queue blocks the previous stage
+     */
+    @Value("${importer.pipeline.queue.capacity}")
+    @Setter
+    private int pipelineQueueCapacity;
+
+    /**
+     * Pipeline of the currently running import, null if no import is running
+     */
+    private volatile ImportPipeline currentPipeline;
+
     @Autowired
     public WeatherDataImporter(WeatherDataRepository weatherDataRepository, CityRepository cityRepository,
-                               Logger logger, RestTemplate restTemplate, ObjectMapper objectMapper) {
+                               Logger logger, UpstreamClient upstreamClient,
+                               WeatherPayloadDecoder weatherPayloadDecoder, ObservationTracker observationTracker,
+                               @Qualifier("weatherCircuitBreaker") CircuitBreaker weatherCircuitBreaker,
+                               RetryPolicy retryPolicy, List<WeatherDataSaveListener> saveListeners,
+                               ClusterCoordinator clusterCoordinator, ImportMetrics importMetrics,
+                               ImportJournal importJournal) {
         this.weatherDataRepository = weatherDataRepository;
         this.cityRepository = cityRepository;
         this.logger = logger;
-        this.restTemplate = restTemplate;
-        this.objectMapper = objectMapper;
+        this.upstreamClient = upstreamClient;
+        this.weatherPayloadDecoder = weatherPayloadDecoder;
+        this.observationTracker = observationTracker;
+        this.weatherCircuitBreaker = weatherCircuitBreaker;
+        this.retryPolicy = retryPolicy;
+        this.saveListeners = saveListeners;
+        this.clusterCoordinator = clusterCoordinator;
+        this.importMetrics = importMetrics;
+        this.importJournal = importJournal;
     }
 
     /**
      * Fetches the weather data of all {@link dev.karlkadak.backend.entity.City City} objects which have
      * {@link dev.karlkadak.backend.entity.City#importingData importingData} set as {@link java.lang.Boolean#TRUE TRUE}
-     * and saves it to the database
+     * and belong to the shard of this instance and saves it to the database
      */
     public void defaultImport() {
-        final List<City> citiesToFetch = cityRepository.findAllByImportingDataTrue();
+        ClusterCoordinator.Shard shard = clusterCoordinator.currentShard();
+        if (shard.count() == 1) importAll(cityRepository.findAllByImportingDataTrue());
+        else importAll(cityRepository.findAllByImportingDataTrueInSlice(shard.index(), shard.count()));
+    }
+
+    /**
+     * Fetches the weather data of the tracked {@link dev.karlkadak.backend.entity.City City} objects assigned to the
+     * specified slice and the shard of this instance and saves it to the database, every city is assigned to a slice
+     * based on its {@link dev.karlkadak.backend.entity.City#id id}
+     *
+     * @param slice      index of the slice to import, between 0 and sliceCount - 1
+     * @param sliceCount total amount of slices
+     */
+    public void sliceImport(int slice, int sliceCount) {
+        importCities(cityRepository.findAllByImportingDataTrueInSlice(slice, sliceCount));
+    }
+
+    /**
+     * Fetches the weather data of the specified {@link dev.karlkadak.backend.entity.City City} objects which belong to
+     * the shard of this instance and saves it to the database
+     *
+     * @param citiesToFetch {@link dev.karlkadak.backend.entity.City City} objects to fetch weather data about
+     */
+    public void importCities(List<City> citiesToFetch) {
         if (citiesToFetch.isEmpty()) return;
-        Integer fetchedCityCount = 0;
+
+        ClusterCoordinator.Shard shard = clusterCoordinator.currentShard();
+        importAll(shard.count() == 1 ? citiesToFetch : citiesToFetch.stream().filter(shard::owns).toList());
+    }
+
+    /**
+     * Resumes the most recent import run which was interrupted before all of its cities were processed, only the
+     * remaining cities which are still tracked are fetched
+     *
+     * @return true if an interrupted run was found and resumed, false otherwise
+     */
+    public boolean resumeUnfinishedImport() {
+        Optional<ImportJournal.UnfinishedRun> unfinishedRun = importJournal.findUnfinishedRun();
+        if (unfinishedRun.isEmpty()) return false;
+
+        long runId = unfinishedRun.get().runId();
+        List<City> remainingCities = cityRepository.findAllById(unfinishedRun.get().pendingCityIds())
+                                                   .stream().filter(City::isImportingData).toList();
+        logger.info(String.format("Resuming interrupted import run %d for %d remaining cities.", runId,
+                                  remainingCities.size()));
+        if (remainingCities.isEmpty()) importJournal.finish(runId);
+        else importMetrics.timeCycle(() -> runImport(remainingCities, runId));
+        return true;
+    }
+
+    /**
+     * Fetches the weather data of the specified {@link dev.karlkadak.backend.entity.City City} objects and saves it to
+     * the database<br> Cities are fetched concurrently on virtual threads, at most {@link #concurrencyLimit} at a
+     * time, the responses are parsed by {@link #parseWorkerCount} workers and the parsed data is saved in batches of
+     * {@link #batchSize} by a single worker, see {@link ImportPipeline}<br> Observations which are not newer than the
+     * latest saved one of the same city are skipped<br> If {@link #coalescingPrecision} is set, nearby cities are
+     * grouped by their geohash cell and their weather data is fetched with a single request<br> In case the
+     * {@link #weatherCircuitBreaker} opens, the remaining cities are not fetched<br> The import is instrumented using
+     * {@link ImportMetrics} and journaled using {@link ImportJournal}
+     *
+     * @param citiesToFetch {@link dev.karlkadak.backend.entity.City City} objects to fetch weather data about
+     */
+    private void importAll(List<City> citiesToFetch) {
+        if (citiesToFetch.isEmpty()) return;
+        long runId = importJournal.start(citiesToFetch);
+        importMetrics.timeCycle(() -> runImport(citiesToFetch, runId));
+    }
+
+    /**
+     * Performs a single import cycle of {@link #importAll} and journals the status of every city
+     *
+     * @param citiesToFetch {@link dev.karlkadak.backend.entity.City City} objects to fetch weather data about
+     * @param runId         {@link dev.karlkadak.backend.entity.ImportRun#id ID} of the journaled run
+     */
+    private void runImport(List<City> citiesToFetch, long runId) {
+        final WeatherDataBatchWriter batchWriter = new WeatherDataBatchWriter(
+                weatherDataRepository, logger, importMetrics, batchSize, clusterCoordinator::holdsLease,
+                savedData -> recordSaved(savedData, runId),
+                (failedData, reason) -> recordFailed(failedData, reason, runId));
+        final AtomicInteger skippedCityCount = new AtomicInteger();
+        final ImportPipeline pipeline = new ImportPipeline(
+                logger, pipelineQueueCapacity, parseWorkerCount,
+                response -> importMetrics.timeParse(() -> parse(response, runId, skippedCityCount)), batchWriter);
+        final Semaphore inFlightPermits = new Semaphore(Math.max(1, concurrencyLimit));
+        final List<List<City>> cityGroups = groupByCell(citiesToFetch);
+        int remainingCityCount = citiesToFetch.size();
+        int requestCount = 0;
 
         logger.info(String.format("Starting to fetch weather data for %d cities.", citiesToFetch.size()));
+        pipeline.start();
+        currentPipeline = pipeline;
+        // The workers are always stopped, even if fetching fails unexpectedly
+        try {
+            // Closing the executor waits for all submitted cities to be processed
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < cityGroups.size(); i++) {
+                    List<City> cityGroup = cityGroups.get(i);
+                    inFlightPermits.acquireUninterruptibly();
+                    if (weatherCircuitBreaker.isOpen()) {
+                        logger.warning(String.format("Weather data upstream is unavailable, skipped fetching %d "
+                                                     + "cities.", remainingCityCount));
+                        importMetrics.countNotFetched(remainingCityCount);
+                        List<Long> notFetchedCityIds = cityGroups.subList(i, cityGroups.size()).stream()
+                                                                 .flatMap(List::stream).map(City::getId).toList();
+                        importJournal.record(runId, notFetchedCityIds, ImportStatus.FAILED,
+                                             "Weather data upstream is unavailable");
+                        break;
+                    }
+                    remainingCityCount -= cityGroup.size();
+                    requestCount++;
+                    executor.execute(() -> {
+                        try {
+                            pipeline.submit(fetchGroup(cityGroup));
+                        } finally {
+                            inFlightPermits.release();
+                        }
+                    });
+                }
+            }
+        } finally {
+            pipeline.finish();
+            currentPipeline = null;
+        }
+        importJournal.finish(runId);
+
+        logger.info(String.format("Saved weather data for %d cities, skipped %d cities as unchanged.",
+                                  batchWriter.getWrittenCount(), skippedCityCount.get()));
+        if (coalescingPrecision != 0) {
+            int fetchedCityCount = citiesToFetch.size() - remainingCityCount;
+            logger.info(String.format("Coalesced %d cities into %d upstream requests, saved %d requests.",
+                                      fetchedCityCount, requestCount, fetchedCityCount - requestCount));
+        }
+    }
+
+    /**
+     * Sets the {@link #coalescingPrecision}, validated when the bean is constructed so that an unsupported value fails
+     * the startup instead of every import
+     *
+     * @param coalescingPrecision 0 to disable coalescing or a geohash precision between 1 and
+     *                            {@link Geohash#MAX_PRECISION}
+     * @throws IllegalArgumentException in case of an unsupported precision
+     */
+    @Value("${importer.coalescing.precision}")
+    public void setCoalescingPrecision(int coalescingPrecision) {
+        if (coalescingPrecision < 0 || coalescingPrecision > Geohash.MAX_PRECISION) {
+            throw new IllegalArgumentException(String.format(
+                    "Unsupported importer.coalescing.precision: %d, expected 0 or a value between 1 and %d",
+                    coalescingPrecision, Geohash.MAX_PRECISION));
+        }
+        this.coalescingPrecision = coalescingPrecision;
+    }
+
+    /**
+     * Groups the specified cities by their geohash cell of {@link #coalescingPrecision}, keeping the original order of
+     * the cities, every city forms its own group if coalescing is disabled
+     *
+     * @param cities {@link dev.karlkadak.backend.entity.City City} objects to group
+     * @return groups of {@link dev.karlkadak.backend.entity.City City} objects sharing a single upstream request
+     */
+    private List<List<City>> groupByCell(List<City> cities) {
+        if (coalescingPrecision == 0) return cities.stream().map(List::of).toList();
+
+        Map<String, List<City>> cells = new LinkedHashMap<>();
+        for (City city : cities) {
+            CoordinatePair coordinatePair = city.getCoordinatePair();
+            String cell = Geohash.encode(coordinatePair.getLatitude(), coordinatePair.getLongitude(),
+                                         coalescingPrecision);
+            cells.computeIfAbsent(cell, _ -> new ArrayList<>()).add(city);
+        }
+        return new ArrayList<>(cells.values());
+    }
+
+    /**
+     * @return amount of fetched API responses of the currently running import waiting to be parsed, 0 if no import is
+     * running
+     */
+    public int getParseQueueDepth() {
+        ImportPipeline pipeline = currentPipeline;
+        return pipeline == null ? 0 : pipeline.getParseQueueDepth();
+    }
+
+    /**
+     * @return amount of parsed API responses of the currently running import waiting to be saved, 0 if no import is
+     * running
+     */
+    public int getPersistQueueDepth() {
+        ImportPipeline pipeline = currentPipeline;
+        return pipeline == null ? 0 : pipeline.getPersistQueueDepth();
+    }
+
+    /**
+     * Requests the weather data of a group of nearby {@link dev.karlkadak.backend.entity.City City} objects during
+     * {@link #importAll} using the coordinates of the first city
+     *
+     * @param cityGroup {@link dev.karlkadak.backend.entity.City City} objects sharing a single request
+     * @return the API response or the failure of the request
+     */
+    private ImportPipeline.FetchedResponse fetchGroup(List<City> cityGroup) {
+        try {
+            String jsonResponse = importMetrics.timeFetch(() -> requestData(cityGroup.getFirst()));
+            return new ImportPipeline.FetchedResponse(cityGroup, jsonResponse, null);
+        } catch (RuntimeException e) {
+            return new ImportPipeline.FetchedResponse(cityGroup, null, e);
+        }
+    }
 
-        for (City city : citiesToFetch) {
+    /**
+     * Parses the weather data of every city of a fetched API response during {@link #importAll}, failed and unchanged
+     * cities are logged and skipped without affecting the other cities
+     *
+     * @param fetchedResponse  API response fetched for a group of nearby cities
+     * @param runId            {@link dev.karlkadak.backend.entity.ImportRun#id ID} of the journaled run
+     * @param skippedCityCount counter of cities skipped as unchanged in the current import
+     * @return the parsed {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects to save
+     */
+    private List<WeatherData> parse(ImportPipeline.FetchedResponse fetchedResponse, long runId,
+                                    AtomicInteger skippedCityCount) {
+        List<WeatherData> parsedData = new ArrayList<>(fetchedResponse.cityGroup().size());
+        List<Long> unchangedCityIds = new ArrayList<>();
+        for (City city : fetchedResponse.cityGroup()) {
             try {
-                fetchAndSave(city);
-                fetchedCityCount++;
+                if (fetchedResponse.failure() != null) {
+                    throw new FailedWeatherDataFetchException(fetchedResponse.failure().getMessage());
+                }
+                WeatherData fetchedData = decode(city, fetchedResponse.jsonResponse());
+                if (observationTracker.isNew(fetchedData)) {
+                    parsedData.add(fetchedData);
+                } else {
+                    skippedCityCount.incrementAndGet();
+                    importMetrics.countUnchanged();
+                    unchangedCityIds.add(city.getId());
+                }
             } catch (FailedWeatherDataFetchException e) {
-                logger.warning(String.format("Failed fetching weather data for city \"%s\". Reason: %s", city.getName(),
-                                             e.getMessage()));
+                if (fetchedResponse.failure() != null) importMetrics.countRequestFailed(fetchedResponse.failure());
+                else importMetrics.countInvalidResponse();
+                importJournal.record(runId, List.of(city.getId()), ImportStatus.FAILED, e.getMessage());
+                logger.warning(String.format("Failed fetching weather data for city \"%s\". Reason: %s",
+                                             city.getName(), e.getMessage()));
             }
 
             logger.info(String.format("Fetched weather data for city \"%s\".", city.getName()));
         }
-
-        logger.info(String.format("Saved weather data for %d cities.", fetchedCityCount));
+        importJournal.record(runId, unchangedCityIds, ImportStatus.UNCHANGED, null);
+        return parsedData;
     }
 
     /**
      * Fetches the weather data of the specified {@link dev.karlkadak.backend.entity.City City} and saves it to the
-     * database
+     * database unless it has already been saved
      *
      * @param city {@link dev.karlkadak.backend.entity.City City} to fetch weather data about
      */
     protected void fetchAndSave(City city) {
-        WeatherData fetchedData;
+        WeatherData fetchedData = fetch(city);
+        if (!observationTracker.isNew(fetchedData)) return;
 
-        // Attempt requesting the weather data, throw a
         try {
-            fetchedData = requestData(city);
-        } catch (Exception e) {
+            weatherDataRepository.save(fetchedData);
+        } catch (DataIntegrityViolationException _) {
+            // Saved by an import running concurrently, which also records it
+            return;
+        }
+        recordSaved(List.of(fetchedData));
+    }
+
+    /**
+     * Records the saved {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects and notifies the
+     * {@link #saveListeners}, a failing listener is logged without affecting the others
+     *
+     * @param savedData {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects saved to the database
+     */
+    private void recordSaved(List<WeatherData> savedData) {
+        for (WeatherData weatherData : savedData) observationTracker.record(weatherData);
+
+        for (WeatherDataSaveListener saveListener : saveListeners) {
+            try {
+                saveListener.onSaved(savedData);
+            } catch (RuntimeException e) {
+                logger.warning(String.format("Failed processing saved weather data in %s. Reason: %s",
+                                             saveListener.getClass().getSimpleName(), e.getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Records the {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects saved during a journaled run
+     * and marks their cities as {@link ImportStatus#SAVED SAVED}
+     *
+     * @param savedData {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects saved to the database
+     * @param runId     {@link dev.karlkadak.backend.entity.ImportRun#id ID} of the journaled run
+     */
+    private void recordSaved(List<WeatherData> savedData, long runId) {
+        recordSaved(savedData);
+        importJournal.record(runId, savedData.stream().map(weatherData -> weatherData.getCity().getId()).toList(),
+                             ImportStatus.SAVED, null);
+    }
+
+    /**
+     * Marks the cities of the {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects which failed to be
+     * saved during a journaled run as {@link ImportStatus#FAILED FAILED}, so that they are not left
+     * {@link ImportStatus#PENDING PENDING}
+     *
+     * @param failedData {@link dev.karlkadak.backend.entity.WeatherData WeatherData} objects which were not saved
+     * @param reason     reason the objects were not saved
+     * @param runId      {@link dev.karlkadak.backend.entity.ImportRun#id ID} of the journaled run
+     */
+    private void recordFailed(List<WeatherData> failedData, String reason, long runId) {
+        importJournal.record(runId, failedData.stream().map(weatherData -> weatherData.getCity().getId()).toList(),
+                             ImportStatus.FAILED, reason);
+    }
+
+    /**
+     * Fetches the weather data of the specified {@link dev.karlkadak.backend.entity.City City}
+     *
+     * @param city {@link dev.karlkadak.backend.entity.City City} to fetch weather data about
+     * @return the fetched {@link dev.karlkadak.backend.entity.WeatherData WeatherData}
+     * @throws FailedWeatherDataFetchException in case requesting or processing the weather data fails
+     */
+    private WeatherData fetch(City city) {
+        String jsonResponse;
+        try {
+            jsonResponse = requestData(city);
+        } catch (RuntimeException e) {
             throw new FailedWeatherDataFetchException(e.getMessage());
         }
+        return decode(city, jsonResponse);
+    }
 
-        // Save the fetched data to the database
-        weatherDataRepository.save(fetchedData);
+    /**
+     * Decodes the weather data of the specified {@link dev.karlkadak.backend.entity.City City} from an API response
+     *
+     * @param city         {@link dev.karlkadak.backend.entity.City City} the weather data is about
+     * @param jsonResponse API response containing the weather data
+     * @return the decoded {@link dev.karlkadak.backend.entity.WeatherData WeatherData}
+     * @throws FailedWeatherDataFetchException in case processing the API response fails
+     */
+    private WeatherData decode(City city, String jsonResponse) {
+        try {
+            return weatherPayloadDecoder.decode(city, jsonResponse);
+        } catch (IOException | RuntimeException e) {
+            throw new FailedWeatherDataFetchException(e.getMessage());
+        }
     }
 
     /**
-     * Requests and returns the weather data of the specified city
+     * Requests the weather data at the coordinates of the specified city
      *
      * @param city {@link dev.karlkadak.backend.entity.City City} to fetch weather data about
-     * @return {@link dev.karlkadak.backend.entity.WeatherData} about the specified
+     * @return API response containing the weather data at the coordinates of the specified
      * {@link dev.karlkadak.backend.entity.City City}
-     * @throws JsonProcessingException in case of API response processing error
      */
-    private WeatherData requestData(City city)
-            throws JsonProcessingException {
-        // Initialize datapoint variables
-        final long timestamp;
-        Double airTemperature = null;
-        Double windSpeed = null;
-        Integer humidity = null;
-        String iconCode = null;
-
+    private String requestData(City city) {
         // Variables needed for performing the API request
         Double latitude = city.getCoordinatePair().getLatitude();
         Double longitude = city.getCoordinatePair().getLongitude();
         String requestUrl = String.format(
                 "https://api.openweathermap.org/data/2.5/weather?units=metric&lat=%f&lon=%f&appid=%s", latitude,
                 longitude, apiKey);
-        Map<String, Object> responseMap;
-
-        // Process the API response
-        String jsonResponse = restTemplate.getForObject(requestUrl, String.class);
-        responseMap = objectMapper.readValue(jsonResponse, new TypeReference<>() {
-        });
-        timestamp = ((Integer) responseMap.get("dt")).longValue();
-        try {
-            List<Map<String, Object>> weatherList = (List<Map<String, Object>>) responseMap.get("weather");
-            Map<String, Object> weatherObject = weatherList.get(0);
-            iconCode = (String) weatherObject.get("icon");
-        } catch (Exception _) {
-        }
-        try {
-            Map<String, Object> mainObject = (Map<String, Object>) responseMap.get("main");
-            Map<String, Object> mainData = (Map<String, Object>) mainObject;
-            airTemperature = (Double) mainData.get("temp");
-            humidity = (Integer) mainData.get("humidity");
-        } catch (Exception _) {
-        }
-        try {
-            Map<String, Object> windObject = (Map<String, Object>) responseMap.get("wind");
-            Map<String, Object> windData = (Map<String, Object>) windObject;
-            windSpeed = (Double) windData.get("speed");
-        } catch (Exception _) {
-        }
 
-        return new WeatherData(city, timestamp, airTemperature, windSpeed, humidity, iconCode);
+        return weatherCircuitBreaker.execute(
+                () -> retryPolicy.execute(() -> upstreamClient.get(requestUrl, UpstreamPriority.BACKGROUND)));
     }
 }
@@ -0,0 +1,19 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.WeatherData;
+
+import java.util.List;
+
+/**
+ * Notified by {@link WeatherDataImporter} whenever fetched {@link WeatherData} objects have been saved to the
+ * database<br> All beans implementing this interface are registered automatically
+ */
+public interface WeatherDataSaveListener {
+
+    /**
+     * Called after the {@link WeatherData} objects have been saved
+     *
+     * @param savedData {@link WeatherData} objects saved to the database
+     */
+    void onSaved(List<WeatherData> savedData);
+}
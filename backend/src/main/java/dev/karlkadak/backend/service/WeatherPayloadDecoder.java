@@ -0,0 +1,128 @@
+package dev.karlkadak.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.WeatherData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Used for decoding the <a href="https://openweathermap.org/current">OpenWeather current weather</a> API responses
+ * into {@link WeatherData} objects<br> Reads the response as a single pass over the JSON token stream without building
+ * an intermediate tree, skipping all fields which are not needed
+ */
+@Component
+public class WeatherPayloadDecoder {
+
+    private final JsonFactory jsonFactory;
+
+    @Autowired
+    public WeatherPayloadDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Decodes the weather data of the specified city from an API response<br> Numeric values are accepted both in
+     * integer and in decimal form, missing or non-numeric optional values are decoded as null
+     *
+     * @param city    {@link City} the weather data is about
+     * @param payload API response body
+     * @return the decoded {@link WeatherData}
+     * @throws IOException in case of malformed JSON or a missing observation timestamp
+     */
+    public WeatherData decode(City city, String payload)
+            throws IOException {
+        // Initialize datapoint variables
+        Long timestamp = null;
+        Double airTemperature = null;
+        Double windSpeed = null;
+        Integer humidity = null;
+        String iconCode = null;
+
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected the response to be a JSON object.");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (field) {
+                    case "dt" -> {
+                        if (isNumeric(value)) timestamp = parser.getValueAsLong();
+                    }
+                    case "main" -> {
+                        if (value != JsonToken.START_OBJECT) {
+                            parser.skipChildren();
+                            break;
+                        }
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String mainField = parser.currentName();
+                            JsonToken mainValue = parser.nextToken();
+                            if (mainField.equals("temp") && isNumeric(mainValue)) {
+                                airTemperature = parser.getValueAsDouble();
+                            } else if (mainField.equals("humidity") && isNumeric(mainValue)) {
+                                humidity = parser.getValueAsInt();
+                            } else parser.skipChildren();
+                        }
+                    }
+                    case "wind" -> {
+                        if (value != JsonToken.START_OBJECT) {
+                            parser.skipChildren();
+                            break;
+                        }
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String windField = parser.currentName();
+                            JsonToken windValue = parser.nextToken();
+                            if (windField.equals("speed") && isNumeric(windValue)) {
+                                windSpeed = parser.getValueAsDouble();
+                            } else parser.skipChildren();
+                        }
+                    }
+                    case "weather" -> {
+                        if (value != JsonToken.START_ARRAY) {
+                            parser.skipChildren();
+                            break;
+                        }
+                        // Only the first weather condition is used, the others are skipped
+                        JsonToken element = parser.nextToken();
+                        if (element == JsonToken.START_OBJECT) {
+                            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                                String weatherField = parser.currentName();
+                                JsonToken weatherValue = parser.nextToken();
+                                if (weatherField.equals("icon") && weatherValue == JsonToken.VALUE_STRING) {
+                                    iconCode = parser.getText();
+                                } else parser.skipChildren();
+                            }
+                            element = parser.nextToken();
+                        }
+                        while (element != null && element != JsonToken.END_ARRAY) {
+                            parser.skipChildren();
+                            element = parser.nextToken();
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (timestamp == null) throw new JsonParseException(parser, "Response is missing the timestamp.");
+        }
+
+        return new WeatherData(city, timestamp, airTemperature, windSpeed, humidity, iconCode);
+    }
+
+    /**
+     * @param token token to check
+     * @return true if the token is an integer or a decimal number, false otherwise
+     */
+    private static boolean isNumeric(JsonToken token) {
+        return token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT;
+    }
+}
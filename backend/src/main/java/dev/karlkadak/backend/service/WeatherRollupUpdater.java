@@ -0,0 +1,300 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.Aggregate;
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.RollupResolution;
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.entity.WeatherRollup;
+import dev.karlkadak.backend.repository.CityRepository;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import dev.karlkadak.backend.repository.WeatherRollupRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Maintains the {@link WeatherRollup} objects of every {@link RollupResolution} as weather data is saved, so that
+ * statistics over long periods are read from the rollups instead of the individual observations<br> Rollups are never
+ * incremented, the rollups of the time buckets affected by saved weather data are recomputed from all observations
+ * within the buckets in a single transaction, so recomputing a bucket any amount of times on any instance yields the
+ * same rollup<br> As the rollups are updated after the weather data is committed, a failed or interrupted update is
+ * repaired by recomputing the buckets since the start of the day {@link #repairWindow} ago every
+ * {@link #repairInterval}, after startup the rollups of cities which have not been backfilled are first built from
+ * their older weather data
+ */
+@Component
+public class WeatherRollupUpdater implements WeatherDataSaveListener {
+
+    /**
+     * Amount of observations read at once when building the rollups of a city
+     */
+    private static final int BACKFILL_PAGE_SIZE = 1000;
+
+    /**
+     * Identifies a single rollup
+     *
+     * @param cityId      {@link City#id ID} of the city
+     * @param resolution  length of the time bucket
+     * @param bucketStart UNIX timestamp of the start of the time bucket, UTC
+     */
+    private record RollupKey(long cityId, RollupResolution resolution, long bucketStart) {
+    }
+
+    /**
+     * Identifies a single time bucket
+     *
+     * @param resolution  length of the time bucket
+     * @param bucketStart UNIX timestamp of the start of the time bucket, UTC
+     */
+    private record Bucket(RollupResolution resolution, long bucketStart) {
+    }
+
+    private final WeatherRollupRepository weatherRollupRepository;
+    private final WeatherDataRepository weatherDataRepository;
+    private final CityRepository cityRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskScheduler maintenanceScheduler;
+    private final Logger logger;
+
+    /**
+     * Delay gathered from application.properties between the repairs of the rollups of the {@link #repairWindow}
+     */
+    @Value("${rollup.repair.interval}")
+    @Setter
+    private Duration repairInterval;
+
+    /**
+     * Duration gathered from application.properties before the current time within which the time buckets are
+     * recomputed when repairing the rollups
+     */
+    @Value("${rollup.repair.window}")
+    @Setter
+    private Duration repairWindow;
+
+    @Autowired
+    public WeatherRollupUpdater(WeatherRollupRepository weatherRollupRepository,
+                                WeatherDataRepository weatherDataRepository, CityRepository cityRepository,
+                                TransactionTemplate transactionTemplate,
+                                @Qualifier("maintenanceScheduler") ThreadPoolTaskScheduler maintenanceScheduler,
+                                Logger logger) {
+        this.weatherRollupRepository = weatherRollupRepository;
+        this.weatherDataRepository = weatherDataRepository;
+        this.cityRepository = cityRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maintenanceScheduler = maintenanceScheduler;
+        this.logger = logger;
+    }
+
+    /**
+     * Backfills and repairs the rollups on the {@link #maintenanceScheduler} after startup, so that reading the history
+     * of the cities does not delay the startup, then schedules the repair to run every {@link #repairInterval}<br>
+     * Imports may run meanwhile, as recomputing a rollup does not depend on its current values
+     */
+    @PostConstruct
+    public void start() {
+        maintenanceScheduler.execute(() -> {
+            backfill();
+            repair();
+        });
+        maintenanceScheduler.scheduleWithFixedDelay(this::repair, Instant.now().plus(repairInterval), repairInterval);
+    }
+
+    /**
+     * Builds the rollups of the buckets preceding the repaired ones of every city which has not been backfilled, see
+     * {@link #backfill(long)}
+     */
+    public void backfill() {
+        backfill(Instant.now().getEpochSecond());
+    }
+
+    /**
+     * Builds the rollups of the buckets preceding the repaired ones of every city which has not been backfilled from
+     * its weather data, the more recent buckets are left to the repair<br> Needs to be package-private in order to
+     * test directly
+     *
+     * @param now current UNIX timestamp, UTC
+     */
+    void backfill(long now) {
+        long until = repairStart(now) - 1;
+        int backfilledCount = 0;
+        for (City city : cityRepository.findAllByRollupsBackfilledIsNull()) {
+            try {
+                backfill(city, until);
+                backfilledCount++;
+            } catch (RuntimeException e) {
+                logger.warning(String.format("Failed building the weather rollups of city \"%s\". Reason: %s",
+                                             city.getName(), e.getMessage()));
+            }
+        }
+        if (backfilledCount > 0) logger.info(String.format("Built the weather rollups of %d cities.", backfilledCount));
+    }
+
+    /**
+     * Recomputes the rollups of every city for the buckets of every {@link RollupResolution} since the start of the
+     * day {@link #repairWindow} ago, see {@link #repair(long)}
+     */
+    public void repair() {
+        repair(Instant.now().getEpochSecond());
+    }
+
+    /**
+     * Recomputes the rollups of every city for the buckets of every {@link RollupResolution} since the start of the
+     * day {@link #repairWindow} ago, each bucket in its own transaction<br> Needs to be package-private in order to
+     * test directly
+     *
+     * @param now current UNIX timestamp, UTC
+     */
+    void repair(long now) {
+        long since = repairStart(now);
+        for (RollupResolution resolution : RollupResolution.values()) {
+            for (long bucketStart = since; bucketStart <= now; bucketStart += resolution.getSeconds()) {
+                Bucket bucket = new Bucket(resolution, bucketStart);
+                try {
+                    inTransaction(() -> recompute(bucket, null));
+                } catch (RuntimeException e) {
+                    logger.warning(String.format("Failed repairing the %s weather rollups starting at %d. Reason: %s",
+                                                 resolution, bucketStart, e.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param now current UNIX timestamp, UTC
+     * @return UNIX timestamp, UTC, of the start of the day {@link #repairWindow} ago, from which the buckets of every
+     * {@link RollupResolution} are repaired
+     */
+    private long repairStart(long now) {
+        return RollupResolution.DAILY.bucketStart(now - repairWindow.toSeconds());
+    }
+
+    @Override
+    public void onSaved(List<WeatherData> savedData) {
+        if (savedData.isEmpty()) return;
+
+        Map<Bucket, Set<Long>> cityIds = new HashMap<>();
+        for (WeatherData weatherData : savedData) {
+            for (RollupResolution resolution : RollupResolution.values()) {
+                cityIds.computeIfAbsent(new Bucket(resolution, resolution.bucketStart(weatherData.getTimestamp())),
+                                        _ -> new HashSet<>()).add(weatherData.getCity().getId());
+            }
+        }
+        inTransaction(() -> cityIds.forEach(this::recompute));
+    }
+
+    /**
+     * Runs an update of the rollups in a single transaction<br> Retried once if another instance or thread inserted one
+     * of the rollups concurrently, as the retry then updates the inserted rollup instead
+     *
+     * @param update update of the rollups to run
+     */
+    private void inTransaction(Runnable update) {
+        try {
+            transactionTemplate.executeWithoutResult(_ -> update.run());
+        } catch (DataIntegrityViolationException _) {
+            transactionTemplate.executeWithoutResult(_ -> update.run());
+        }
+    }
+
+    /**
+     * Replaces the rollups of a time bucket with the values aggregated from the saved observations within it
+     *
+     * @param bucket  time bucket to recompute the rollups of
+     * @param cityIds {@link City#id IDs} of the cities to recompute the rollups of, null for every city
+     */
+    private void recompute(Bucket bucket, Collection<Long> cityIds) {
+        RollupResolution resolution = bucket.resolution();
+        long bucketStart = bucket.bucketStart();
+        long bucketEnd = bucketStart + resolution.getSeconds();
+        List<WeatherDataRepository.BucketAggregate> aggregates = cityIds == null
+                ? weatherDataRepository.aggregateObservedBetween(bucketStart, bucketEnd)
+                : weatherDataRepository.aggregateObservedBetween(cityIds, bucketStart, bucketEnd);
+        if (aggregates.isEmpty()) return;
+
+        Map<Long, WeatherRollup> rollups = new HashMap<>();
+        List<WeatherRollup> existingRollups = cityIds == null
+                ? weatherRollupRepository.findAllByResolutionAndBucketStart(resolution, bucketStart)
+                : weatherRollupRepository.findAllByCity_IdInAndResolutionAndBucketStart(cityIds, resolution,
+                                                                                        bucketStart);
+        for (WeatherRollup rollup : existingRollups) rollups.put(rollup.getCity().getId(), rollup);
+
+        List<WeatherRollup> changedRollups = new ArrayList<>();
+        for (WeatherDataRepository.BucketAggregate aggregate : aggregates) {
+            WeatherRollup rollup = rollups.computeIfAbsent(aggregate.getCityId(), cityId -> new WeatherRollup(
+                    cityRepository.getReferenceById(cityId), resolution, bucketStart));
+            rollup.replace(aggregate.getObservationCount(),
+                           new Aggregate(aggregate.getAirTemperatureCount(), aggregate.getAirTemperatureSum(),
+                                         aggregate.getAirTemperatureMin(), aggregate.getAirTemperatureMax()),
+                           new Aggregate(aggregate.getWindSpeedCount(), aggregate.getWindSpeedSum(),
+                                         aggregate.getWindSpeedMin(), aggregate.getWindSpeedMax()),
+                           new Aggregate(aggregate.getHumidityCount(), aggregate.getHumiditySum(),
+                                         aggregate.getHumidityMin(), aggregate.getHumidityMax()));
+            changedRollups.add(rollup);
+        }
+        weatherRollupRepository.saveAll(changedRollups);
+    }
+
+    /**
+     * Builds the rollups of a city from its saved weather data up to the specified time, read a page at a time, and
+     * replaces the stored rollups of the same buckets, then marks the city as backfilled in the same transaction
+     *
+     * @param city  {@link City} to build the rollups of
+     * @param until UNIX timestamp, UTC, until which to read the weather data, inclusive
+     */
+    private void backfill(City city, long until) {
+        Map<RollupKey, WeatherRollup> rollups = new HashMap<>();
+        long after = Long.MIN_VALUE;
+        long afterId = Long.MIN_VALUE;
+        List<WeatherDataRepository.Observation> observations;
+        do {
+            observations = weatherDataRepository.findHistory(city.getId(), Long.MIN_VALUE, until, after, afterId,
+                                                             Limit.of(BACKFILL_PAGE_SIZE));
+            for (WeatherDataRepository.Observation observation : observations) {
+                for (RollupResolution resolution : RollupResolution.values()) {
+                    long bucketStart = resolution.bucketStart(observation.getTimestamp());
+                    rollups.computeIfAbsent(new RollupKey(city.getId(), resolution, bucketStart),
+                                            _ -> new WeatherRollup(city, resolution, bucketStart))
+                           .add(observation.getAirTemperature(), observation.getWindSpeed(),
+                                observation.getHumidity());
+                }
+            }
+            if (!observations.isEmpty()) {
+                after = observations.getLast().getTimestamp();
+                afterId = observations.getLast().getId();
+            }
+        } while (observations.size() == BACKFILL_PAGE_SIZE);
+
+        inTransaction(() -> {
+            Map<RollupKey, WeatherRollup> storedRollups = new HashMap<>();
+            for (WeatherRollup rollup : weatherRollupRepository.findAllByCity_Id(city.getId())) {
+                storedRollups.put(new RollupKey(city.getId(), rollup.getResolution(), rollup.getBucketStart()),
+                                  rollup);
+            }
+            List<WeatherRollup> changedRollups = new ArrayList<>(rollups.size());
+            rollups.forEach((key, rollup) -> {
+                WeatherRollup storedRollup = storedRollups.get(key);
+                if (storedRollup == null) {
+                    changedRollups.add(rollup);
+                    return;
+                }
+                storedRollup.replace(rollup.getObservationCount(), rollup.getAirTemperature(), rollup.getWindSpeed(),
+                                     rollup.getHumidity());
+                changedRollups.add(storedRollup);
+            });
+            weatherRollupRepository.saveAll(changedRollups);
+            cityRepository.updateRollupsBackfilled(city.getId());
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package dev.karlkadak.backend.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Helpers for comparing city names entered by users
+ */
+public final class CityNames {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private CityNames() {
+    }
+
+    /**
+     * Normalizes a city name, so that names differing only in letter case, accents or surrounding and repeated
+     * whitespace are considered equal
+     *
+     * @param name city name to normalize
+     * @return the trimmed and lowercased name without accents and with all whitespace sequences replaced by a single
+     * space
+     */
+    public static String normalize(String name) {
+        String decomposed = Normalizer.normalize(name.strip(), Normalizer.Form.NFKD);
+        String folded = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(folded).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,83 @@
+package dev.karlkadak.backend.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-memory cache whose entries expire after a per-entry time to live<br> Once the cache is full, adding an
+ * entry evicts the least recently used one, expired entries are dropped when they are looked up<br> Safe to use from
+ * multiple threads
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public class ExpiringLruCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+    }
+
+    private final int maxSize;
+    private final LongSupplier nanoClock;
+
+    // Access-ordered, guarded by the instance lock
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    /**
+     * Default constructor
+     *
+     * @param maxSize maximum amount of entries held in the cache
+     */
+    public ExpiringLruCache(int maxSize) {
+        this(maxSize, System::nanoTime);
+    }
+
+    /**
+     * @param maxSize   maximum amount of entries held in the cache
+     * @param nanoClock source of the current time in nanoseconds, used to expire entries
+     */
+    public ExpiringLruCache(int maxSize, LongSupplier nanoClock) {
+        this.maxSize = Math.max(1, maxSize);
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > ExpiringLruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * @param key key of the entry
+     * @return the value of the entry with the given key, or null if no such entry exists or it has expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) return null;
+
+        if (nanoClock.getAsLong() - entry.expiresAtNanos() >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * Adds an entry to the cache, replacing the value of an existing entry with the same key
+     *
+     * @param key        key of the entry
+     * @param value      value of the entry
+     * @param timeToLive time after which the entry expires
+     */
+    public synchronized void put(K key, V value, Duration timeToLive) {
+        entries.put(key, new Entry<>(value, nanoClock.getAsLong() + timeToLive.toNanos()));
+    }
+
+    /**
+     * @return the amount of entries in the cache, including expired entries not yet dropped
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,58 @@
+package dev.karlkadak.backend.util;
+
+/**
+ * Encodes coordinates as <a href="https://en.wikipedia.org/wiki/Geohash">geohashes</a>, nearby coordinates share the
+ * same geohash cell up to a precision depending on their distance<br> A precision of 5 characters corresponds to a cell
+ * of roughly 4.9 by 4.9 kilometres, 6 characters to roughly 1.2 by 0.6 kilometres
+ */
+public final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    /**
+     * Maximum supported precision, corresponding to a cell of a few centimetres
+     */
+    public static final int MAX_PRECISION = 12;
+
+    private Geohash() {
+    }
+
+    /**
+     * @param latitude  latitude of the coordinates, between -90 and 90
+     * @param longitude longitude of the coordinates, between -180 and 180
+     * @param precision length of the geohash, between 1 and {@link #MAX_PRECISION}
+     * @return the geohash of the cell containing the coordinates
+     * @throws IllegalArgumentException in case of an unsupported precision
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Unsupported geohash precision: " + precision);
+        }
+
+        double minLatitude = -90, maxLatitude = 90;
+        double minLongitude = -180, maxLongitude = 180;
+        char[] geohash = new char[precision];
+        boolean isLongitudeBit = true;
+        for (int i = 0; i < precision; i++) {
+            int index = 0;
+            for (int bit = 0; bit < 5; bit++, isLongitudeBit = !isLongitudeBit) {
+                index <<= 1;
+                if (isLongitudeBit) {
+                    double middle = (minLongitude + maxLongitude) / 2;
+                    if (longitude >= middle) {
+                        index |= 1;
+                        minLongitude = middle;
+                    } else maxLongitude = middle;
+                } else {
+                    double middle = (minLatitude + maxLatitude) / 2;
+                    if (latitude >= middle) {
+                        index |= 1;
+                        minLatitude = middle;
+                    } else maxLatitude = middle;
+                }
+            }
+            geohash[i] = BASE32[index];
+        }
+        return new String(geohash);
+    }
+}
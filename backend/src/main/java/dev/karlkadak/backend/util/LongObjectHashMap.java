@@ -0,0 +1,121 @@
+package dev.karlkadak.backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Compact hash map with primitive {@code long} keys, stores its entries in two flat arrays using open addressing with
+ * linear probing instead of allocating an object per entry and boxing its key, see {@link LongLongHashMap}<br> Does
+ * not permit null values<br> Not thread-safe
+ *
+ * @param <V> type of the values
+ */
+public class LongObjectHashMap<V> {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    /**
+     * Marks an empty slot in {@link #keys}, the entry with this key is stored separately
+     */
+    private static final long EMPTY_KEY = 0L;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    private V emptyKeyValue;
+
+    public LongObjectHashMap() {
+        keys = new long[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    /**
+     * @param key key of the entry
+     * @return the value of the entry with the given key, or null if no such entry exists
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY_KEY) return emptyKeyValue;
+
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key, mask); keys[slot] != EMPTY_KEY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return (V) values[slot];
+        }
+        return null;
+    }
+
+    /**
+     * Adds an entry to the map, replacing the value of an existing entry with the same key
+     *
+     * @param key   key of the entry
+     * @param value value of the entry, not null
+     */
+    public void put(long key, V value) {
+        if (value == null) throw new NullPointerException("Null values are not permitted");
+        if (key == EMPTY_KEY) {
+            if (emptyKeyValue == null) size++;
+            emptyKeyValue = value;
+            return;
+        }
+
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (keys[slot] != EMPTY_KEY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > keys.length * LOAD_FACTOR) resize();
+    }
+
+    /**
+     * @return amount of entries in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all entries from the map
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        Arrays.fill(values, null);
+        emptyKeyValue = null;
+        size = 0;
+    }
+
+    /**
+     * Doubles the capacity of the map and reinserts all entries
+     */
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY_KEY) continue;
+            int slot = slotOf(oldKeys[i], mask);
+            while (keys[slot] != EMPTY_KEY) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * @param key  key to find the slot for
+     * @param mask capacity of the map minus one
+     * @return the preferred slot of the key, the key's bits are mixed to spread sequential keys
+     */
+    private static int slotOf(long key, int mask) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+}
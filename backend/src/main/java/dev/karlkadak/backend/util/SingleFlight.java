@@ -0,0 +1,62 @@
+package dev.karlkadak.backend.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key onto a single in-flight call, whose result or exception is shared by
+ * all of its callers<br> Calls with different keys run in parallel, a call started after the previous one with the
+ * same key has completed runs again<br> Safe to use from multiple threads
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the results
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlightCalls = new ConcurrentHashMap<>();
+
+    /**
+     * Performs the call, or waits for the in-flight call with the same key to complete
+     *
+     * @param key  key of the call
+     * @param call call to perform
+     * @return result of the call
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> ownCall = new CompletableFuture<>();
+        CompletableFuture<V> inFlightCall = inFlightCalls.putIfAbsent(key, ownCall);
+        if (inFlightCall != null) return await(inFlightCall);
+
+        try {
+            V result = call.get();
+            ownCall.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            ownCall.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightCalls.remove(key, ownCall);
+        }
+    }
+
+    /**
+     * @return amount of calls currently in flight
+     */
+    public int size() {
+        return inFlightCalls.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> inFlightCall) {
+        try {
+            return inFlightCall.join();
+        } catch (CompletionException e) {
+            // Rethrow the exception of the call itself, as its own caller receives it
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+}
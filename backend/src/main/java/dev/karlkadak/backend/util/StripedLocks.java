@@ -0,0 +1,61 @@
+package dev.karlkadak.backend.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by keys based on their hash, so that work on equal keys is serialized while work on most
+ * unrelated keys proceeds in parallel without allocating a lock per key<br> Safe to use from multiple threads
+ */
+public class StripedLocks {
+
+    private final Lock[] locks;
+
+    /**
+     * Default constructor
+     *
+     * @param stripeCount amount of locks, rounded up to a power of two
+     */
+    public StripedLocks(int stripeCount) {
+        int size = 1;
+        while (size < stripeCount) size <<= 1;
+        locks = new Lock[size];
+        for (int i = 0; i < locks.length; i++) locks[i] = new ReentrantLock();
+    }
+
+    /**
+     * @param key key to lock
+     * @return the lock shared by all keys equal to the given key
+     */
+    public Lock get(Object key) {
+        return locks[indexOf(key)];
+    }
+
+    /**
+     * Returns the locks of several keys in a fixed order, so that threads acquiring them in the returned order cannot
+     * deadlock on overlapping keys
+     *
+     * @param keys keys to lock
+     * @return the distinct locks shared by the given keys, ordered by their stripe
+     */
+    public List<Lock> getAll(Collection<?> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Object key : keys) indexes.add(indexOf(key));
+        List<Lock> keyLocks = new ArrayList<>(indexes.size());
+        for (int index : indexes) keyLocks.add(locks[index]);
+        return keyLocks;
+    }
+
+    /**
+     * @param key key to lock
+     * @return index of the lock shared by all keys equal to the given key
+     */
+    private int indexOf(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+}
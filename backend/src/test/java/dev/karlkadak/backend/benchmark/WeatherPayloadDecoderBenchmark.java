@@ -0,0 +1,108 @@
+package dev.karlkadak.backend.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.service.WeatherDataImporter;
+import dev.karlkadak.backend.service.WeatherPayloadDecoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput and allocation rate of {@link WeatherPayloadDecoder} against the previous
+ * {@link WeatherDataImporter WeatherDataImporter} approach of deserializing the whole response into a {@link Map}
+ * <br>Run the {@link #main} method from the IDE or with the test classpath, the allocation rate per operation is
+ * reported by the {@link GCProfiler} as {@code gc.alloc.rate.norm}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherPayloadDecoderBenchmark {
+
+    /**
+     * Complete sample response of the <a href="https://openweathermap.org/current">current weather</a> API
+     */
+    private static final String PAYLOAD = """
+            {
+              "coord": { "lon": 24.7454, "lat": 59.4372 },
+              "weather": [ { "id": 800, "main": "Clear", "description": "clear sky", "icon": "01d" } ],
+              "base": "stations",
+              "main": {
+                "temp": 29.48, "feels_like": 30.62, "temp_min": 28.2, "temp_max": 30.84,
+                "pressure": 1016, "humidity": 64, "sea_level": 1016, "grnd_level": 1014
+              },
+              "visibility": 10000,
+              "wind": { "speed": 3.62, "deg": 350, "gust": 5.1 },
+              "clouds": { "all": 0 },
+              "dt": 1661870592,
+              "sys": { "type": 2, "id": 2019346, "country": "EE", "sunrise": 1661834187, "sunset": 1661882248 },
+              "timezone": 10800,
+              "id": 588409,
+              "name": "Tallinn",
+              "cod": 200
+            }
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final WeatherPayloadDecoder weatherPayloadDecoder = new WeatherPayloadDecoder(objectMapper);
+
+    private final City city = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+
+    public static void main(String[] args)
+            throws RunnerException {
+        new Runner(new OptionsBuilder().include(WeatherPayloadDecoderBenchmark.class.getSimpleName())
+                                       .addProfiler(GCProfiler.class)
+                                       .build()).run();
+    }
+
+    @Benchmark
+    public WeatherData streamingDecoder()
+            throws IOException {
+        return weatherPayloadDecoder.decode(city, PAYLOAD);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public WeatherData mapDeserialization()
+            throws IOException {
+        Double airTemperature = null;
+        Double windSpeed = null;
+        Integer humidity = null;
+        String iconCode = null;
+
+        Map<String, Object> responseMap = objectMapper.readValue(PAYLOAD, new TypeReference<>() {
+        });
+        long timestamp = ((Integer) responseMap.get("dt")).longValue();
+        try {
+            List<Map<String, Object>> weatherList = (List<Map<String, Object>>) responseMap.get("weather");
+            iconCode = (String) weatherList.get(0).get("icon");
+        } catch (Exception _) {
+        }
+        try {
+            Map<String, Object> mainData = (Map<String, Object>) responseMap.get("main");
+            airTemperature = (Double) mainData.get("temp");
+            humidity = (Integer) mainData.get("humidity");
+        } catch (Exception _) {
+        }
+        try {
+            Map<String, Object> windData = (Map<String, Object>) responseMap.get("wind");
+            windSpeed = (Double) windData.get("speed");
+        } catch (Exception _) {
+        }
+
+        return new WeatherData(city, timestamp, airTemperature, windSpeed, humidity, iconCode);
+    }
+}
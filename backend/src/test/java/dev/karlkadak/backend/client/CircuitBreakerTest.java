@@ -0,0 +1,77 @@
+package dev.karlkadak.backend.client;
+
+import dev.karlkadak.backend.exception.UpstreamRateLimitExceededException;
+import dev.karlkadak.backend.exception.UpstreamRequestException;
+import dev.karlkadak.backend.exception.UpstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    void testExecute_OpensAfterThreshold() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("weather", 2, Duration.ofMinutes(1));
+
+        assertThrows(UpstreamRequestException.class, () -> circuitBreaker.execute(this::failTransiently));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertThrows(UpstreamRequestException.class, () -> circuitBreaker.execute(this::failTransiently));
+
+        assertTrue(circuitBreaker.isOpen());
+        assertThrows(UpstreamUnavailableException.class, () -> circuitBreaker.execute(() -> "{}"));
+    }
+
+    @Test
+    void testExecute_IgnoresNonTransientErrors() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("weather", 1, Duration.ofMinutes(1));
+
+        assertThrows(UpstreamRequestException.class, () -> circuitBreaker.execute(() -> {
+            throw new UpstreamRequestException(404);
+        }));
+        assertThrows(UpstreamRateLimitExceededException.class, () -> circuitBreaker.execute(() -> {
+            throw new UpstreamRateLimitExceededException("Rate limited.");
+        }));
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testExecute_ProbeAfterOpenDuration()
+            throws InterruptedException {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("weather", 1, Duration.ofMillis(50));
+        assertThrows(UpstreamRequestException.class, () -> circuitBreaker.execute(this::failTransiently));
+        assertTrue(circuitBreaker.isOpen());
+
+        Thread.sleep(100);
+
+        // A failed probe opens the breaker again
+        assertThrows(UpstreamRequestException.class, () -> circuitBreaker.execute(this::failTransiently));
+        assertTrue(circuitBreaker.isOpen());
+
+        Thread.sleep(100);
+
+        // A successful probe closes the breaker
+        assertEquals("{}", circuitBreaker.execute(() -> "{}"));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void testExecute_IgnoresOutcomeOfCallsFromOlderState() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("weather", 1, Duration.ofMinutes(1));
+
+        // The breaker opens while the first call is still in flight, its late success must not close the breaker
+        String result = circuitBreaker.execute(() -> {
+            assertThrows(UpstreamRequestException.class, () -> circuitBreaker.execute(this::failTransiently));
+            return "{}";
+        });
+
+        assertEquals("{}", result);
+        assertTrue(circuitBreaker.isOpen());
+    }
+
+    private String failTransiently() {
+        throw new UpstreamRequestException(503);
+    }
+}
@@ -0,0 +1,84 @@
+package dev.karlkadak.backend.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dev.karlkadak.backend.exception.UpstreamRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpUpstreamClientTest {
+
+    private HttpServer server;
+
+    private HttpUpstreamClient upstreamClient;
+
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp()
+            throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ok", exchange -> respond(exchange, 200, "{ \"dt\": 1661870592 }"));
+        server.createContext("/error", exchange -> respond(exchange, 503, ""));
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException _) {
+            }
+            respond(exchange, 200, "");
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(60, 1000, Duration.ofSeconds(1),
+                                                              Duration.ofSeconds(1));
+        upstreamClient = new HttpUpstreamClient(HttpClient.newHttpClient(), rateLimiter, Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testGet_Success() {
+        assertEquals("{ \"dt\": 1661870592 }", upstreamClient.get(baseUrl + "/ok", UpstreamPriority.INTERACTIVE));
+    }
+
+    @Test
+    void testGet_ErrorStatusCode() {
+        UpstreamRequestException e = assertThrows(UpstreamRequestException.class,
+                                                  () -> upstreamClient.get(baseUrl + "/error",
+                                                                           UpstreamPriority.INTERACTIVE));
+
+        assertEquals(503, e.getStatusCode());
+    }
+
+    @Test
+    void testGet_Timeout() {
+        UpstreamRequestException e = assertThrows(UpstreamRequestException.class,
+                                                  () -> upstreamClient.get(baseUrl + "/slow",
+                                                                           UpstreamPriority.INTERACTIVE));
+
+        assertNull(e.getStatusCode());
+    }
+
+    private static void respond(HttpExchange exchange, int statusCode, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(statusCode, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
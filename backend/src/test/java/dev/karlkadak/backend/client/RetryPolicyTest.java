@@ -0,0 +1,61 @@
+package dev.karlkadak.backend.client;
+
+import dev.karlkadak.backend.exception.UpstreamRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private final RetryPolicy retryPolicy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    @Test
+    void testExecute_RetriesTransientErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retryPolicy.execute(() -> {
+            if (attempts.incrementAndGet() < 3) throw new UpstreamRequestException(new IOException("Reset."));
+            return "{}";
+        });
+
+        assertEquals("{}", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testExecute_GivesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(UpstreamRequestException.class, () -> retryPolicy.execute(() -> {
+            attempts.incrementAndGet();
+            throw new UpstreamRequestException(429);
+        }));
+
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testExecute_DoesNotRetryNonTransientErrors() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(UpstreamRequestException.class, () -> retryPolicy.execute(() -> {
+            attempts.incrementAndGet();
+            throw new UpstreamRequestException(401);
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void testIsTransient() {
+        assertTrue(RetryPolicy.isTransient(new UpstreamRequestException(new IOException())));
+        assertTrue(RetryPolicy.isTransient(new UpstreamRequestException(429)));
+        assertTrue(RetryPolicy.isTransient(new UpstreamRequestException(502)));
+        assertFalse(RetryPolicy.isTransient(new UpstreamRequestException(404)));
+        assertFalse(RetryPolicy.isTransient(new IllegalStateException()));
+    }
+}
@@ -0,0 +1,62 @@
+package dev.karlkadak.backend.client;
+
+import dev.karlkadak.backend.exception.UpstreamRateLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamRateLimiterTest {
+
+    @Test
+    void testAcquire_WithinMinuteLimit() {
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(3, 1000, Duration.ZERO, Duration.ZERO);
+
+        for (int i = 0; i < 3; i++) rateLimiter.acquire(UpstreamPriority.BACKGROUND);
+
+        assertThrows(UpstreamRateLimitExceededException.class, () -> rateLimiter.acquire(UpstreamPriority.BACKGROUND));
+        assertEquals(3, rateLimiter.getConsumedCount(UpstreamPriority.BACKGROUND));
+        assertEquals(1, rateLimiter.getRejectedCount(UpstreamPriority.BACKGROUND));
+    }
+
+    @Test
+    void testAcquire_WaitsForRefill() {
+        // A limit of 600 calls per minute refills a token every 100 milliseconds
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(600, 1000, Duration.ofSeconds(1), Duration.ZERO);
+        for (int i = 0; i < 600; i++) rateLimiter.acquire(UpstreamPriority.INTERACTIVE);
+
+        assertDoesNotThrow(() -> rateLimiter.acquire(UpstreamPriority.INTERACTIVE));
+        assertEquals(601, rateLimiter.getConsumedCount(UpstreamPriority.INTERACTIVE));
+    }
+
+    @Test
+    void testAcquire_DailyLimit() {
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(60, 2, Duration.ofSeconds(1), Duration.ofSeconds(1));
+
+        rateLimiter.acquire(UpstreamPriority.INTERACTIVE);
+        rateLimiter.acquire(UpstreamPriority.BACKGROUND);
+
+        assertThrows(UpstreamRateLimitExceededException.class, () -> rateLimiter.acquire(UpstreamPriority.INTERACTIVE));
+        assertEquals(1, rateLimiter.getRejectedCount(UpstreamPriority.INTERACTIVE));
+    }
+
+    @Test
+    void testAcquire_InteractiveServedFirst() {
+        // A limit of 60 calls per minute refills a token every second
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(60, 1000, Duration.ofSeconds(2),
+                                                                  Duration.ofMillis(1500));
+        for (int i = 0; i < 60; i++) rateLimiter.acquire(UpstreamPriority.INTERACTIVE);
+
+        CompletableFuture<Void> interactive = CompletableFuture.runAsync(
+                () -> rateLimiter.acquire(UpstreamPriority.INTERACTIVE));
+        CompletableFuture<Void> background = CompletableFuture.runAsync(
+                () -> rateLimiter.acquire(UpstreamPriority.BACKGROUND));
+
+        // The only token refilled in time for the background request is taken by the interactive request
+        assertDoesNotThrow(interactive::join);
+        assertThrows(Exception.class, background::join);
+        assertEquals(1, rateLimiter.getRejectedCount(UpstreamPriority.BACKGROUND));
+    }
+}
@@ -0,0 +1,53 @@
+package dev.karlkadak.backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SequenceMigrationTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Logger logger;
+
+    private SequenceMigration sequenceMigration;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        sequenceMigration = new SequenceMigration(jdbcTemplate, logger);
+    }
+
+    @Test
+    void testAlignSequences() {
+        // Legacy table with IDs up to 120 and a freshly created sequence
+        doReturn(120L).when(jdbcTemplate).queryForObject("select max(id) from city", Long.class);
+        doReturn(List.of(1L)).when(jdbcTemplate).queryForList(anyString(), eq(Long.class), eq("CITY_SEQ"));
+        // Sequence already past the existing IDs
+        doReturn(5000L).when(jdbcTemplate).queryForObject("select max(id) from weather_data", Long.class);
+        doReturn(List.of(5051L)).when(jdbcTemplate).queryForList(anyString(), eq(Long.class), eq("WEATHER_DATA_SEQ"));
+
+        sequenceMigration.alignSequences();
+
+        verify(jdbcTemplate, times(1)).execute("alter sequence city_seq restart with 170");
+        verify(jdbcTemplate, times(1)).execute(anyString());
+        verify(logger, times(1)).info(anyString());
+    }
+
+    @Test
+    void testAlignSequences_EmptyTables() {
+        sequenceMigration.alignSequences();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
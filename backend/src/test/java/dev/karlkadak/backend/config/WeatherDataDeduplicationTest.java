@@ -0,0 +1,53 @@
+package dev.karlkadak.backend.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.logging.Logger;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WeatherDataDeduplicationTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Logger logger;
+
+    private WeatherDataDeduplication weatherDataDeduplication;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        weatherDataDeduplication = new WeatherDataDeduplication(jdbcTemplate, logger);
+    }
+
+    @Test
+    void testDeduplicate() {
+        doReturn(0).when(jdbcTemplate)
+                   .queryForObject(anyString(), eq(Integer.class), eq("UK_WEATHER_DATA_CITY_TIMESTAMP"));
+        doReturn(3).when(jdbcTemplate).update(startsWith("delete from weather_data"));
+
+        weatherDataDeduplication.deduplicate();
+
+        verify(jdbcTemplate, times(1)).execute("alter table weather_data add constraint uk_weather_data_city_timestamp "
+                                               + "unique (city_id, timestamp)");
+        verify(logger, times(2)).info(anyString());
+    }
+
+    @Test
+    void testDeduplicate_ConstraintExists() {
+        doReturn(1).when(jdbcTemplate)
+                   .queryForObject(anyString(), eq(Integer.class), eq("UK_WEATHER_DATA_CITY_TIMESTAMP"));
+
+        weatherDataDeduplication.deduplicate();
+
+        verify(jdbcTemplate, never()).update(anyString());
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
@@ -1,21 +1,31 @@
 package dev.karlkadak.backend.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.karlkadak.backend.dto.AddCitiesRequest;
 import dev.karlkadak.backend.dto.AddCityRequest;
 import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.RollupResolution;
 import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.entity.WeatherRollup;
 import dev.karlkadak.backend.exception.*;
 import dev.karlkadak.backend.repository.CityRepository;
 import dev.karlkadak.backend.repository.WeatherDataRepository;
+import dev.karlkadak.backend.repository.WeatherRollupRepository;
+import dev.karlkadak.backend.service.CityListVersion;
 import dev.karlkadak.backend.service.CityManager;
+import dev.karlkadak.backend.service.CitySuggester;
+import dev.karlkadak.backend.service.LatestWeatherStore;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.ArrayList;
@@ -27,6 +37,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -44,6 +55,18 @@ class CityControllerTest {
     @MockBean
     private CityManager cityManager;
 
+    @MockBean
+    private CitySuggester citySuggester;
+
+    @MockBean
+    private LatestWeatherStore latestWeatherStore;
+
+    @MockBean
+    private CityListVersion cityListVersion;
+
+    @MockBean
+    private WeatherRollupRepository weatherRollupRepository;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -72,6 +95,24 @@ class CityControllerTest {
         mockMvc.perform(get(apiPrefix + "/cities").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
     }
 
+    @Test
+    void testAll_NotModified()
+            throws Exception {
+        doReturn(5L).when(cityListVersion).current();
+
+        mockMvc.perform(get(apiPrefix + "/cities").header(HttpHeaders.IF_NONE_MATCH, "\"cities-5\"")
+                                                  .accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNotModified())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"cities-5\""));
+
+        verifyNoInteractions(cityRepository);
+
+        mockMvc.perform(get(apiPrefix + "/cities").header(HttpHeaders.IF_NONE_MATCH, "\"cities-4\"")
+                                                  .accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"cities-5\""));
+    }
+
     @Test
     void testEnable_Success()
             throws Exception {
@@ -113,6 +154,77 @@ class CityControllerTest {
         mockMvc.perform(post(apiPrefix + "/cities").contentType(MediaType.APPLICATION_JSON).content(
                 objectMapper.writeValueAsString(request)).accept(MediaType.APPLICATION_JSON)).andExpect(
                 status().isFailedDependency());
+
+        doThrow(UpstreamRateLimitExceededException.class).when(cityManager).enableImporting(anyString());
+
+        mockMvc.perform(post(apiPrefix + "/cities").contentType(MediaType.APPLICATION_JSON).content(
+                objectMapper.writeValueAsString(request)).accept(MediaType.APPLICATION_JSON)).andExpect(
+                status().isTooManyRequests());
+    }
+
+    @Test
+    void testEnableAll()
+            throws Exception {
+        City city = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        List<CityManager.BatchResult> results = List.of(
+                new CityManager.BatchResult("tallinn", CityManager.BatchResult.Status.CREATED, city, null),
+                new CityManager.BatchResult("tallinnn", CityManager.BatchResult.Status.NOT_FOUND, null,
+                                            "City not found."));
+        doReturn(results).when(cityManager).enableImportingAll(List.of("tallinn", "tallinnn"));
+        AddCitiesRequest request = new AddCitiesRequest();
+        request.setNames(List.of("tallinn", "tallinnn"));
+
+        mockMvc.perform(post(apiPrefix + "/cities/batch").contentType(MediaType.APPLICATION_JSON).content(
+                       objectMapper.writeValueAsString(request)).accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].status").value("CREATED"))
+               .andExpect(jsonPath("$[0].city.name").value("Tallinn"))
+               .andExpect(jsonPath("$[1].status").value("NOT_FOUND"))
+               .andExpect(jsonPath("$[1].city").doesNotExist());
+    }
+
+    @Test
+    void testSuggest()
+            throws Exception {
+        List<CitySuggester.Suggestion> suggestions = List.of(
+                new CitySuggester.Suggestion("Tallinn", "EE", 59.4372155, 24.7453688, 1L, 394024),
+                new CitySuggester.Suggestion("Tallahassee", "US", 30.43826, -84.28073, null, 196169));
+        doReturn(suggestions).when(citySuggester).suggest("tall", 5);
+
+        mockMvc.perform(get(apiPrefix + "/cities/suggest").param("q", "tall").param("limit", "5")
+                                                           .accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].name").value("Tallinn"))
+               .andExpect(jsonPath("$[0].tracked").value(true))
+               .andExpect(jsonPath("$[1].id").doesNotExist())
+               .andExpect(jsonPath("$[1].tracked").value(false));
+    }
+
+    @Test
+    void testAllWeather()
+            throws Exception {
+        City tallinn = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        ReflectionTestUtils.setField(tallinn, "id", 1L);
+        City tartu = new City("Tartu", 58.3801207, 26.72245, "EE");
+        ReflectionTestUtils.setField(tartu, "id", 2L);
+        doReturn(List.of(tallinn, tartu)).when(cityRepository).findAllByImportingDataTrue();
+        doReturn(List.of(tartu)).when(cityRepository).findAllByImportingDataTrueAndCountryCodeIgnoreCase("ee");
+        doReturn(Optional.of(new LatestWeatherStore.Reading(10000L, 10D, 5D, 60, "01d"))).when(latestWeatherStore)
+                                                                                       .find(1L);
+
+        mockMvc.perform(get(apiPrefix + "/cities/weather").accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].city.name").value("Tallinn"))
+               .andExpect(jsonPath("$[0].weather.timestamp").value(10000L))
+               .andExpect(jsonPath("$[1].city.id").value(2L))
+               .andExpect(jsonPath("$[1].weather").doesNotExist());
+
+        mockMvc.perform(get(apiPrefix + "/cities/weather").param("country", "ee").accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(1))
+               .andExpect(jsonPath("$[0].city.name").value("Tartu"));
+
+        verifyNoInteractions(weatherDataRepository);
     }
 
     @Test
@@ -187,6 +299,124 @@ class CityControllerTest {
                 status().isOk());
     }
 
+    @Test
+    void testWeather_FromStore()
+            throws Exception {
+        Long cityId = 1L;
+        doReturn(Optional.of(new LatestWeatherStore.Reading(10000L, 10D, 5D, 60, "01d"))).when(latestWeatherStore)
+                                                                                       .find(cityId);
+
+        mockMvc.perform(get(apiPrefix + "/cities/{id}/weather", cityId).accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.timestamp").value(10000L))
+               .andExpect(jsonPath("$.iconHref").value("https://openweathermap.org/img/wn/01d@2x.png"));
+
+        verifyNoInteractions(cityRepository, weatherDataRepository);
+    }
+
+    @Test
+    void testWeather_NotModified()
+            throws Exception {
+        Long cityId = 1L;
+        doReturn(Optional.of(new LatestWeatherStore.Reading(10000L, 10D, 5D, 60, "01d"))).when(latestWeatherStore)
+                                                                                       .find(cityId);
+
+        mockMvc.perform(get(apiPrefix + "/cities/{id}/weather", cityId).header(HttpHeaders.IF_NONE_MATCH, "\"1-10000\"")
+                                                                       .accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNotModified());
+
+        mockMvc.perform(get(apiPrefix + "/cities/{id}/weather", cityId)
+                                .header(HttpHeaders.IF_MODIFIED_SINCE, "Thu, 01 Jan 1970 02:46:40 GMT")
+                                .accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNotModified());
+
+        mockMvc.perform(get(apiPrefix + "/cities/{id}/weather", cityId).header(HttpHeaders.IF_NONE_MATCH, "\"1-9000\"")
+                                                                       .accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(header().string(HttpHeaders.ETAG, "\"1-10000\""))
+               .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Thu, 01 Jan 1970 02:46:40 GMT"));
+
+        verifyNoInteractions(cityRepository, weatherDataRepository);
+    }
+
+    @Test
+    void testWeatherHistory()
+            throws Exception {
+        Long cityId = 1L;
+        doReturn(true).when(cityRepository).existsById(cityId);
+        // Observations sharing a timestamp are told apart by their ID
+        doReturn(List.of(observation(1L, 1000L), observation(2L, 2000L), observation(3L, 2000L)))
+                .when(weatherDataRepository)
+                .findHistory(eq(cityId), eq(500L), eq(Long.MAX_VALUE), eq(Long.MIN_VALUE), eq(Long.MIN_VALUE),
+                             any(Limit.class));
+        doReturn(List.of(observation(3L, 2000L))).when(weatherDataRepository)
+                .findHistory(eq(cityId), eq(500L), eq(Long.MAX_VALUE), eq(2000L), eq(2L), any(Limit.class));
+
+        mockMvc.perform(get(apiPrefix + "/cities/{id}/weather/history", cityId).param("from", "500")
+                                                                               .param("limit", "2")
+                                                                               .accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.entries.length()").value(2))
+               .andExpect(jsonPath("$.entries[0].timestamp").value(1000L))
+               .andExpect(jsonPath("$.entries[1].iconHref").value("https://openweathermap.org/img/wn/01d@2x.png"))
+               .andExpect(jsonPath("$.next").value(2000L))
+               .andExpect(jsonPath("$.nextId").value(2L));
+
+        mockMvc.perform(get(apiPrefix + "/cities/{id}/weather/history", cityId).param("from", "500")
+                                                                               .param("after", "2000")
+                                                                               .param("afterId", "2")
+                                                                               .param("limit", "2")
+                                                                               .accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.entries.length()").value(1))
+               .andExpect(jsonPath("$.entries[0].timestamp").value(2000L))
+               .andExpect(jsonPath("$.next").doesNotExist())
+               .andExpect(jsonPath("$.nextId").doesNotExist());
+
+        // One more entry than the limit is requested to find out whether a next page exists
+        verify(weatherDataRepository, times(2)).findHistory(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+                                                             argThat((Limit limit) -> limit.max() == 3));
+    }
+
+    @Test
+    void testWeatherHistory_Failure()
+            throws Exception {
+        mockMvc.perform(get(apiPrefix + "/cities/{id}/weather/history", 1L).accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNotFound());
+
+        verifyNoInteractions(weatherDataRepository);
+    }
+
+    @Test
+    void testWeatherRollups()
+            throws Exception {
+        Long cityId = 1L;
+        City city = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        WeatherRollup rollup = new WeatherRollup(city, RollupResolution.HOURLY, 3600);
+        rollup.add(10D, 5D, 60);
+        rollup.add(20D, null, 70);
+        doReturn(true).when(cityRepository).existsById(cityId);
+        doReturn(List.of(rollup)).when(weatherRollupRepository)
+                .findAllByCity_IdAndResolutionAndBucketStartBetweenOrderByBucketStart(
+                        eq(cityId), eq(RollupResolution.HOURLY), eq(3600L), eq(10000L), any(Limit.class));
+
+        mockMvc.perform(get(apiPrefix + "/cities/{id}/weather/rollups", cityId).param("resolution", "HOURLY")
+                                                                               .param("from", "4000")
+                                                                               .param("to", "10000")
+                                                                               .accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].bucketStart").value(3600L))
+               .andExpect(jsonPath("$[0].count").value(2))
+               .andExpect(jsonPath("$[0].airTempAvg").value(15D))
+               .andExpect(jsonPath("$[0].windSpeedMax").value(5D))
+               .andExpect(jsonPath("$[0].humidityMin").value(60D));
+
+        mockMvc.perform(get(apiPrefix + "/cities/{id}/weather/rollups", 2L).accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isNotFound());
+
+        verifyNoInteractions(weatherDataRepository);
+    }
+
     @Test
     void testWeather_Failure()
             throws Exception {
@@ -201,4 +431,12 @@ class CityControllerTest {
         mockMvc.perform(get(apiPrefix + "/cities/{id}/weather", cityId).accept(MediaType.APPLICATION_JSON)).andExpect(
                 status().isNotFound());
     }
-}
\ No newline at end of file
+
+    private static WeatherDataRepository.Observation observation(long id, long timestamp) {
+        WeatherDataRepository.Observation observation = mock(WeatherDataRepository.Observation.class);
+        doReturn(id).when(observation).getId();
+        doReturn(timestamp).when(observation).getTimestamp();
+        doReturn("01d").when(observation).getIconCode();
+        return observation;
+    }
+}
@@ -0,0 +1,110 @@
+package dev.karlkadak.backend.controller;
+
+import dev.karlkadak.backend.entity.ImportRun;
+import dev.karlkadak.backend.entity.ImportStatus;
+import dev.karlkadak.backend.exception.GlobalExceptionHandler;
+import dev.karlkadak.backend.repository.ImportRunCityRepository;
+import dev.karlkadak.backend.repository.ImportRunRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = ImportRunController.class)
+@ContextConfiguration(classes = {ImportRunController.class, GlobalExceptionHandler.class})
+@AutoConfigureMockMvc
+class ImportRunControllerTest {
+
+    @MockBean
+    private ImportRunRepository importRunRepository;
+
+    @MockBean
+    private ImportRunCityRepository importRunCityRepository;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Value("${api.prefix}")
+    private String apiPrefix;
+
+    @Test
+    void testRecent_WithoutRuns()
+            throws Exception {
+        doReturn(List.of()).when(importRunRepository).findAllByOrderByIdDesc(any(Limit.class));
+
+        mockMvc.perform(get(apiPrefix + "/imports").accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$.length()").value(0));
+
+        verifyNoInteractions(importRunCityRepository);
+    }
+
+    @Test
+    void testRecent_WithRuns()
+            throws Exception {
+        ImportRun finishedRun = new ImportRun(1000L, 3);
+        ReflectionTestUtils.setField(finishedRun, "id", 2L);
+        ReflectionTestUtils.setField(finishedRun, "finishedAt", 1042L);
+        ImportRun unfinishedRun = new ImportRun(2000L, 1);
+        ReflectionTestUtils.setField(unfinishedRun, "id", 3L);
+        doReturn(List.of(unfinishedRun, finishedRun)).when(importRunRepository)
+                                                     .findAllByOrderByIdDesc(Limit.of(5));
+        doReturn(List.of(statusCount(2L, ImportStatus.SAVED, 2), statusCount(2L, ImportStatus.FAILED, 1),
+                         statusCount(3L, ImportStatus.PENDING, 1))).when(importRunCityRepository)
+                                                                   .countByRunIdsGroupByStatus(List.of(3L, 2L));
+
+        mockMvc.perform(get(apiPrefix + "/imports").param("limit", "5").accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk())
+               .andExpect(jsonPath("$[0].id").value(3))
+               .andExpect(jsonPath("$[0].durationSeconds").value(nullValue()))
+               .andExpect(jsonPath("$[0].pendingCount").value(1))
+               .andExpect(jsonPath("$[1].durationSeconds").value(42))
+               .andExpect(jsonPath("$[1].savedCount").value(2))
+               .andExpect(jsonPath("$[1].failedCount").value(1))
+               .andExpect(jsonPath("$[1].unchangedCount").value(0));
+    }
+
+    @Test
+    void testRecent_ClampsLimit()
+            throws Exception {
+        mockMvc.perform(get(apiPrefix + "/imports").param("limit", "100000").accept(MediaType.APPLICATION_JSON))
+               .andExpect(status().isOk());
+
+        verify(importRunRepository, times(1)).findAllByOrderByIdDesc(Limit.of(100));
+    }
+
+    private static ImportRunCityRepository.StatusCount statusCount(long runId, ImportStatus status, long count) {
+        return new ImportRunCityRepository.StatusCount() {
+            @Override
+            public long getRunId() {
+                return runId;
+            }
+
+            @Override
+            public ImportStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+}
@@ -1,17 +1,24 @@
 package dev.karlkadak.backend.cron;
 
+import dev.karlkadak.backend.service.ClusterCoordinator;
+import dev.karlkadak.backend.service.LatestWeatherStore;
+import dev.karlkadak.backend.service.RefreshPlanner;
 import dev.karlkadak.backend.service.WeatherDataImporter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.support.CronTrigger;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.concurrent.ScheduledFuture;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 class WeatherDataImportSchedulerTest {
@@ -19,9 +26,24 @@ class WeatherDataImportSchedulerTest {
     @Mock
     private ThreadPoolTaskScheduler taskScheduler;
 
+    @Mock
+    private ThreadPoolTaskScheduler heartbeatScheduler;
+
+    @Mock
+    private ThreadPoolTaskScheduler maintenanceScheduler;
+
     @Mock
     private WeatherDataImporter weatherDataImporter;
 
+    @Mock
+    private RefreshPlanner refreshPlanner;
+
+    @Mock
+    private ClusterCoordinator clusterCoordinator;
+
+    @Mock
+    private LatestWeatherStore latestWeatherStore;
+
     @Mock
     private Logger logger;
 
@@ -31,7 +53,10 @@ class WeatherDataImportSchedulerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        weatherDataImportScheduler = new WeatherDataImportScheduler(taskScheduler, weatherDataImporter, logger);
+        weatherDataImportScheduler = new WeatherDataImportScheduler(taskScheduler, heartbeatScheduler,
+                                                                    maintenanceScheduler, weatherDataImporter,
+                                                                    refreshPlanner, clusterCoordinator,
+                                                                    latestWeatherStore, logger);
     }
 
     @Test
@@ -43,6 +68,104 @@ class WeatherDataImportSchedulerTest {
         weatherDataImportScheduler.scheduleImport();
 
         verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(CronTrigger.class));
+        verify(weatherDataImporter, times(1)).defaultImport();
+        verify(taskScheduler, times(0)).scheduleAtFixedRate(any(Runnable.class), any(Duration.class));
+        verify(logger, times(1)).info(anyString());
+    }
+
+    @Test
+    void testScheduleImport_ResumesInterruptedRun() {
+        weatherDataImportScheduler.setImporterCronExpression("*/5 * * * * *");
+        doReturn(true).when(weatherDataImporter).resumeUnfinishedImport();
+        ScheduledFuture<?> mockFuture = mock(ScheduledFuture.class);
+        doReturn(mockFuture).when(taskScheduler).schedule(any(Runnable.class), any(CronTrigger.class));
+
+        weatherDataImportScheduler.scheduleImport();
+
+        // The resumed run replaces the initial import
+        verify(weatherDataImporter, times(1)).resumeUnfinishedImport();
+        verify(weatherDataImporter, times(0)).defaultImport();
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(CronTrigger.class));
+    }
+
+    @Test
+    void testScheduleImport_Clustered() {
+        weatherDataImportScheduler.setImporterCronExpression("*/5 * * * * *");
+        weatherDataImportScheduler.setHeartbeatInterval(Duration.ofSeconds(10));
+        weatherDataImportScheduler.setWeatherRefreshInterval(Duration.ofSeconds(30));
+        doReturn(true).when(clusterCoordinator).isEnabled();
+        ScheduledFuture<?> mockFuture = mock(ScheduledFuture.class);
+        doReturn(mockFuture).when(taskScheduler).schedule(any(Runnable.class), any(CronTrigger.class));
+        doReturn(mockFuture).when(heartbeatScheduler).scheduleAtFixedRate(any(Runnable.class), any(Duration.class));
+        doReturn(mockFuture).when(maintenanceScheduler).scheduleWithFixedDelay(any(Runnable.class),
+                                                                               any(Duration.class));
+
+        weatherDataImportScheduler.scheduleImport();
+
+        // The heartbeat runs on its own scheduler so that long imports cannot delay it
+        ArgumentCaptor<Runnable> heartbeat = ArgumentCaptor.forClass(Runnable.class);
+        verify(heartbeatScheduler, times(1)).scheduleAtFixedRate(heartbeat.capture(), eq(Duration.ofSeconds(10)));
+        verify(taskScheduler, times(0)).scheduleAtFixedRate(any(Runnable.class), any(Duration.class));
+        // The weather of other instances is refreshed separately, so neither the heartbeat nor imports delay it
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+        verify(maintenanceScheduler, times(1)).scheduleWithFixedDelay(refresh.capture(), eq(Duration.ofSeconds(30)));
+        verify(taskScheduler, never()).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+        verify(taskScheduler, times(1)).schedule(any(Runnable.class), any(CronTrigger.class));
+        verify(weatherDataImporter, times(0)).resumeUnfinishedImport();
+        verify(weatherDataImporter, times(1)).defaultImport();
+
+        heartbeat.getValue().run();
+
+        verify(clusterCoordinator, times(1)).heartbeat();
+        verifyNoInteractions(latestWeatherStore);
+
+        refresh.getValue().run();
+
+        verify(latestWeatherStore, times(1)).refresh();
+    }
+
+    @Test
+    void testScheduleImport_Smoothed() {
+        weatherDataImportScheduler.setImportMode(ImportMode.SMOOTHED);
+        weatherDataImportScheduler.setSmoothingInterval(Duration.ofMinutes(15));
+        weatherDataImportScheduler.setSmoothingSlices(15);
+        ScheduledFuture<?> mockFuture = mock(ScheduledFuture.class);
+        doReturn(mockFuture).when(taskScheduler).scheduleAtFixedRate(any(Runnable.class), any(Instant.class),
+                                                                     any(Duration.class));
+
+        weatherDataImportScheduler.scheduleImport();
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        ArgumentCaptor<Instant> startTime = ArgumentCaptor.forClass(Instant.class);
+        verify(taskScheduler, times(1)).scheduleAtFixedRate(task.capture(), startTime.capture(),
+                                                            eq(Duration.ofMinutes(1)));
+        verify(taskScheduler, times(0)).schedule(any(Runnable.class), any(CronTrigger.class));
+        verify(weatherDataImporter, times(1)).resumeUnfinishedImport();
+        verifyNoMoreInteractions(weatherDataImporter);
+        verify(logger, times(1)).info(anyString());
+
+        // The first run starts at a slice boundary, the following runs import consecutive slices
+        assertEquals(0, startTime.getValue().toEpochMilli() % Duration.ofMinutes(1).toMillis());
+        int firstSlice = (int) (startTime.getValue().getEpochSecond() / 60 % 15);
+        task.getValue().run();
+        task.getValue().run();
+        verify(weatherDataImporter, times(1)).sliceImport(firstSlice, 15);
+        verify(weatherDataImporter, times(1)).sliceImport((firstSlice + 1) % 15, 15);
+    }
+
+    @Test
+    void testScheduleImport_Adaptive() {
+        weatherDataImportScheduler.setImportMode(ImportMode.ADAPTIVE);
+        weatherDataImportScheduler.setAdaptiveTick(Duration.ofMinutes(1));
+        ScheduledFuture<?> mockFuture = mock(ScheduledFuture.class);
+        doReturn(mockFuture).when(taskScheduler).scheduleWithFixedDelay(any(Runnable.class), any(Duration.class));
+
+        weatherDataImportScheduler.scheduleImport();
+
+        verify(taskScheduler, times(1)).scheduleWithFixedDelay(any(Runnable.class), eq(Duration.ofMinutes(1)));
+        verify(taskScheduler, times(0)).schedule(any(Runnable.class), any(CronTrigger.class));
+        verify(weatherDataImporter, times(1)).resumeUnfinishedImport();
+        verifyNoMoreInteractions(weatherDataImporter);
         verify(logger, times(1)).info(anyString());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.CityListRevision;
+import dev.karlkadak.backend.repository.CityListRevisionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CityListVersionTest {
+
+    @Mock
+    private CityListRevisionRepository cityListRevisionRepository;
+
+    private CityListVersion cityListVersion;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        cityListVersion = new CityListVersion(cityListRevisionRepository);
+    }
+
+    @Test
+    void testInit() {
+        cityListVersion.init();
+
+        verify(cityListRevisionRepository, times(1)).save(any(CityListRevision.class));
+    }
+
+    @Test
+    void testInit_Exists() {
+        doReturn(true).when(cityListRevisionRepository).existsById(CityListRevision.ID);
+
+        cityListVersion.init();
+
+        verify(cityListRevisionRepository, never()).save(any(CityListRevision.class));
+    }
+
+    @Test
+    void testInit_CreatedConcurrently() {
+        doThrow(new DataIntegrityViolationException("Duplicate key")).when(cityListRevisionRepository)
+                                                                    .save(any(CityListRevision.class));
+
+        cityListVersion.init();
+
+        verify(cityListRevisionRepository, times(1)).save(any(CityListRevision.class));
+    }
+
+    @Test
+    void testCurrentAndChanged() {
+        doReturn(Optional.of(5L)).when(cityListRevisionRepository).findRevision(CityListRevision.ID);
+
+        // The version is shared through the database, so every instance reads the same one
+        assertEquals(5L, cityListVersion.current());
+
+        cityListVersion.changed();
+
+        verify(cityListRevisionRepository, times(1)).incrementRevision(CityListRevision.ID);
+    }
+}
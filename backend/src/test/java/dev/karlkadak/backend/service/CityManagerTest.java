@@ -1,18 +1,36 @@
 package dev.karlkadak.backend.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.karlkadak.backend.client.CircuitBreaker;
+import dev.karlkadak.backend.client.RetryPolicy;
+import dev.karlkadak.backend.client.UpstreamClient;
+import dev.karlkadak.backend.client.UpstreamPriority;
 import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.CityAlias;
 import dev.karlkadak.backend.exception.*;
+import dev.karlkadak.backend.repository.CityAliasRepository;
 import dev.karlkadak.backend.repository.CityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,11 +42,14 @@ class CityManagerTest {
     @Mock
     private CityRepository cityRepository;
 
+    @Mock
+    private CityAliasRepository cityAliasRepository;
+
     @Mock
     private Logger logger;
 
     @Mock
-    private RestTemplate restTemplate;
+    private UpstreamClient upstreamClient;
 
     @Mock
     private ObjectMapper objectMapper;
@@ -36,16 +57,47 @@ class CityManagerTest {
     @Mock
     private WeatherDataImporter weatherDataImporter;
 
+    @Mock
+    private RefreshPlanner refreshPlanner;
+
+    @Mock
+    private OfflineGazetteer offlineGazetteer;
+
+    @Mock
+    private CitySuggester citySuggester;
+
+    @Mock
+    private CityListVersion cityListVersion;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TaskExecutor cityImportExecutor;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final CircuitBreaker geocodingCircuitBreaker = new CircuitBreaker("geocoding", 2, Duration.ofMinutes(1));
+
+    private final RetryPolicy retryPolicy = new RetryPolicy(2, Duration.ZERO, Duration.ZERO);
+
+    private GeocodingCache geocodingCache;
+
     @InjectMocks
     private CityManager cityManager;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        cityManager = new CityManager(cityRepository, logger, restTemplate, objectMapper, weatherDataImporter);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        geocodingCache = new GeocodingCache(new SimpleMeterRegistry(), 100, Duration.ofHours(1), Duration.ofMinutes(1));
+        cityManager = new CityManager(cityRepository, cityAliasRepository, logger, upstreamClient, objectMapper,
+                                      weatherDataImporter, geocodingCircuitBreaker, retryPolicy, refreshPlanner,
+                                      geocodingCache, offlineGazetteer, citySuggester,
+                                      cityListVersion, transactionTemplate, cityImportExecutor);
 
         // Sample data to be returned from the geocoding API
-        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn("""
+        when(upstreamClient.get(anyString(), any())).thenReturn("""
                                                                                           [
                                                                                             {
                                                                                               "name": "Tallinn",
@@ -55,6 +107,36 @@ class CityManagerTest {
                                                                                           ]""");
     }
 
+    @Test
+    void testNormalizeStoredNames_MergesCollisions() {
+        City tallinn = legacyCity("Tallinn", 1L);
+        City lowercaseTallinn = legacyCity("tallinn", 2L);
+        City tartu = legacyCity("Tartu", 3L);
+        City narva = legacyCity("Narva", 4L);
+        City untrackedTartu = legacyCity("TARTU", 5L);
+        untrackedTartu.setImportingData(false);
+        City normalizedNarva = new City("NARVA", 59.3775, 28.1903, "EE");
+        ReflectionTestUtils.setField(normalizedNarva, "id", 6L);
+        normalizedNarva.setImportingData(false);
+        when(cityRepository.findAllByNormalizedNameIsNull()).thenReturn(
+                List.of(lowercaseTallinn, tartu, tallinn, narva, untrackedTartu));
+        when(cityRepository.findByNormalizedName("narva")).thenReturn(Optional.of(normalizedNarva));
+
+        assertDoesNotThrow(() -> cityManager.normalizeStoredNames());
+
+        // The oldest city keeps the normalized name
+        verify(cityRepository, times(1)).updateNormalizedName(1L, "tallinn");
+        verify(cityRepository, times(1)).updateNormalizedName(3L, "tartu");
+        verify(cityRepository, times(2)).updateNormalizedName(anyLong(), anyString());
+        // The colliding ones are no longer tracked, the surviving city is tracked in their place
+        verify(cityRepository, times(1)).updateImportingData(2L, false);
+        verify(cityRepository, times(1)).updateImportingData(4L, false);
+        verify(cityRepository, times(1)).updateImportingData(6L, true);
+        verify(cityRepository, times(3)).updateImportingData(anyLong(), anyBoolean());
+        verify(logger, times(3)).warning(anyString());
+        verify(cityListVersion, times(1)).changed();
+    }
+
     @Test
     void testEnableImporting_NewCity() {
         City newCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
@@ -64,8 +146,55 @@ class CityManagerTest {
         spyManager.enableImporting("tallinn");
 
         verify(cityRepository, times(1)).save(newCity);
+        verify(refreshPlanner, times(1)).track(newCity);
+        verify(citySuggester, times(1)).track(newCity);
+        verify(cityListVersion, times(1)).changed();
         verify(weatherDataImporter, times(1)).fetchAndSave(newCity);
         verify(logger, times(1)).info(anyString());
+        verify(cityAliasRepository, never()).save(any());
+    }
+
+    @Test
+    void testEnableImporting_Alias() {
+        City newCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        CityManager spyManager = spy(cityManager);
+        doReturn(newCity).when(spyManager).retrieveCompleteCity(anyString());
+
+        spyManager.enableImporting("Reval");
+
+        verify(cityAliasRepository, times(1)).save(
+                argThat((CityAlias alias) -> alias.getQuery().equals("reval") && alias.getCity() == newCity));
+    }
+
+    @Test
+    void testEnableImporting_ConcurrentRequests()
+            throws Exception {
+        City newCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CityManager spyManager = spy(cityManager);
+        doAnswer(_ -> {
+            lookupStarted.countDown();
+            release.await();
+            return newCity;
+        }).when(spyManager).retrieveCompleteCity(anyString());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<City> first = executor.submit(() -> spyManager.enableImporting("tallinn"));
+            lookupStarted.await();
+            Future<City> second = executor.submit(() -> spyManager.enableImporting(" Tallinn "));
+
+            // Wait for the second request to join the first one before completing it
+            Thread.sleep(100);
+            release.countDown();
+
+            assertSame(newCity, first.get());
+            assertSame(newCity, second.get());
+        }
+
+        verify(spyManager, times(1)).retrieveCompleteCity(anyString());
+        verify(cityRepository, times(1)).save(newCity);
+        verify(weatherDataImporter, times(1)).fetchAndSave(newCity);
     }
 
     @Test
@@ -97,6 +226,91 @@ class CityManagerTest {
         verify(logger, times(0)).info(anyString());
     }
 
+    @Test
+    void testEnableImportingAll() {
+        City newCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        City untrackedCity = new City("Tartu", 58.3801207, 26.72245, "EE");
+        untrackedCity.setImportingData(false);
+        ReflectionTestUtils.setField(untrackedCity, "id", 2L);
+        City trackedCity = new City("Narva", 59.3758, 28.1961, "EE");
+        ReflectionTestUtils.setField(trackedCity, "id", 3L);
+        CityManager spyManager = spy(cityManager);
+        doReturn(newCity).when(spyManager).retrieveCompleteCity(eq("tallinn"), any());
+        doReturn(newCity).when(spyManager).retrieveCompleteCity(eq("Reval"), any());
+        doReturn(untrackedCity).when(spyManager).retrieveCompleteCity(eq("tartu"), any());
+        doReturn(trackedCity).when(spyManager).retrieveCompleteCity(eq("narva"), any());
+        doThrow(new CityNotFoundException()).when(spyManager).retrieveCompleteCity(eq("tallinnn"), any());
+        doThrow(new MalformedCityNameException()).when(spyManager).retrieveCompleteCity(eq("123"), any());
+
+        List<CityManager.BatchResult> results = spyManager.enableImportingAll(
+                Arrays.asList("tallinn", "TALLINN", "Reval", "tartu", "narva", "tallinnn", "123", null));
+
+        assertEquals(List.of(CityManager.BatchResult.Status.CREATED, CityManager.BatchResult.Status.CREATED,
+                             CityManager.BatchResult.Status.CREATED, CityManager.BatchResult.Status.ENABLED,
+                             CityManager.BatchResult.Status.ALREADY_TRACKED, CityManager.BatchResult.Status.NOT_FOUND,
+                             CityManager.BatchResult.Status.MALFORMED, CityManager.BatchResult.Status.MALFORMED),
+                     results.stream().map(CityManager.BatchResult::status).toList());
+        assertTrue(untrackedCity.isImportingData());
+
+        // Names with the same normalized name are looked up once, in the background
+        verify(spyManager, times(1)).retrieveCompleteCity(eq("tallinn"), eq(UpstreamPriority.BACKGROUND));
+        verify(spyManager, never()).retrieveCompleteCity(eq("TALLINN"), any());
+        // The changed cities are saved in a single transaction
+        verify(cityRepository, times(1)).saveAll(List.of(newCity, untrackedCity));
+        verify(cityRepository, never()).save(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(refreshPlanner, times(1)).track(newCity);
+        verify(refreshPlanner, times(1)).track(untrackedCity);
+        verify(cityListVersion, times(1)).changed();
+        verify(cityImportExecutor, times(1)).execute(any(Runnable.class));
+        verify(weatherDataImporter, never()).fetchAndSave(any());
+    }
+
+    @Test
+    void testEnableImportingAll_AddedConcurrently() {
+        City newCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        City storedCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        ReflectionTestUtils.setField(storedCity, "id", 1L);
+        CityManager spyManager = spy(cityManager);
+        doReturn(newCity).when(spyManager).retrieveCompleteCity(eq("tallinn"), any());
+        doReturn(Optional.of(storedCity)).when(cityRepository).findByNormalizedName("tallinn");
+
+        List<CityManager.BatchResult> results = spyManager.enableImportingAll(List.of("tallinn"));
+
+        assertEquals(List.of(new CityManager.BatchResult("tallinn", CityManager.BatchResult.Status.ALREADY_TRACKED,
+                                                         storedCity, null)), results);
+        verify(cityRepository, times(1)).saveAll(List.of());
+        verify(refreshPlanner, never()).track(any());
+        verify(cityListVersion, never()).changed();
+        verify(cityImportExecutor, never()).execute(any(Runnable.class));
+    }
+
+    @Test
+    void testEnableImportingAll_AddedByAnotherInstanceBeforeCommit() {
+        City newCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        City otherCity = new City("Tartu", 58.3801207, 26.72245, "EE");
+        City storedCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        ReflectionTestUtils.setField(storedCity, "id", 1L);
+        CityManager spyManager = spy(cityManager);
+        doReturn(newCity).when(spyManager).retrieveCompleteCity(eq("tallinn"), any());
+        doReturn(otherCity).when(spyManager).retrieveCompleteCity(eq("tartu"), any());
+        doThrow(new DataIntegrityViolationException("Duplicate")).when(cityRepository).saveAll(anyList());
+        doThrow(new DataIntegrityViolationException("Duplicate")).when(cityRepository).save(newCity);
+        doReturn(otherCity).when(cityRepository).save(otherCity);
+        doReturn(Optional.empty(), Optional.of(storedCity)).when(cityRepository).findByNormalizedName("tallinn");
+
+        List<CityManager.BatchResult> results = spyManager.enableImportingAll(List.of("tallinn", "tartu"));
+
+        // The cities are saved one at a time after the transaction failed
+        assertEquals(List.of(new CityManager.BatchResult("tallinn", CityManager.BatchResult.Status.ALREADY_TRACKED,
+                                                         storedCity, null),
+                             new CityManager.BatchResult("tartu", CityManager.BatchResult.Status.CREATED, otherCity,
+                                                         null)), results);
+        verify(transactionManager, times(1)).rollback(any());
+        verify(refreshPlanner, times(1)).track(otherCity);
+        verify(cityImportExecutor, times(1)).execute(any(Runnable.class));
+    }
+
     @Test
     void testDisableImporting_ExistingTrackedCity() {
         City newCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
@@ -106,6 +320,8 @@ class CityManagerTest {
 
         assertFalse(newCity.isImportingData());
         verify(cityRepository, times(1)).save(any());
+        verify(citySuggester, times(1)).untrack(newCity);
+        verify(cityListVersion, times(1)).changed();
         verify(logger, times(1)).info(anyString());
     }
 
@@ -131,11 +347,12 @@ class CityManagerTest {
     @Test
     void testRetrieveCompleteCity_NewCity() {
         // Don't mock the ObjectMapper for this test, otherwise it returns null values leading to throwing an exception
-        cityManager = new CityManager(cityRepository, logger, restTemplate, new ObjectMapper(), weatherDataImporter);
+        cityManager = new CityManager(cityRepository, cityAliasRepository, logger, upstreamClient, new ObjectMapper(),
+                                      weatherDataImporter, geocodingCircuitBreaker, retryPolicy, refreshPlanner,
+                                      geocodingCache, offlineGazetteer, citySuggester,
+                                      cityListVersion, transactionTemplate, cityImportExecutor);
 
         City returnedCity;
-        when(cityRepository.findByName(anyString())).thenReturn(Optional.empty());
-
         returnedCity = cityManager.retrieveCompleteCity("tallinn");
 
         assertTrue(
@@ -146,15 +363,72 @@ class CityManagerTest {
     @Test
     void testRetrieveCompleteCity_ExistingCity() {
         // Don't mock the ObjectMapper for this test, otherwise it returns null values leading to throwing an exception
-        cityManager = new CityManager(cityRepository, logger, restTemplate, new ObjectMapper(), weatherDataImporter);
+        cityManager = new CityManager(cityRepository, cityAliasRepository, logger, upstreamClient, new ObjectMapper(),
+                                      weatherDataImporter, geocodingCircuitBreaker, retryPolicy, refreshPlanner,
+                                      geocodingCache, offlineGazetteer, citySuggester,
+                                      cityListVersion, transactionTemplate, cityImportExecutor);
 
         City existingCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
         City returnedCity;
-        when(cityRepository.findByName(anyString())).thenReturn(Optional.of(existingCity));
+        when(cityRepository.findByNormalizedName("tallinn")).thenReturn(Optional.of(existingCity));
 
-        returnedCity = cityManager.retrieveCompleteCity("tallinn");
+        // Names differing only in letter case, accents and whitespace are resolved locally
+        returnedCity = cityManager.retrieveCompleteCity(" TÄLLINN ");
 
         assertEquals(existingCity, returnedCity);
+        verify(upstreamClient, never()).get(anyString(), any());
+    }
+
+    @Test
+    void testRetrieveCompleteCity_Alias() {
+        City existingCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        when(cityAliasRepository.findCityByQuery("reval")).thenReturn(Optional.of(existingCity));
+
+        assertEquals(existingCity, cityManager.retrieveCompleteCity("Reval"));
+
+        verify(upstreamClient, never()).get(anyString(), any());
+    }
+
+    @Test
+    void testRetrieveCompleteCity_OfflineGazetteer() {
+        when(offlineGazetteer.find("tallinn")).thenReturn(
+                Optional.of(new GeocodingCache.Place("Tallinn", 59.43696, 24.75353, "EE")));
+
+        City returnedCity = cityManager.retrieveCompleteCity("tallinn");
+
+        assertEquals("Tallinn", returnedCity.getName());
+        assertEquals("EE", returnedCity.getCountryCode());
+        verify(upstreamClient, never()).get(anyString(), any());
+    }
+
+    @Test
+    void testRetrieveCompleteCity_GeocodedExistingCity() {
+        // Don't mock the ObjectMapper for this test, otherwise it returns null values leading to throwing an exception
+        cityManager = new CityManager(cityRepository, cityAliasRepository, logger, upstreamClient, new ObjectMapper(),
+                                      weatherDataImporter, geocodingCircuitBreaker, retryPolicy, refreshPlanner,
+                                      geocodingCache, offlineGazetteer, citySuggester,
+                                      cityListVersion, transactionTemplate, cityImportExecutor);
+
+        City existingCity = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        when(cityRepository.findByNormalizedName("tallinn")).thenReturn(Optional.empty(), Optional.of(existingCity));
+
+        assertEquals(existingCity, cityManager.retrieveCompleteCity("tallinn"));
+    }
+
+    @Test
+    void testRetrieveCompleteCity_CachedCity() {
+        // Don't mock the ObjectMapper for this test, otherwise it returns null values leading to throwing an exception
+        cityManager = new CityManager(cityRepository, cityAliasRepository, logger, upstreamClient, new ObjectMapper(),
+                                      weatherDataImporter, geocodingCircuitBreaker, retryPolicy, refreshPlanner,
+                                      geocodingCache, offlineGazetteer, citySuggester,
+                                      cityListVersion, transactionTemplate, cityImportExecutor);
+
+        cityManager.retrieveCompleteCity("tallin");
+
+        // Names differing only in letter case and whitespace share the cached lookup
+        assertEquals("Tallinn", cityManager.retrieveCompleteCity("  TALLIN ").getName());
+
+        verify(upstreamClient, times(1)).get(anyString(), any());
     }
 
     @Test
@@ -177,11 +451,14 @@ class CityManagerTest {
     @Test
     void testRetrieveCompleteCity_MalformedResponse() {
         // Don't mock the ObjectMapper for this test, otherwise it returns null values leading to throwing an exception
-        cityManager = new CityManager(cityRepository, logger, restTemplate, new ObjectMapper(), weatherDataImporter);
+        cityManager = new CityManager(cityRepository, cityAliasRepository, logger, upstreamClient, new ObjectMapper(),
+                                      weatherDataImporter, geocodingCircuitBreaker, retryPolicy, refreshPlanner,
+                                      geocodingCache, offlineGazetteer, citySuggester,
+                                      cityListVersion, transactionTemplate, cityImportExecutor);
 
         // For JSON formatting rule infringement (missing trailing bracket)
 
-        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn("""
+        when(upstreamClient.get(anyString(), any())).thenReturn("""
                                                                                           [
                                                                                             {
                                                                                               "": "Tallinn",
@@ -196,7 +473,7 @@ class CityManagerTest {
 
         // For contextual format irregularity
 
-        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn("""
+        when(upstreamClient.get(anyString(), any())).thenReturn("""
                                                                                           [
                                                                                             {
                                                                                               "": "Tallinn",
@@ -212,7 +489,7 @@ class CityManagerTest {
 
         // For other format irregularity (response is not an array)
 
-        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn("""
+        when(upstreamClient.get(anyString(), any())).thenReturn("""
                                                                                           {
                                                                                             "name": "Tallinn",
                                                                                             "lat": 59.4372155,
@@ -227,12 +504,51 @@ class CityManagerTest {
     @Test
     void testRetrieveCompleteCity_NotExistingCity() {
         // Don't mock the ObjectMapper for this test, otherwise it returns null values leading to throwing an exception
-        cityManager = new CityManager(cityRepository, logger, restTemplate, new ObjectMapper(), weatherDataImporter);
+        cityManager = new CityManager(cityRepository, cityAliasRepository, logger, upstreamClient, new ObjectMapper(),
+                                      weatherDataImporter, geocodingCircuitBreaker, retryPolicy, refreshPlanner,
+                                      geocodingCache, offlineGazetteer, citySuggester,
+                                      cityListVersion, transactionTemplate, cityImportExecutor);
 
-        when(restTemplate.getForObject(anyString(), eq(String.class))).thenReturn("[]");
+        when(upstreamClient.get(anyString(), any())).thenReturn("[]");
 
         assertThrows(CityNotFoundException.class, () -> cityManager.retrieveCompleteCity("tallinn"));
 
         verify(logger, times(0)).warning(anyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRetrieveCompleteCity_CachedNotExistingCity() {
+        // Don't mock the ObjectMapper for this test, otherwise it returns null values leading to throwing an exception
+        cityManager = new CityManager(cityRepository, cityAliasRepository, logger, upstreamClient, new ObjectMapper(),
+                                      weatherDataImporter, geocodingCircuitBreaker, retryPolicy, refreshPlanner,
+                                      geocodingCache, offlineGazetteer, citySuggester,
+                                      cityListVersion, transactionTemplate, cityImportExecutor);
+
+        when(upstreamClient.get(anyString(), any())).thenReturn("[]");
+
+        assertThrows(CityNotFoundException.class, () -> cityManager.retrieveCompleteCity("tallinnn"));
+        assertThrows(CityNotFoundException.class, () -> cityManager.retrieveCompleteCity("tallinnn"));
+
+        verify(upstreamClient, times(1)).get(anyString(), any());
+    }
+
+    @Test
+    void testRetrieveCompleteCity_UpstreamUnavailable() {
+        when(upstreamClient.get(anyString(), any())).thenThrow(new UpstreamRequestException(503));
+
+        // Every lookup is attempted twice before failing, the breaker opens after two failed lookups
+        assertThrows(FailedCityDataImportException.class, () -> cityManager.retrieveCompleteCity("tallinn"));
+        assertThrows(FailedCityDataImportException.class, () -> cityManager.retrieveCompleteCity("tallinn"));
+        assertThrows(UpstreamUnavailableException.class, () -> cityManager.retrieveCompleteCity("tallinn"));
+
+        verify(upstreamClient, times(4)).get(anyString(), any());
+        verify(logger, times(3)).warning(anyString());
+    }
+
+    private static City legacyCity(String name, long id) {
+        City city = new City(name, 59.4372155, 24.7453688, "EE");
+        ReflectionTestUtils.setField(city, "id", id);
+        ReflectionTestUtils.setField(city, "normalizedName", null);
+        return city;
+    }
+}
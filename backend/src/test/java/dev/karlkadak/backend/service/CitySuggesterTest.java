@@ -0,0 +1,83 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.repository.CityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class CitySuggesterTest {
+
+    @Mock
+    private CityRepository cityRepository;
+
+    @Mock
+    private OfflineGazetteer offlineGazetteer;
+
+    private CitySuggester citySuggester;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(offlineGazetteer.entries()).thenReturn(List.of(
+                entry("paris", "Paris", "FR", 2138551),
+                entry("parnu", "Pärnu", "EE", 39605),
+                entry("tallahassee", "Tallahassee", "US", 196169),
+                entry("tallinn", "Tallinn", "EE", 394024),
+                entry("tartu", "Tartu", "EE", 91407)));
+        citySuggester = new CitySuggester(cityRepository, offlineGazetteer);
+    }
+
+    @Test
+    void testSuggest_RankedByPopulation() {
+        assertEquals(List.of("Tallinn", "Tallahassee", "Tartu"), names(citySuggester.suggest("T", 10)));
+        assertEquals(List.of("Tallinn", "Tallahassee"), names(citySuggester.suggest("tall", 10)));
+        assertEquals(List.of("Tallinn"), names(citySuggester.suggest("TALLI", 10)));
+        assertEquals(List.of("Paris"), names(citySuggester.suggest("p", 1)));
+        assertEquals(List.of("Paris", "Pärnu"), names(citySuggester.suggest("par", 10)));
+        assertEquals(List.of("Pärnu"), names(citySuggester.suggest("pärn", 10)));
+        assertEquals(List.of(), citySuggester.suggest("narva", 10));
+        assertEquals(List.of(), citySuggester.suggest("  ", 10));
+    }
+
+    @Test
+    void testSuggest_TrackedCitiesFirst() {
+        City tartu = new City("Tartu", 58.3801207, 26.72245, "EE");
+        ReflectionTestUtils.setField(tartu, "id", 2L);
+        City narva = new City("Narva", 59.3758, 28.1961, "EE");
+        ReflectionTestUtils.setField(narva, "id", 3L);
+        when(cityRepository.findAllByImportingDataTrue()).thenReturn(List.of(tartu, narva));
+
+        citySuggester.warmUp();
+
+        List<CitySuggester.Suggestion> suggestions = citySuggester.suggest("ta", 10);
+        assertEquals(List.of("Tartu", "Tallinn", "Tallahassee"), names(suggestions));
+        assertEquals(2L, suggestions.get(0).cityId());
+        assertEquals(91407, suggestions.get(0).population());
+        assertNull(suggestions.get(1).cityId());
+        assertEquals(List.of("Narva"), names(citySuggester.suggest("nar", 10)));
+
+        // Untracked cities are still suggested if the gazetteer knows them
+        citySuggester.untrack(tartu);
+        citySuggester.untrack(narva);
+
+        assertEquals(List.of("Tallinn", "Tallahassee", "Tartu"), names(citySuggester.suggest("ta", 10)));
+        assertNull(citySuggester.suggest("tartu", 10).getFirst().cityId());
+        assertEquals(List.of(), citySuggester.suggest("nar", 10));
+    }
+
+    private static OfflineGazetteer.Entry entry(String key, String name, String countryCode, long population) {
+        return new OfflineGazetteer.Entry(key, new GeocodingCache.Place(name, 0, 0, countryCode), population);
+    }
+
+    private static List<String> names(List<CitySuggester.Suggestion> suggestions) {
+        return suggestions.stream().map(CitySuggester.Suggestion::name).toList();
+    }
+}
@@ -0,0 +1,120 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.ImportNode;
+import dev.karlkadak.backend.repository.ImportNodeRepository;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ClusterCoordinatorTest {
+
+    @Mock
+    private ImportNodeRepository importNodeRepository;
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    @Mock
+    private Logger logger;
+
+    private ClusterCoordinator clusterCoordinator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        clusterCoordinator = new ClusterCoordinator(importNodeRepository, new ObservationTracker(weatherDataRepository),
+                                                    logger);
+        clusterCoordinator.setNodeId("node-b");
+        clusterCoordinator.setHeartbeatTimeout(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testCurrentShard_Disabled() {
+        assertEquals(ClusterCoordinator.Shard.WHOLE, clusterCoordinator.currentShard());
+
+        clusterCoordinator.heartbeat();
+        clusterCoordinator.leave();
+
+        assertTrue(clusterCoordinator.holdsLease());
+        verifyNoInteractions(importNodeRepository, weatherDataRepository);
+    }
+
+    @Test
+    void testCurrentShard_SplitsBetweenLiveNodes() {
+        clusterCoordinator.setEnabled(true);
+        doReturn(List.of(new ImportNode("node-a", 0), new ImportNode("node-b", 0), new ImportNode("node-c", 0)))
+                .when(importNodeRepository).findAllByHeartbeatAtGreaterThanEqualOrderByNodeIdAsc(anyLong());
+
+        assertEquals(new ClusterCoordinator.Shard(1, 3), clusterCoordinator.currentShard());
+        assertEquals(new ClusterCoordinator.Shard(1, 3), clusterCoordinator.currentShard());
+
+        verify(importNodeRepository, times(2)).save(any(ImportNode.class));
+        verify(importNodeRepository, times(2)).deleteAllByHeartbeatAtBefore(anyLong());
+        // The observations are only reloaded once the shard changes
+        verify(weatherDataRepository, times(1)).findLatestTimestamps();
+    }
+
+    @Test
+    void testCurrentShard_TakesOverAfterNodeLeaves() {
+        clusterCoordinator.setEnabled(true);
+        doReturn(List.of(new ImportNode("node-a", 0), new ImportNode("node-b", 0)))
+                .doReturn(List.of(new ImportNode("node-b", 0)))
+                .when(importNodeRepository).findAllByHeartbeatAtGreaterThanEqualOrderByNodeIdAsc(anyLong());
+
+        assertEquals(new ClusterCoordinator.Shard(1, 2), clusterCoordinator.currentShard());
+        assertEquals(ClusterCoordinator.Shard.WHOLE, clusterCoordinator.currentShard());
+
+        verify(weatherDataRepository, times(2)).findLatestTimestamps();
+    }
+
+    @Test
+    void testHoldsLease() {
+        clusterCoordinator.setEnabled(true);
+        ImportNode nodeA = new ImportNode("node-a", 0);
+        ImportNode nodeB = new ImportNode("node-b", 0);
+        doReturn(List.of(nodeA, nodeB))
+                .doReturn(List.of(nodeA, nodeB))
+                .doReturn(List.of(nodeA))
+                .doReturn(List.of(nodeA, nodeB, new ImportNode("node-c", 0)))
+                .when(importNodeRepository).findAllByHeartbeatAtGreaterThanEqualOrderByNodeIdAsc(anyLong());
+
+        clusterCoordinator.currentShard();
+
+        assertTrue(clusterCoordinator.holdsLease());
+        // The own heartbeat has expired
+        assertFalse(clusterCoordinator.holdsLease());
+        // Another node has joined, so the shard of this node has changed
+        assertFalse(clusterCoordinator.holdsLease());
+    }
+
+    @Test
+    void testLeave() {
+        clusterCoordinator.setEnabled(true);
+
+        clusterCoordinator.leave();
+
+        verify(importNodeRepository, times(1)).deleteById("node-b");
+    }
+
+    @Test
+    void testShardOwns() {
+        City city = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        ReflectionTestUtils.setField(city, "id", 4L);
+
+        assertTrue(new ClusterCoordinator.Shard(1, 3).owns(city));
+        assertFalse(new ClusterCoordinator.Shard(2, 3).owns(city));
+        assertTrue(ClusterCoordinator.Shard.WHOLE.owns(city));
+    }
+}
@@ -0,0 +1,62 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.exception.CityNotFoundException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeocodingCacheTest {
+
+    private final GeocodingCache.Place tallinn = new GeocodingCache.Place("Tallinn", 59.4372155, 24.7453688, "EE");
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private MeterRegistry meterRegistry;
+
+    private GeocodingCache geocodingCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        geocodingCache = new GeocodingCache(meterRegistry, 100, Duration.ofHours(1), Duration.ofMinutes(1),
+                                            nanoTime::get);
+    }
+
+    @Test
+    void testFind_Found() {
+        assertEquals(Optional.empty(), geocodingCache.find("tallinn"));
+
+        geocodingCache.putFound("tallinn", tallinn);
+
+        assertEquals(Optional.of(tallinn), geocodingCache.find("tallinn"));
+        assertEquals(1, countRequests("hit"));
+        assertEquals(1, countRequests("miss"));
+        assertEquals(1, meterRegistry.get("geocoding.cache.size").gauge().value());
+    }
+
+    @Test
+    void testFind_NotFound() {
+        geocodingCache.putNotFound("tallinnn");
+
+        assertThrows(CityNotFoundException.class, () -> geocodingCache.find("tallinnn"));
+        assertEquals(1, countRequests("not_found_hit"));
+
+        // Lookups which found no city expire sooner than found cities
+        geocodingCache.putFound("tallinn", tallinn);
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+
+        assertEquals(Optional.empty(), geocodingCache.find("tallinnn"));
+        assertEquals(Optional.of(tallinn), geocodingCache.find("tallinn"));
+    }
+
+    private double countRequests(String result) {
+        return meterRegistry.get(GeocodingCache.REQUESTS).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,152 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.ImportRun;
+import dev.karlkadak.backend.entity.ImportRunCity;
+import dev.karlkadak.backend.entity.ImportStatus;
+import dev.karlkadak.backend.repository.ImportRunCityRepository;
+import dev.karlkadak.backend.repository.ImportRunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImportJournalTest {
+
+    @Mock
+    private ImportRunRepository importRunRepository;
+
+    @Mock
+    private ImportRunCityRepository importRunCityRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private Logger logger;
+
+    private ImportJournal importJournal;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        importJournal = new ImportJournal(importRunRepository, importRunCityRepository,
+                                          new TransactionTemplate(transactionManager), logger);
+        importJournal.setRetention(Duration.ofDays(7));
+    }
+
+    @Test
+    void testStart() {
+        List<ImportRunCity> savedEntries = new ArrayList<>();
+        doAnswer(invocation -> runWithId(invocation.getArgument(0), 3L)).when(importRunRepository)
+                                                                        .save(any(ImportRun.class));
+        doAnswer(invocation -> {
+            savedEntries.addAll(invocation.getArgument(0));
+            return null;
+        }).when(importRunCityRepository).saveAll(anyList());
+
+        long runId = importJournal.start(List.of(new City("Tallinn", 59.4372155, 24.7453688, "EE"),
+                                                 new City("Tartu", 58.3801207, 26.7209911, "EE")));
+
+        assertEquals(3L, runId);
+        assertEquals(2, savedEntries.size());
+        assertTrue(savedEntries.stream().allMatch(entry -> entry.getStatus() == ImportStatus.PENDING));
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void testStart_Unjournaled() {
+        doAnswer(invocation -> runWithId(invocation.getArgument(0), 3L)).when(importRunRepository)
+                                                                        .save(any(ImportRun.class));
+        doThrow(new RuntimeException("Database unavailable")).when(importRunCityRepository).saveAll(anyList());
+
+        long runId = importJournal.start(List.of(new City("Tallinn", 59.4372155, 24.7453688, "EE")));
+        importJournal.record(runId, List.of(1L), ImportStatus.SAVED, null);
+        importJournal.finish(runId);
+
+        // The run is rolled back along with its cities and the import goes on unjournaled
+        assertEquals(ImportJournal.UNJOURNALED_RUN_ID, runId);
+        verify(transactionManager, times(1)).rollback(any());
+        verify(importRunCityRepository, never()).updateStatus(anyLong(), anyCollection(), any(), any());
+        verify(importRunRepository, never()).updateFinishedAt(anyLong(), anyLong());
+        verify(logger, times(1)).warning(anyString());
+    }
+
+    @Test
+    void testRecord_TruncatesError() {
+        importJournal.record(3L, List.of(1L), ImportStatus.FAILED, "x".repeat(1000));
+        importJournal.record(3L, List.of(), ImportStatus.SAVED, null);
+
+        verify(importRunCityRepository, times(1)).updateStatus(eq(3L), eq(List.of(1L)), eq(ImportStatus.FAILED),
+                                                               eq("x".repeat(ImportRunCity.MAX_ERROR_LENGTH)));
+        verifyNoMoreInteractions(importRunCityRepository);
+    }
+
+    @Test
+    void testRecord_LogsFailure() {
+        doThrow(new RuntimeException("Database unavailable")).when(importRunCityRepository)
+                                                             .updateStatus(anyLong(), anyCollection(), any(), any());
+
+        assertDoesNotThrow(() -> importJournal.record(3L, List.of(1L), ImportStatus.SAVED, null));
+
+        verify(logger, times(1)).warning(anyString());
+    }
+
+    @Test
+    void testFinish_DeletesExpiredRuns() {
+        doReturn(2).when(importRunRepository).deleteFinishedStartedBefore(anyLong());
+        long expectedBefore = Instant.now().minus(Duration.ofDays(7)).getEpochSecond();
+
+        importJournal.finish(3L);
+
+        verify(importRunRepository, times(1)).updateFinishedAt(eq(3L), anyLong());
+        // The cities are deleted first as they reference their runs
+        InOrder inOrder = inOrder(importRunCityRepository, importRunRepository);
+        inOrder.verify(importRunCityRepository).deleteByFinishedRunsStartedBefore(longThat(
+                before -> Math.abs(before - expectedBefore) <= 1));
+        inOrder.verify(importRunRepository).deleteFinishedStartedBefore(longThat(
+                before -> Math.abs(before - expectedBefore) <= 1));
+        verify(logger, times(1)).info("Deleted 2 expired import runs.");
+    }
+
+    @Test
+    void testFindUnfinishedRun() {
+        ImportRun latestRun = runWithId(new ImportRun(2000L, 2), 5L);
+        ImportRun olderRun = runWithId(new ImportRun(1000L, 2), 4L);
+        doReturn(List.of(latestRun, olderRun)).when(importRunRepository).findAllByFinishedAtIsNullOrderByIdDesc();
+        doReturn(List.of(8L)).when(importRunCityRepository).findCityIdsByRunIdAndStatus(5L, ImportStatus.PENDING);
+
+        Optional<ImportJournal.UnfinishedRun> unfinishedRun = importJournal.findUnfinishedRun();
+
+        assertEquals(Optional.of(new ImportJournal.UnfinishedRun(5L, List.of(8L))), unfinishedRun);
+        verify(importRunRepository, times(1)).updateFinishedAt(eq(4L), anyLong());
+        verify(importRunRepository, times(0)).updateFinishedAt(eq(5L), anyLong());
+    }
+
+    @Test
+    void testFindUnfinishedRun_AllFinished() {
+        assertTrue(importJournal.findUnfinishedRun().isEmpty());
+
+        verifyNoInteractions(importRunCityRepository);
+    }
+
+    private static ImportRun runWithId(ImportRun run, long id) {
+        ReflectionTestUtils.setField(run, "id", id);
+        return run;
+    }
+}
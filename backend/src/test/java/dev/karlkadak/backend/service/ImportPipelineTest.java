@@ -0,0 +1,121 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.Mockito.*;
+
+class ImportPipelineTest {
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    @Mock
+    private Logger logger;
+
+    private final ImportMetrics importMetrics = new ImportMetrics(new SimpleMeterRegistry());
+
+    private final City city = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testFinish_SavesAllSubmittedResponses() {
+        WeatherDataBatchWriter batchWriter = new WeatherDataBatchWriter(weatherDataRepository, logger, importMetrics,
+                                                                        10, () -> true, _ -> {
+        }, (_, _) -> {
+        });
+        // Single-element queues force the fetching threads to wait for the later stages
+        ImportPipeline pipeline = new ImportPipeline(logger, 1, 2, this::parse, batchWriter);
+        pipeline.start();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i++) {
+                String jsonResponse = String.valueOf(i);
+                executor.execute(() -> pipeline.submit(new ImportPipeline.FetchedResponse(List.of(city),
+                                                                                          jsonResponse, null)));
+            }
+        }
+        pipeline.finish();
+
+        assertEquals(100, batchWriter.getWrittenCount());
+        assertEquals(0, pipeline.getParseQueueDepth());
+        assertEquals(0, pipeline.getPersistQueueDepth());
+        verify(weatherDataRepository, times(10)).saveAll(anyList());
+    }
+
+    @Test
+    void testFinish_IsolatesFailingResponse() {
+        WeatherDataBatchWriter batchWriter = new WeatherDataBatchWriter(weatherDataRepository, logger, importMetrics,
+                                                                        10, () -> true, _ -> {
+        }, (_, _) -> {
+        });
+        ImportPipeline pipeline = new ImportPipeline(logger, 4, 1, this::parse, batchWriter);
+        pipeline.start();
+
+        pipeline.submit(new ImportPipeline.FetchedResponse(List.of(city), "1", null));
+        pipeline.submit(new ImportPipeline.FetchedResponse(List.of(city), "invalid", null));
+        pipeline.submit(new ImportPipeline.FetchedResponse(List.of(city), "2", null));
+        pipeline.finish();
+
+        assertEquals(2, batchWriter.getWrittenCount());
+        verify(logger, times(1)).warning(anyString());
+    }
+
+    @Test
+    void testFinish_WorkerFailsUnexpectedly() {
+        WeatherDataBatchWriter batchWriter = new WeatherDataBatchWriter(weatherDataRepository, logger, importMetrics,
+                                                                        10, () -> true, _ -> {
+        }, (_, _) -> {
+        });
+        ImportPipeline pipeline = new ImportPipeline(logger, 1, 1, _ -> {
+            throw new StackOverflowError();
+        }, batchWriter);
+        pipeline.start();
+
+        // The failed worker keeps taking the responses, so neither submitting nor finishing blocks
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 10; i++) pipeline.submit(new ImportPipeline.FetchedResponse(List.of(city), "1", null));
+            pipeline.finish();
+        });
+
+        assertEquals(0, batchWriter.getWrittenCount());
+        verify(logger, times(1)).severe(anyString());
+    }
+
+    @Test
+    void testFinish_NothingSubmitted() {
+        WeatherDataBatchWriter batchWriter = new WeatherDataBatchWriter(weatherDataRepository, logger, importMetrics,
+                                                                        10, () -> true, _ -> {
+        }, (_, _) -> {
+        });
+        ImportPipeline pipeline = new ImportPipeline(logger, 4, 2, this::parse, batchWriter);
+        pipeline.start();
+
+        pipeline.finish();
+
+        verifyNoInteractions(weatherDataRepository, logger);
+    }
+
+    private List<WeatherData> parse(ImportPipeline.FetchedResponse fetchedResponse) {
+        long timestamp = Long.parseLong(fetchedResponse.jsonResponse());
+        return List.of(new WeatherData(city, timestamp, null, null, null, null));
+    }
+}
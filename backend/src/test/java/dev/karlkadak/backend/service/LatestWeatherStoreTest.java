@@ -0,0 +1,97 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LatestWeatherStoreTest {
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    private LatestWeatherStore latestWeatherStore;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        latestWeatherStore = new LatestWeatherStore(weatherDataRepository);
+        latestWeatherStore.setRefreshLookback(Duration.ofMinutes(30));
+    }
+
+    @Test
+    void testWarmUp() {
+        WeatherDataRepository.LatestWeather latest = latestWeather(1L, 10000L);
+        WeatherDataRepository.LatestWeather outdated = latestWeather(2L, 4000L);
+        doReturn(List.of(latest, outdated)).when(weatherDataRepository).findLatestWeather();
+        latestWeatherStore.onSaved(List.of(new WeatherData(city(2L), 5000L, 1D, 1D, 1, "02d")));
+
+        latestWeatherStore.warmUp();
+
+        assertEquals(Optional.of(new LatestWeatherStore.Reading(10000L, 10D, null, null, "01d")),
+                     latestWeatherStore.find(1L));
+        // The loaded weather is merged with the readings recorded in the meantime
+        assertEquals(5000L, latestWeatherStore.find(2L).orElseThrow().timestamp());
+    }
+
+    @Test
+    void testRefresh() {
+        latestWeatherStore.onSaved(List.of(new WeatherData(city(1L), 10000L, 1D, 1D, 1, "02d")));
+        WeatherDataRepository.LatestWeather newer = latestWeather(2L, 9000L);
+        doReturn(List.of(newer)).when(weatherDataRepository).findWeatherObservedAfter(anyLong());
+
+        latestWeatherStore.refresh();
+
+        // Only the observations since the newest reading, less the lookback, are read
+        verify(weatherDataRepository, times(1)).findWeatherObservedAfter(10000L - 1800L);
+        verify(weatherDataRepository, never()).findLatestWeather();
+        assertEquals(9000L, latestWeatherStore.find(2L).orElseThrow().timestamp());
+        assertEquals(10000L, latestWeatherStore.find(1L).orElseThrow().timestamp());
+    }
+
+    @Test
+    void testOnSaved_KeepsLatestReading() {
+        City city = city(1L);
+
+        latestWeatherStore.onSaved(List.of(new WeatherData(city, 10000L, 10D, 5D, 60, "01d")));
+        long version = latestWeatherStore.version();
+        latestWeatherStore.onSaved(List.of(new WeatherData(city, 9000L, 8D, 4D, 70, "02d")));
+
+        assertEquals(10000L, latestWeatherStore.find(1L).orElseThrow().timestamp());
+        assertEquals(version, latestWeatherStore.version());
+
+        latestWeatherStore.record(new WeatherData(city, 11000L, null, null, null, null));
+
+        assertEquals(Optional.of(new LatestWeatherStore.Reading(11000L, null, null, null, null)),
+                     latestWeatherStore.find(1L));
+        assertNotEquals(version, latestWeatherStore.version());
+        assertEquals(Optional.empty(), latestWeatherStore.find(2L));
+        verifyNoInteractions(weatherDataRepository);
+    }
+
+    private static WeatherDataRepository.LatestWeather latestWeather(long cityId, long timestamp) {
+        WeatherDataRepository.LatestWeather latest = mock(WeatherDataRepository.LatestWeather.class);
+        doReturn(cityId).when(latest).getCityId();
+        doReturn(timestamp).when(latest).getTimestamp();
+        doReturn(10D).when(latest).getAirTemperature();
+        doReturn("01d").when(latest).getIconCode();
+        return latest;
+    }
+
+    private static City city(long id) {
+        City city = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        ReflectionTestUtils.setField(city, "id", id);
+        return city;
+    }
+}
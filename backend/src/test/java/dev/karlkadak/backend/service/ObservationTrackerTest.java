@@ -0,0 +1,52 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ObservationTrackerTest {
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    private ObservationTracker observationTracker;
+
+    private final City city = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        observationTracker = new ObservationTracker(weatherDataRepository);
+    }
+
+    @Test
+    void testWarmUp() {
+        WeatherDataRepository.CityTimestamp latest = mock(WeatherDataRepository.CityTimestamp.class);
+        doReturn(city.getId()).when(latest).getCityId();
+        doReturn(10000L).when(latest).getTimestamp();
+        doReturn(List.of(latest)).when(weatherDataRepository).findLatestTimestamps();
+
+        observationTracker.warmUp();
+
+        assertFalse(observationTracker.isNew(new WeatherData(city, 10000L, null, null, null, null)));
+        assertTrue(observationTracker.isNew(new WeatherData(city, 10001L, null, null, null, null)));
+    }
+
+    @Test
+    void testRecord_IgnoresOlderObservations() {
+        observationTracker.record(new WeatherData(city, 10000L, null, null, null, null));
+        observationTracker.record(new WeatherData(city, 9000L, null, null, null, null));
+
+        assertFalse(observationTracker.isNew(new WeatherData(city, 10000L, null, null, null, null)));
+        assertTrue(observationTracker.isNew(new WeatherData(city, 10500L, null, null, null, null)));
+    }
+}
@@ -0,0 +1,82 @@
+package dev.karlkadak.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class OfflineGazetteerTest {
+
+    @Mock
+    private Logger logger;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testFind()
+            throws IOException {
+        OfflineGazetteer offlineGazetteer = new OfflineGazetteer(logger, writeDataset(
+                row("Tallinn", "Tallinn", "59.43696", "24.75353", "EE", "394024"),
+                row("Paris", "Paris", "33.66094", "-95.55551", "US", "24782"),
+                row("Paris", "Paris", "48.85341", "2.3488", "FR", "2138551"),
+                row("São Paulo", "Sao Paulo", "-23.5475", "-46.63611", "BR", "10021295"),
+                "malformed line",
+                row("Tartu", "Tartu", "not a number", "26.72509", "EE", "91407")).toString());
+
+        assertEquals(Optional.of(new GeocodingCache.Place("Tallinn", 59.43696, 24.75353, "EE")),
+                     offlineGazetteer.find("tallinn"));
+        assertEquals("FR", offlineGazetteer.find("paris").orElseThrow().countryCode());
+        assertEquals("São Paulo", offlineGazetteer.find("sao paulo").orElseThrow().name());
+        assertEquals(Optional.empty(), offlineGazetteer.find("tartu"));
+        assertEquals(Optional.empty(), offlineGazetteer.find("narva"));
+        assertEquals(List.of("paris", "sao paulo", "tallinn"),
+                     offlineGazetteer.entries().stream().map(OfflineGazetteer.Entry::key).toList());
+        verify(logger, times(1)).info(anyString());
+    }
+
+    @Test
+    void testFind_WithoutDataset() {
+        OfflineGazetteer disabledGazetteer = new OfflineGazetteer(logger, "");
+        OfflineGazetteer missingGazetteer = new OfflineGazetteer(logger, tempDir.resolve("missing.txt").toString());
+
+        assertEquals(0, disabledGazetteer.size());
+        assertEquals(0, missingGazetteer.size());
+        assertEquals(Optional.empty(), missingGazetteer.find("tallinn"));
+        verify(logger, times(1)).warning(anyString());
+    }
+
+    private Path writeDataset(String... lines)
+            throws IOException {
+        Path dataset = tempDir.resolve("cities.txt");
+        Files.write(dataset, List.of(lines), StandardCharsets.UTF_8);
+        return dataset;
+    }
+
+    /**
+     * @return a line in the format of the GeoNames dataset with the given values and placeholders for other columns
+     */
+    private static String row(String name, String asciiName, String latitude, String longitude, String countryCode,
+                              String population) {
+        return String.join("\t", "1", name, asciiName, "", latitude, longitude, "P", "PPLC", countryCode, "", "", "",
+                           "", "", population, "", "0", "Europe/Tallinn", "2024-01-01");
+    }
+}
@@ -0,0 +1,120 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.cron.ImportMode;
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.repository.CityRepository;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RefreshPlannerTest {
+
+    @Mock
+    private CityRepository cityRepository;
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    private RefreshPlanner refreshPlanner;
+
+    private final City tallinn = cityWithId("Tallinn", 1L);
+
+    private final City tartu = cityWithId("Tartu", 2L);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        refreshPlanner = new RefreshPlanner(cityRepository, weatherDataRepository);
+        refreshPlanner.setImportMode(ImportMode.ADAPTIVE);
+        refreshPlanner.setMinInterval(Duration.ofMinutes(10));
+        refreshPlanner.setMaxInterval(Duration.ofMinutes(60));
+        refreshPlanner.setTemperatureScale(1.5);
+        refreshPlanner.setWindScale(2.0);
+    }
+
+    @Test
+    void testComputeInterval() {
+        List<WeatherData> stable = List.of(new WeatherData(tallinn, 3L, 10D, 2D, 60, null),
+                                           new WeatherData(tallinn, 2L, 10D, 2D, 60, null),
+                                           new WeatherData(tallinn, 1L, 10D, 2D, 60, null));
+        List<WeatherData> volatileWind = List.of(new WeatherData(tallinn, 3L, 10D, 12D, 60, null),
+                                                 new WeatherData(tallinn, 2L, 10D, 2D, 60, null),
+                                                 new WeatherData(tallinn, 1L, 10D, 7D, 60, null));
+        List<WeatherData> slightlyChanging = List.of(new WeatherData(tallinn, 2L, 10.75, null, 60, null),
+                                                     new WeatherData(tallinn, 1L, 10D, null, 60, null));
+
+        assertEquals(3600, refreshPlanner.computeInterval(stable));
+        assertEquals(600, refreshPlanner.computeInterval(volatileWind));
+        // Standard deviation of 0.375 degrees is a quarter of the temperature scale
+        assertEquals(2850, refreshPlanner.computeInterval(slightlyChanging));
+        // Standard deviation of 0.4 degrees is rounded to a quarter of the temperature scale as well
+        assertEquals(2850, refreshPlanner.computeInterval(List.of(new WeatherData(tallinn, 2L, 10.8, null, 60, null),
+                                                                  new WeatherData(tallinn, 1L, 10D, null, 60, null))));
+        assertEquals(600, refreshPlanner.computeInterval(List.of()));
+    }
+
+    @Test
+    void testPollDueCities() {
+        long now = Instant.now().getEpochSecond();
+        tartu.setImportingData(false);
+        doReturn(List.of(tallinn, tartu)).when(cityRepository).findAllByImportingDataTrue();
+        doReturn(List.of(tallinn, tartu)).when(cityRepository).findAllById(anyIterable());
+
+        refreshPlanner.warmUp();
+
+        assertEquals(List.of(tallinn), refreshPlanner.pollDueCities(now));
+        // Tallinn is planned again after its interval, Tartu is dropped as it is no longer tracked
+        assertEquals(List.of(), refreshPlanner.pollDueCities(now + 599));
+        assertEquals(List.of(tallinn), refreshPlanner.pollDueCities(now + 600));
+        verify(cityRepository, times(2)).findAllById(anyIterable());
+    }
+
+    @Test
+    void testOnSaved() {
+        long now = Instant.now().getEpochSecond();
+        List<WeatherData> stableTartu = List.of(new WeatherData(tartu, 2L, 10D, 2D, 60, null),
+                                                new WeatherData(tartu, 1L, 10D, 2D, 60, null));
+        doReturn(stableTartu).when(weatherDataRepository).findLatestByCityIds(anyCollection(), anyLong(), eq(8L));
+        refreshPlanner.track(tallinn);
+
+        refreshPlanner.onSaved(List.of(new WeatherData(tallinn, 1L, 10D, 2D, 60, null),
+                                       new WeatherData(tartu, 2L, 10D, 2D, 60, null)));
+
+        // The recent weather of the whole batch is read at once
+        verify(weatherDataRepository, times(1)).findLatestByCityIds(argThat(ids -> ids.containsAll(List.of(1L, 2L))),
+                                                                   longThat(since -> since >= now - 8 * 3600),
+                                                                   eq(8L));
+        verify(cityRepository, times(1)).updateImportSchedules(eq(List.of(1L)), anyLong(), eq(600L));
+        verify(cityRepository, times(1)).updateImportSchedules(eq(List.of(2L)), anyLong(), eq(3600L));
+    }
+
+    @Test
+    void testInactiveOutsideAdaptiveMode() {
+        refreshPlanner.setImportMode(ImportMode.CRON);
+
+        refreshPlanner.warmUp();
+        refreshPlanner.track(tallinn);
+        refreshPlanner.onSaved(List.of(new WeatherData(tallinn, 1L, 10D, 2D, 60, null)));
+
+        assertEquals(List.of(), refreshPlanner.pollDueCities(Long.MAX_VALUE));
+        verifyNoInteractions(cityRepository, weatherDataRepository);
+    }
+
+    private static City cityWithId(String name, long id) {
+        City city = new City(name, 59.4372155, 24.7453688, "EE");
+        ReflectionTestUtils.setField(city, "id", id);
+        return city;
+    }
+}
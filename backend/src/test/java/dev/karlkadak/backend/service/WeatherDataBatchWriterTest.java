@@ -0,0 +1,133 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WeatherDataBatchWriterTest {
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    @Mock
+    private Logger logger;
+
+    private final ImportMetrics importMetrics = new ImportMetrics(new SimpleMeterRegistry());
+
+    private final City city = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testAdd_SavesFullBatches() {
+        List<WeatherData> writtenData = new ArrayList<>();
+        WeatherDataBatchWriter batchWriter = new WeatherDataBatchWriter(weatherDataRepository, logger, importMetrics, 2,
+                                                                        () -> true, writtenData::addAll, (_, _) -> {
+        });
+
+        for (int i = 0; i < 5; i++) batchWriter.add(new WeatherData(city, 10000L + i, 10D, 5D, 60, "01d"));
+
+        verify(weatherDataRepository, times(2)).saveAll(anyList());
+        assertEquals(4, batchWriter.getWrittenCount());
+
+        batchWriter.flush();
+
+        verify(weatherDataRepository, times(3)).saveAll(anyList());
+        assertEquals(5, batchWriter.getWrittenCount());
+        assertEquals(5, writtenData.size());
+    }
+
+    @Test
+    void testFlush_EmptyBatch() {
+        WeatherDataBatchWriter batchWriter = new WeatherDataBatchWriter(weatherDataRepository, logger, importMetrics,
+                                                                        2, () -> true, _ -> {
+        }, (_, _) -> {
+        });
+
+        batchWriter.flush();
+
+        verifyNoInteractions(weatherDataRepository);
+    }
+
+    @Test
+    void testFlush_FailedBatch() {
+        List<WeatherData> writtenData = new ArrayList<>();
+        List<String> failureReasons = new ArrayList<>();
+        WeatherDataBatchWriter batchWriter = new WeatherDataBatchWriter(
+                weatherDataRepository, logger, importMetrics, 10, () -> true, writtenData::addAll,
+                (failedData, reason) -> failureReasons.add(failedData.size() + " " + reason));
+        doThrow(new RuntimeException("Database unavailable")).when(weatherDataRepository).saveAll(anyList());
+
+        batchWriter.add(new WeatherData(city, 10000L, 10D, 5D, 60, "01d"));
+        batchWriter.add(new WeatherData(city, 10001L, 10D, 5D, 60, "01d"));
+        batchWriter.flush();
+
+        assertEquals(0, batchWriter.getWrittenCount());
+        assertEquals(2, batchWriter.getFailedCount());
+        assertTrue(writtenData.isEmpty());
+        assertEquals(List.of("2 Database unavailable"), failureReasons);
+        verify(logger, times(1)).warning(anyString());
+    }
+
+    @Test
+    void testFlush_LostLease() {
+        List<WeatherData> writtenData = new ArrayList<>();
+        List<String> failureReasons = new ArrayList<>();
+        WeatherDataBatchWriter batchWriter = new WeatherDataBatchWriter(
+                weatherDataRepository, logger, importMetrics, 10, () -> false, writtenData::addAll,
+                (failedData, reason) -> failureReasons.add(failedData.size() + " " + reason));
+
+        batchWriter.add(new WeatherData(city, 10000L, 10D, 5D, 60, "01d"));
+        batchWriter.flush();
+
+        assertEquals(1, batchWriter.getFailedCount());
+        assertTrue(writtenData.isEmpty());
+        assertEquals(List.of("1 Lost the lease of the imported shard"), failureReasons);
+        verifyNoInteractions(weatherDataRepository);
+    }
+
+    @Test
+    void testFlush_BatchWithDuplicate() {
+        List<WeatherData> writtenData = new ArrayList<>();
+        List<String> failureReasons = new ArrayList<>();
+        WeatherDataBatchWriter batchWriter = new WeatherDataBatchWriter(
+                weatherDataRepository, logger, importMetrics, 10, () -> true, writtenData::addAll,
+                (failedData, reason) -> failureReasons.add(failedData.size() + " " + reason));
+        doThrow(new DataIntegrityViolationException("Duplicate")).when(weatherDataRepository).saveAll(anyList());
+        doThrow(new DataIntegrityViolationException("Duplicate")).when(weatherDataRepository)
+                                                                 .save(observedAt(10001L));
+        doThrow(new RuntimeException("Database unavailable")).when(weatherDataRepository).save(observedAt(10002L));
+
+        batchWriter.add(new WeatherData(city, 10000L, 10D, 5D, 60, "01d"));
+        batchWriter.add(new WeatherData(city, 10001L, 10D, 5D, 60, "01d"));
+        batchWriter.add(new WeatherData(city, 10002L, 10D, 5D, 60, "01d"));
+        batchWriter.flush();
+
+        verify(weatherDataRepository, times(3)).save(any(WeatherData.class));
+        assertEquals(1, batchWriter.getWrittenCount());
+        assertEquals(1, batchWriter.getFailedCount());
+        assertEquals(List.of(10000L, 10001L), writtenData.stream().map(WeatherData::getTimestamp).toList());
+        assertEquals(List.of("1 Database unavailable"), failureReasons);
+        verify(logger, times(1)).info(anyString());
+    }
+
+    private static WeatherData observedAt(long timestamp) {
+        return argThat((WeatherData data) -> data.getTimestamp() == timestamp);
+    }
+}
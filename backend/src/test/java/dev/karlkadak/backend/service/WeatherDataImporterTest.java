@@ -1,22 +1,28 @@
 package dev.karlkadak.backend.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.karlkadak.backend.client.CircuitBreaker;
+import dev.karlkadak.backend.client.RetryPolicy;
+import dev.karlkadak.backend.client.UpstreamClient;
 import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.ImportStatus;
 import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.exception.UpstreamRequestException;
 import dev.karlkadak.backend.repository.CityRepository;
 import dev.karlkadak.backend.repository.WeatherDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.logging.Logger;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class WeatherDataImporterTest {
@@ -28,22 +34,46 @@ class WeatherDataImporterTest {
     private WeatherDataRepository weatherDataRepository;
 
     @Mock
-    private RestTemplate restTemplate;
+    private UpstreamClient upstreamClient;
 
-    @Mock
-    private ObjectMapper objectMapper;
+    private final WeatherPayloadDecoder weatherPayloadDecoder = new WeatherPayloadDecoder(new ObjectMapper());
+
+    private final RetryPolicy retryPolicy = new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    private ObservationTracker observationTracker;
+
+    private CircuitBreaker weatherCircuitBreaker;
+
+    private SimpleMeterRegistry meterRegistry;
 
     @Mock
     private Logger logger;
 
+    @Mock
+    private WeatherDataSaveListener saveListener;
+
+    @Mock
+    private ClusterCoordinator clusterCoordinator;
+
+    @Mock
+    private ImportJournal importJournal;
+
     @InjectMocks
     private WeatherDataImporter weatherDataImporter;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        weatherDataImporter = new WeatherDataImporter(weatherDataRepository, cityRepository, logger, restTemplate,
-                                                      objectMapper);
+        observationTracker = new ObservationTracker(weatherDataRepository);
+        weatherCircuitBreaker = new CircuitBreaker("weather", 1, Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        weatherDataImporter = new WeatherDataImporter(weatherDataRepository, cityRepository, logger, upstreamClient,
+                                                      weatherPayloadDecoder, observationTracker,
+                                                      weatherCircuitBreaker, retryPolicy, List.of(saveListener),
+                                                      clusterCoordinator, new ImportMetrics(meterRegistry),
+                                                      importJournal);
+        doReturn(ClusterCoordinator.Shard.WHOLE).when(clusterCoordinator).currentShard();
+        doReturn(true).when(clusterCoordinator).holdsLease();
     }
 
     @Test
@@ -58,12 +88,10 @@ class WeatherDataImporterTest {
     }
 
     @Test
-    void testDefaultImport_LogsError()
-            throws JsonProcessingException {
+    void testDefaultImport_LogsError() {
         List<City> cities = List.of(new City("City1", 1.0, 1.0, "EE"));
-        Map<String, Object> responseMap = new HashMap<>();
         doReturn(cities).when(cityRepository).findAllByImportingDataTrue();
-        doReturn(responseMap).when(objectMapper).readValue(anyString(), any(TypeReference.class));
+        doReturn("{}").when(upstreamClient).get(anyString(), any());
 
         weatherDataImporter.defaultImport();
 
@@ -73,9 +101,6 @@ class WeatherDataImporterTest {
 
     @Test
     void testDefaultImport_WithCitiesToFetch_WithAllData() {
-        // Don't mock the ObjectMapper for this test, otherwise it returns null values leading to throwing an exception
-        weatherDataImporter = new WeatherDataImporter(weatherDataRepository, cityRepository, logger, restTemplate,
-                                                      new ObjectMapper());
 
         City city1 = new City("Tallinn", 59.4372155, 24.7453688, "EE");
         List<City> cities = List.of(city1);
@@ -97,30 +122,233 @@ class WeatherDataImporterTest {
                 }
                 """;
         doReturn(cities).when(cityRepository).findAllByImportingDataTrue();
-        doReturn(response).when(restTemplate).getForObject(anyString(), eq(String.class));
+        doReturn(response).when(upstreamClient).get(anyString(), any());
 
         weatherDataImporter.defaultImport();
 
         verify(logger, times(cities.size() + 2)).info(anyString());
         verify(cityRepository, times(1)).findAllByImportingDataTrue();
-        verify(weatherDataRepository, times(1)).save(any(WeatherData.class));
+        verify(weatherDataRepository, times(1)).saveAll(anyList());
+        verify(saveListener, times(1)).onSaved(anyList());
     }
 
     @Test
     void testDefaultImport_WithCitiesToFetch_WithRequiredData() {
-        // Don't mock the ObjectMapper for this test, otherwise it returns null values leading to throwing an exception
-        weatherDataImporter = new WeatherDataImporter(weatherDataRepository, cityRepository, logger, restTemplate,
-                                                      new ObjectMapper());
 
         City city1 = new City("Tallinn", 59.4372155, 24.7453688, "EE");
         List<City> cities = List.of(city1);
         doReturn(cities).when(cityRepository).findAllByImportingDataTrue();
-        doReturn("{ \"dt\": 1661870592 } ").when(restTemplate).getForObject(anyString(), eq(String.class));
+        doReturn("{ \"dt\": 1661870592 } ").when(upstreamClient).get(anyString(), any());
 
         weatherDataImporter.defaultImport();
 
         verify(logger, times(cities.size() + 2)).info(anyString());
         verify(cityRepository, times(1)).findAllByImportingDataTrue();
+        verify(weatherDataRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void testDefaultImport_MultipleCities_IsolatesFailures() {
+        weatherDataImporter.setConcurrencyLimit(2);
+        weatherDataImporter.setBatchSize(50);
+
+        List<City> cities = List.of(new City("Tallinn", 59.4372155, 24.7453688, "EE"),
+                                    new City("Tartu", 58.3801207, 26.7209911, "EE"),
+                                    new City("Narva", 59.3772, 28.1903, "EE"));
+        doReturn(cities).when(cityRepository).findAllByImportingDataTrue();
+        // Fail the request for Tartu only
+        when(upstreamClient.get(anyString(), any())).thenAnswer(
+                invocation -> ((String) invocation.getArgument(0)).contains("lat=58.") ? "{}"
+                                                                                        : "{ \"dt\": 1661870592 }");
+
+        weatherDataImporter.defaultImport();
+
+        verify(logger, times(1)).warning(anyString());
+        verify(logger, times(1)).info("Saved weather data for 2 cities, skipped 0 cities as unchanged.");
+        verify(weatherDataRepository, times(1)).saveAll(anyList());
+        verify(importJournal, times(1)).start(cities);
+        verify(importJournal, times(1)).record(anyLong(), eq(List.of(0L)), eq(ImportStatus.FAILED), anyString());
+        verify(importJournal, times(1)).record(anyLong(), eq(List.of(0L, 0L)), eq(ImportStatus.SAVED), isNull());
+        verify(importJournal, times(1)).finish(anyLong());
+        assertEquals(2, countCities("saved", "none"));
+        assertEquals(1, countCities("failed", "invalid_response"));
+        assertEquals(1, meterRegistry.get("weather.import.cycle").timer().count());
+        assertEquals(3, meterRegistry.get("weather.import.fetch").timer().count());
+    }
+
+    @Test
+    void testDefaultImport_JournalsFailedBatch() {
+        weatherDataImporter.setBatchSize(50);
+        doReturn(List.of(new City("Tallinn", 59.4372155, 24.7453688, "EE"))).when(cityRepository)
+                                                                             .findAllByImportingDataTrue();
+        doReturn("{ \"dt\": 1661870592 } ").when(upstreamClient).get(anyString(), any());
+        doThrow(new RuntimeException("Database unavailable")).when(weatherDataRepository).saveAll(anyList());
+
+        weatherDataImporter.defaultImport();
+
+        // The cities of the failed batch are not left pending
+        verify(importJournal, times(1)).record(anyLong(), eq(List.of(0L)), eq(ImportStatus.FAILED),
+                                               eq("Database unavailable"));
+        verify(importJournal, times(0)).record(anyLong(), anyList(), eq(ImportStatus.SAVED), any());
+    }
+
+    @Test
+    void testDefaultImport_CoalescesNearbyCities() {
+        weatherDataImporter.setBatchSize(50);
+        weatherDataImporter.setCoalescingPrecision(4);
+
+        List<City> cities = List.of(new City("Tallinn", 59.4372155, 24.7453688, "EE"),
+                                    new City("Tartu", 58.3801207, 26.7209911, "EE"),
+                                    new City("Lasnamäe", 59.4270, 24.7900, "EE"));
+        doReturn(cities).when(cityRepository).findAllByImportingDataTrue();
+        doReturn("{ \"dt\": 1661870592 } ").when(upstreamClient).get(anyString(), any());
+
+        weatherDataImporter.defaultImport();
+
+        // Tallinn and Lasnamäe share a geohash cell and are fetched with a single request
+        verify(upstreamClient, times(2)).get(anyString(), any());
+        verify(logger, times(1)).info("Saved weather data for 3 cities, skipped 0 cities as unchanged.");
+        verify(logger, times(1)).info("Coalesced 3 cities into 2 upstream requests, saved 1 requests.");
+        verify(weatherDataRepository, times(1)).saveAll(anyList());
+        verify(saveListener, times(1)).onSaved(argThat(savedData -> savedData.size() == 3));
+    }
+
+    @Test
+    void testSetCoalescingPrecision_RejectsUnsupportedValues() {
+        assertThrows(IllegalArgumentException.class, () -> weatherDataImporter.setCoalescingPrecision(-1));
+        assertThrows(IllegalArgumentException.class, () -> weatherDataImporter.setCoalescingPrecision(13));
+        assertDoesNotThrow(() -> weatherDataImporter.setCoalescingPrecision(0));
+        assertDoesNotThrow(() -> weatherDataImporter.setCoalescingPrecision(12));
+    }
+
+    @Test
+    void testDefaultImport_SkipsUnchangedObservation() {
+        City city1 = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        observationTracker.record(new WeatherData(city1, 1661870592L, null, null, null, null));
+        doReturn(List.of(city1)).when(cityRepository).findAllByImportingDataTrue();
+        doReturn("{ \"dt\": 1661870592 } ").when(upstreamClient).get(anyString(), any());
+
+        weatherDataImporter.defaultImport();
+
+        verify(logger, times(1)).info("Saved weather data for 0 cities, skipped 1 cities as unchanged.");
+        verify(weatherDataRepository, times(0)).saveAll(anyList());
+        assertEquals(1, countCities("skipped", "unchanged"));
+    }
+
+    @Test
+    void testFetchAndSave_SkipsUnchangedObservation() {
+        City city1 = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        doReturn("{ \"dt\": 1661870592 } ").when(upstreamClient).get(anyString(), any());
+
+        weatherDataImporter.fetchAndSave(city1);
+        weatherDataImporter.fetchAndSave(city1);
+
         verify(weatherDataRepository, times(1)).save(any(WeatherData.class));
+        verify(saveListener, times(1)).onSaved(anyList());
+    }
+
+    @Test
+    void testFetchAndSave_IsolatesFailingListener() {
+        City city1 = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        doReturn("{ \"dt\": 1661870592 } ").when(upstreamClient).get(anyString(), any());
+        doThrow(new IllegalStateException("Listener failure")).when(saveListener).onSaved(anyList());
+
+        assertDoesNotThrow(() -> weatherDataImporter.fetchAndSave(city1));
+
+        verify(weatherDataRepository, times(1)).save(any(WeatherData.class));
+        verify(logger, times(1)).warning(anyString());
+    }
+
+    @Test
+    void testSliceImport() {
+        City city1 = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        doReturn(List.of(city1)).when(cityRepository).findAllByImportingDataTrueInSlice(3, 15);
+        doReturn("{ \"dt\": 1661870592 } ").when(upstreamClient).get(anyString(), any());
+
+        weatherDataImporter.sliceImport(3, 15);
+
+        verify(cityRepository, times(1)).findAllByImportingDataTrueInSlice(3, 15);
+        verify(cityRepository, times(0)).findAllByImportingDataTrue();
+        verify(weatherDataRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void testDefaultImport_ImportsOwnShard() {
+        City city1 = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        doReturn(new ClusterCoordinator.Shard(1, 3)).when(clusterCoordinator).currentShard();
+        doReturn(List.of(city1)).when(cityRepository).findAllByImportingDataTrueInSlice(1, 3);
+        doReturn("{ \"dt\": 1661870592 } ").when(upstreamClient).get(anyString(), any());
+
+        weatherDataImporter.defaultImport();
+
+        verify(cityRepository, times(1)).findAllByImportingDataTrueInSlice(1, 3);
+        verify(cityRepository, times(0)).findAllByImportingDataTrue();
+        verify(weatherDataRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void testImportCities_SkipsCitiesOfOtherShards() {
+        City city1 = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        ReflectionTestUtils.setField(city1, "id", 4L);
+        City city2 = new City("Tartu", 58.3801207, 26.7209911, "EE");
+        ReflectionTestUtils.setField(city2, "id", 5L);
+        doReturn(new ClusterCoordinator.Shard(1, 3)).when(clusterCoordinator).currentShard();
+        doReturn("{ \"dt\": 1661870592 } ").when(upstreamClient).get(anyString(), any());
+
+        weatherDataImporter.importCities(List.of(city1, city2));
+
+        verify(upstreamClient, times(1)).get(contains("lat=59."), any());
+        verify(logger, times(1)).info("Saved weather data for 1 cities, skipped 0 cities as unchanged.");
+    }
+
+    @Test
+    void testResumeUnfinishedImport() {
+        City city1 = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        City city2 = new City("Tartu", 58.3801207, 26.7209911, "EE");
+        city2.setImportingData(false);
+        doReturn(Optional.of(new ImportJournal.UnfinishedRun(7L, List.of(1L, 2L)))).when(importJournal)
+                                                                                 .findUnfinishedRun();
+        doReturn(List.of(city1, city2)).when(cityRepository).findAllById(List.of(1L, 2L));
+        doReturn("{ \"dt\": 1661870592 } ").when(upstreamClient).get(anyString(), any());
+
+        assertTrue(weatherDataImporter.resumeUnfinishedImport());
+
+        // Only the remaining city which is still tracked is fetched, within the interrupted run
+        verify(upstreamClient, times(1)).get(contains("lat=59."), any());
+        verify(importJournal, times(0)).start(anyList());
+        verify(importJournal, times(1)).record(eq(7L), anyList(), eq(ImportStatus.SAVED), isNull());
+        verify(importJournal, times(1)).finish(7L);
+    }
+
+    @Test
+    void testResumeUnfinishedImport_NothingToResume() {
+        assertFalse(weatherDataImporter.resumeUnfinishedImport());
+
+        verifyNoInteractions(upstreamClient, cityRepository);
+    }
+
+    @Test
+    void testDefaultImport_StopsWhenUpstreamUnavailable() {
+        weatherDataImporter.setConcurrencyLimit(1);
+        List<City> cities = List.of(new City("Tallinn", 59.4372155, 24.7453688, "EE"),
+                                    new City("Tartu", 58.3801207, 26.7209911, "EE"),
+                                    new City("Narva", 59.3772, 28.1903, "EE"));
+        doReturn(cities).when(cityRepository).findAllByImportingDataTrue();
+        doThrow(new UpstreamRequestException(503)).when(upstreamClient).get(anyString(), any());
+
+        weatherDataImporter.defaultImport();
+
+        // The breaker opens after the first failure, the remaining cities are not fetched
+        verify(upstreamClient, times(1)).get(anyString(), any());
+        verify(logger, times(1)).warning("Weather data upstream is unavailable, skipped fetching 2 cities.");
+        verifyNoInteractions(weatherDataRepository);
+        verify(importJournal, times(1)).record(anyLong(), anyList(), eq(ImportStatus.FAILED),
+                                               eq("Weather data upstream is unavailable"));
+        assertEquals(1, countCities("failed", "upstream_error"));
+        assertEquals(2, countCities("skipped", "upstream_unavailable"));
+    }
+
+    private double countCities(String result, String reason) {
+        return meterRegistry.get(ImportMetrics.CITIES).tags("result", result, "reason", reason).counter().count();
     }
-}
\ No newline at end of file
+}
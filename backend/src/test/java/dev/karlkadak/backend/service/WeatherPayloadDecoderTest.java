@@ -0,0 +1,81 @@
+package dev.karlkadak.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.WeatherData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeatherPayloadDecoderTest {
+
+    private final WeatherPayloadDecoder weatherPayloadDecoder = new WeatherPayloadDecoder(new ObjectMapper());
+
+    private final City city = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+
+    @Test
+    void testDecode_WithAllData()
+            throws IOException {
+        String payload = """
+                {
+                  "coord": { "lon": 24.7454, "lat": 59.4372 },
+                  "weather": [
+                    { "id": 800, "main": "Clear", "icon": "01d" },
+                    { "id": 701, "main": "Mist", "icon": "50d" }
+                  ],
+                  "main": { "temp": 29.48, "feels_like": 30.1, "humidity": 64 },
+                  "wind": { "speed": 3.62, "deg": 350 },
+                  "dt": 1661870592,
+                  "name": "Tallinn"
+                }
+                """;
+
+        WeatherData weatherData = weatherPayloadDecoder.decode(city, payload);
+
+        assertEquals(city, weatherData.getCity());
+        assertEquals(1661870592L, weatherData.getTimestamp());
+        assertEquals(29.48, weatherData.getAirTemperature());
+        assertEquals(3.62, weatherData.getWindSpeed());
+        assertEquals(64, weatherData.getHumidity());
+        assertEquals("01d", weatherData.getIconCode());
+    }
+
+    @Test
+    void testDecode_CoercesNumbers()
+            throws IOException {
+        String payload = """
+                { "main": { "temp": 5, "humidity": 64.0 }, "wind": { "speed": 3 }, "dt": 1661870592 }
+                """;
+
+        WeatherData weatherData = weatherPayloadDecoder.decode(city, payload);
+
+        assertEquals(5.0, weatherData.getAirTemperature());
+        assertEquals(3.0, weatherData.getWindSpeed());
+        assertEquals(64, weatherData.getHumidity());
+    }
+
+    @Test
+    void testDecode_WithRequiredData()
+            throws IOException {
+        String payload = """
+                { "weather": [], "main": null, "wind": "calm", "dt": 1661870592 }
+                """;
+
+        WeatherData weatherData = weatherPayloadDecoder.decode(city, payload);
+
+        assertEquals(1661870592L, weatherData.getTimestamp());
+        assertNull(weatherData.getAirTemperature());
+        assertNull(weatherData.getWindSpeed());
+        assertNull(weatherData.getHumidity());
+        assertNull(weatherData.getIconCode());
+    }
+
+    @Test
+    void testDecode_MalformedPayload() {
+        assertThrows(IOException.class, () -> weatherPayloadDecoder.decode(city, "{}"));
+        assertThrows(IOException.class, () -> weatherPayloadDecoder.decode(city, "[]"));
+        assertThrows(IOException.class, () -> weatherPayloadDecoder.decode(city, "{ \"dt\": 1661870592"));
+    }
+}
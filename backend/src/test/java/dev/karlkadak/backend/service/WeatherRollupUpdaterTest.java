@@ -0,0 +1,222 @@
+package dev.karlkadak.backend.service;
+
+import dev.karlkadak.backend.entity.City;
+import dev.karlkadak.backend.entity.RollupResolution;
+import dev.karlkadak.backend.entity.WeatherData;
+import dev.karlkadak.backend.entity.WeatherRollup;
+import dev.karlkadak.backend.repository.CityRepository;
+import dev.karlkadak.backend.repository.WeatherDataRepository;
+import dev.karlkadak.backend.repository.WeatherRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WeatherRollupUpdaterTest {
+
+    @Mock
+    private WeatherRollupRepository weatherRollupRepository;
+
+    @Mock
+    private WeatherDataRepository weatherDataRepository;
+
+    @Mock
+    private CityRepository cityRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ThreadPoolTaskScheduler maintenanceScheduler;
+
+    @Mock
+    private Logger logger;
+
+    private WeatherRollupUpdater weatherRollupUpdater;
+
+    private City city;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        weatherRollupUpdater = new WeatherRollupUpdater(weatherRollupRepository, weatherDataRepository, cityRepository,
+                                                        new TransactionTemplate(transactionManager),
+                                                        maintenanceScheduler, logger);
+        weatherRollupUpdater.setRepairInterval(Duration.ofHours(1));
+        weatherRollupUpdater.setRepairWindow(Duration.ofDays(2));
+        city = new City("Tallinn", 59.4372155, 24.7453688, "EE");
+        ReflectionTestUtils.setField(city, "id", 1L);
+    }
+
+    @Test
+    void testOnSaved() {
+        WeatherRollup existingHourly = new WeatherRollup(city, RollupResolution.HOURLY, 3600);
+        existingHourly.add(4D, 2D, 80);
+        doReturn(List.of(existingHourly)).when(weatherRollupRepository)
+                                         .findAllByCity_IdInAndResolutionAndBucketStart(Set.of(1L),
+                                                                                        RollupResolution.HOURLY,
+                                                                                        3600L);
+        doReturn(city).when(cityRepository).getReferenceById(1L);
+        WeatherDataRepository.BucketAggregate hourly = bucketAggregate(3, 4D, 10D, 60, 80);
+        doReturn(List.of(hourly)).when(weatherDataRepository).aggregateObservedBetween(Set.of(1L), 3600L, 7200L);
+        WeatherDataRepository.BucketAggregate daily = bucketAggregate(4, 4D, 10D, 60, 80);
+        doReturn(List.of(daily)).when(weatherDataRepository).aggregateObservedBetween(Set.of(1L), 0L, 86400L);
+
+        weatherRollupUpdater.onSaved(List.of(new WeatherData(city, 4000L, 10D, 5D, 60, "01d"),
+                                             new WeatherData(city, 7300L, null, 3D, null, "01d")));
+
+        Map<String, WeatherRollup> rollups = savedRollups(2);
+        assertEquals(Set.of("HOURLY-3600", "DAILY-0"), rollups.keySet());
+        assertSame(existingHourly, rollups.get("HOURLY-3600"));
+        // Recomputed from the saved observations instead of incremented
+        assertEquals(3, existingHourly.getObservationCount());
+        assertEquals(4D, existingHourly.getAirTemperature().getMin());
+        assertEquals(10D, existingHourly.getAirTemperature().getMax());
+        assertEquals(7D, existingHourly.getAirTemperature().getAverage());
+        assertEquals(70D, existingHourly.getHumidity().getAverage());
+        assertEquals(4, rollups.get("DAILY-0").getObservationCount());
+        verify(weatherDataRepository, times(1)).aggregateObservedBetween(Set.of(1L), 7200L, 10800L);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void testOnSaved_RetriedAfterConcurrentInsert() {
+        doReturn(city).when(cityRepository).getReferenceById(1L);
+        WeatherDataRepository.BucketAggregate aggregate = bucketAggregate(1, 10D, 10D, 60, 60);
+        doReturn(List.of(aggregate)).when(weatherDataRepository)
+                                    .aggregateObservedBetween(anyCollection(), anyLong(), anyLong());
+        doThrow(new DataIntegrityViolationException("Duplicate rollup")).doReturn(List.of())
+                                                                         .when(weatherRollupRepository)
+                                                                         .saveAll(anyCollection());
+
+        weatherRollupUpdater.onSaved(List.of(new WeatherData(city, 4000L, 10D, 5D, 60, "01d")));
+
+        verify(weatherRollupRepository, times(3)).saveAll(anyCollection());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void testRepair() {
+        doReturn(city).when(cityRepository).getReferenceById(1L);
+        WeatherDataRepository.BucketAggregate aggregate = bucketAggregate(1, 10D, 10D, 60, 60);
+        doReturn(List.of(aggregate)).when(weatherDataRepository).aggregateObservedBetween(anyLong(), anyLong());
+        doThrow(new IllegalStateException("Connection lost")).when(weatherRollupRepository)
+                                                             .findAllByResolutionAndBucketStart(
+                                                                     eq(RollupResolution.DAILY), anyLong());
+
+        // Noon of the 11th day, the repair starts from the start of the 9th day
+        weatherRollupUpdater.repair(907_200L);
+
+        // 2.5 days cover 61 hourly and 3 daily buckets
+        verify(weatherRollupRepository, times(61)).saveAll(anyCollection());
+        verify(weatherDataRepository, times(1)).aggregateObservedBetween(691_200L, 694_800L);
+        verify(logger, times(3)).warning(anyString());
+        verify(weatherDataRepository, never()).aggregateObservedBetween(anyCollection(), anyLong(), anyLong());
+    }
+
+    @Test
+    void testStart() {
+        weatherRollupUpdater.start();
+
+        // Nothing is read during startup
+        verifyNoInteractions(weatherDataRepository, cityRepository);
+        verify(maintenanceScheduler, times(1)).scheduleWithFixedDelay(any(Runnable.class), any(Instant.class),
+                                                                      eq(Duration.ofHours(1)));
+        ArgumentCaptor<Runnable> backfillAndRepair = ArgumentCaptor.forClass(Runnable.class);
+        verify(maintenanceScheduler, times(1)).execute(backfillAndRepair.capture());
+
+        backfillAndRepair.getValue().run();
+
+        verify(cityRepository, times(1)).findAllByRollupsBackfilledIsNull();
+        verify(weatherDataRepository, atLeast(49 + 3)).aggregateObservedBetween(anyLong(), anyLong());
+    }
+
+    @Test
+    void testBackfill() {
+        WeatherRollup storedHourly = new WeatherRollup(city, RollupResolution.HOURLY, 0);
+        storedHourly.add(4D, 2D, 80);
+        doReturn(List.of(city)).when(cityRepository).findAllByRollupsBackfilledIsNull();
+        doReturn(List.of(storedHourly)).when(weatherRollupRepository).findAllByCity_Id(1L);
+        List<WeatherDataRepository.Observation> firstPage = new ArrayList<>();
+        for (long timestamp = 0; timestamp < 1000 * 900L; timestamp += 900) firstPage.add(observation(timestamp));
+        doReturn(firstPage).when(weatherDataRepository)
+                           .findHistory(eq(1L), anyLong(), anyLong(), eq(Long.MIN_VALUE), eq(Long.MIN_VALUE),
+                                        any(Limit.class));
+        doReturn(List.of(observation(900_000L))).when(weatherDataRepository)
+                                                .findHistory(eq(1L), anyLong(), anyLong(), eq(899_100L), eq(999L),
+                                                             any(Limit.class));
+
+        weatherRollupUpdater.backfill(2_000_000L);
+
+        // 1001 observations, 15 minutes apart, cover 251 hours within 11 days
+        Map<String, WeatherRollup> rollups = savedRollups(1);
+        assertEquals(251 + 11, rollups.size());
+        // The stored rollup is replaced instead of added to
+        assertSame(storedHourly, rollups.get("HOURLY-0"));
+        assertEquals(4, storedHourly.getObservationCount());
+        assertEquals(96, rollups.get("DAILY-0").getObservationCount());
+        assertEquals(1, rollups.get("HOURLY-900000").getObservationCount());
+        // Only the buckets before the start of the day the repair window starts on are backfilled
+        verify(weatherDataRepository, times(2)).findHistory(eq(1L), eq(Long.MIN_VALUE), eq(1_814_399L), anyLong(),
+                                                            anyLong(), any(Limit.class));
+        verify(cityRepository, times(1)).updateRollupsBackfilled(1L);
+        verify(transactionManager, times(1)).commit(any());
+        verify(logger, times(1)).info(anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, WeatherRollup> savedRollups(int saveCount) {
+        ArgumentCaptor<Collection<WeatherRollup>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(weatherRollupRepository, times(saveCount)).saveAll(captor.capture());
+        Map<String, WeatherRollup> rollups = new HashMap<>();
+        for (Collection<WeatherRollup> saved : captor.getAllValues()) {
+            for (WeatherRollup rollup : saved) {
+                rollups.put(rollup.getResolution() + "-" + rollup.getBucketStart(), rollup);
+            }
+        }
+        return rollups;
+    }
+
+    private static WeatherDataRepository.BucketAggregate bucketAggregate(long observationCount,
+                                                                         double minAirTemperature,
+                                                                         double maxAirTemperature, int minHumidity,
+                                                                         int maxHumidity) {
+        WeatherDataRepository.BucketAggregate aggregate = mock(WeatherDataRepository.BucketAggregate.class);
+        doReturn(1L).when(aggregate).getCityId();
+        doReturn(observationCount).when(aggregate).getObservationCount();
+        doReturn(2L).when(aggregate).getAirTemperatureCount();
+        doReturn(minAirTemperature + maxAirTemperature).when(aggregate).getAirTemperatureSum();
+        doReturn(minAirTemperature).when(aggregate).getAirTemperatureMin();
+        doReturn(maxAirTemperature).when(aggregate).getAirTemperatureMax();
+        doReturn(2L).when(aggregate).getHumidityCount();
+        doReturn((double) minHumidity + maxHumidity).when(aggregate).getHumiditySum();
+        doReturn((double) minHumidity).when(aggregate).getHumidityMin();
+        doReturn((double) maxHumidity).when(aggregate).getHumidityMax();
+        return aggregate;
+    }
+
+    private static WeatherDataRepository.Observation observation(long timestamp) {
+        WeatherDataRepository.Observation observation = mock(WeatherDataRepository.Observation.class);
+        doReturn(timestamp / 900).when(observation).getId();
+        doReturn(timestamp).when(observation).getTimestamp();
+        doReturn(1D).when(observation).getAirTemperature();
+        return observation;
+    }
+}
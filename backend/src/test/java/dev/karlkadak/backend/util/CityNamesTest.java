@@ -0,0 +1,17 @@
+package dev.karlkadak.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CityNamesTest {
+
+    @Test
+    void testNormalize() {
+        assertEquals("tallinn", CityNames.normalize("Tallinn"));
+        assertEquals("tallinn", CityNames.normalize("  TALLINN\t"));
+        assertEquals("sao paulo", CityNames.normalize("São   Paulo"));
+        assertEquals("koln", CityNames.normalize("Köln"));
+        assertEquals("parnu", CityNames.normalize("PÄRNU"));
+    }
+}
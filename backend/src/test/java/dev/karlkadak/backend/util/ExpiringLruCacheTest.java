@@ -0,0 +1,54 @@
+package dev.karlkadak.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringLruCacheTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    @Test
+    void testPutAndGet() {
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(10, nanoTime::get);
+
+        cache.put("a", 1, Duration.ofMinutes(1));
+        cache.put("a", 2, Duration.ofMinutes(1));
+
+        assertEquals(2, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testGet_Expired() {
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(10, nanoTime::get);
+        cache.put("short", 1, Duration.ofSeconds(10));
+        cache.put("long", 2, Duration.ofMinutes(10));
+
+        nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertNull(cache.get("short"));
+        assertEquals(2, cache.get("long"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsed() {
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(2, nanoTime::get);
+        cache.put("a", 1, Duration.ofMinutes(1));
+        cache.put("b", 2, Duration.ofMinutes(1));
+
+        // Reading "a" makes "b" the least recently used entry
+        cache.get("a");
+        cache.put("c", 3, Duration.ofMinutes(1));
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+}
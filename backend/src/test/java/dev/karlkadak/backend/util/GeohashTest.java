@@ -0,0 +1,29 @@
+package dev.karlkadak.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeohashTest {
+
+    @Test
+    void testEncode() {
+        assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        assertEquals("ud9d5", Geohash.encode(59.4372155, 24.7453688, 5));
+        assertEquals("r3gx2", Geohash.encode(-33.8688, 151.2093, 5));
+    }
+
+    @Test
+    void testEncode_NearbyCoordinatesShareCell() {
+        // Tallinn city centre and Lasnamäe are roughly 3 kilometres apart
+        assertEquals(Geohash.encode(59.4372155, 24.7453688, 4), Geohash.encode(59.4270, 24.7900, 4));
+        assertNotEquals(Geohash.encode(59.4372155, 24.7453688, 5), Geohash.encode(59.4270, 24.7900, 5));
+        assertNotEquals(Geohash.encode(59.4372155, 24.7453688, 4), Geohash.encode(58.3801207, 26.7209911, 4));
+    }
+
+    @Test
+    void testEncode_UnsupportedPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> Geohash.encode(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> Geohash.encode(0, 0, Geohash.MAX_PRECISION + 1));
+    }
+}
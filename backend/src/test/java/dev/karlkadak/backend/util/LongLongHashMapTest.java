@@ -0,0 +1,47 @@
+package dev.karlkadak.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongLongHashMapTest {
+
+    @Test
+    void testPutAndGet() {
+        LongLongHashMap map = new LongLongHashMap();
+
+        map.put(1, 100);
+        map.put(0, 50);
+        map.put(-7, 70);
+        map.put(1, 101);
+
+        assertEquals(101, map.get(1, -1));
+        assertEquals(50, map.get(0, -1));
+        assertEquals(70, map.get(-7, -1));
+        assertEquals(-1, map.get(2, -1));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void testPut_Resizes() {
+        LongLongHashMap map = new LongLongHashMap();
+
+        for (long key = 1; key <= 10_000; key++) map.put(key, key * 2);
+
+        assertEquals(10_000, map.size());
+        for (long key = 1; key <= 10_000; key++) assertEquals(key * 2, map.get(key, -1));
+    }
+
+    @Test
+    void testClear() {
+        LongLongHashMap map = new LongLongHashMap();
+        map.put(0, 1);
+        map.put(1, 1);
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(0, -1));
+        assertEquals(-1, map.get(1, -1));
+    }
+}
@@ -0,0 +1,48 @@
+package dev.karlkadak.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectHashMapTest {
+
+    @Test
+    void testPutAndGet() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        map.put(1, "a");
+        map.put(0, "zero");
+        map.put(-7, "b");
+        map.put(1, "c");
+
+        assertEquals("c", map.get(1));
+        assertEquals("zero", map.get(0));
+        assertEquals("b", map.get(-7));
+        assertNull(map.get(2));
+        assertEquals(3, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(3, null));
+    }
+
+    @Test
+    void testPut_Resizes() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+
+        for (long key = 1; key <= 10_000; key++) map.put(key, key * 2);
+
+        assertEquals(10_000, map.size());
+        for (long key = 1; key <= 10_000; key++) assertEquals(key * 2, map.get(key));
+    }
+
+    @Test
+    void testClear() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(0, "a");
+        map.put(1, "b");
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertNull(map.get(0));
+        assertNull(map.get(1));
+    }
+}
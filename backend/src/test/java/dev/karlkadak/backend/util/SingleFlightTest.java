@@ -0,0 +1,104 @@
+package dev.karlkadak.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+    @Test
+    void testExecute_SharesInFlightCall()
+            throws Exception {
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger callCount = new AtomicInteger();
+
+        List<Future<Integer>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            results.add(executor.submit(() -> singleFlight.execute("tallinn", () -> {
+                callCount.incrementAndGet();
+                callStarted.countDown();
+                awaitUninterruptibly(release);
+                return 42;
+            })));
+            callStarted.await();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("tallinn", callCount::incrementAndGet)));
+            }
+
+            // Wait for the other callers to join the in-flight call before completing it
+            Thread.sleep(100);
+            release.countDown();
+        }
+
+        for (Future<Integer> result : results) assertEquals(42, result.get());
+        assertEquals(1, callCount.get());
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    void testExecute_SharesException()
+            throws Exception {
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> failedCall;
+        Future<Integer> sharedCall;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            failedCall = executor.submit(() -> singleFlight.execute("tallinn", () -> {
+                callStarted.countDown();
+                awaitUninterruptibly(release);
+                throw new IllegalStateException("failed");
+            }));
+            callStarted.await();
+            sharedCall = executor.submit(() -> singleFlight.execute("tallinn", () -> 1));
+            Thread.sleep(100);
+            release.countDown();
+        }
+
+        ExecutionException e = assertThrows(ExecutionException.class, failedCall::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+        e = assertThrows(ExecutionException.class, sharedCall::get);
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+
+        // Completed calls are not remembered
+        assertEquals(2, singleFlight.execute("tallinn", () -> 2));
+    }
+
+    @Test
+    void testExecute_DifferentKeysRunInParallel()
+            throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Integer> tallinn = executor.submit(() -> singleFlight.execute("tallinn", () -> {
+                bothStarted.countDown();
+                awaitUninterruptibly(bothStarted);
+                return 1;
+            }));
+            Future<Integer> tartu = executor.submit(() -> singleFlight.execute("tartu", () -> {
+                bothStarted.countDown();
+                awaitUninterruptibly(bothStarted);
+                return 2;
+            }));
+
+            assertEquals(1, tallinn.get(5, TimeUnit.SECONDS));
+            assertEquals(2, tartu.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
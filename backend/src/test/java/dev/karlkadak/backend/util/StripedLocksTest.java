@@ -0,0 +1,44 @@
+package dev.karlkadak.backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StripedLocksTest {
+
+    @Test
+    void testGet_EqualKeysShareLock() {
+        StripedLocks stripedLocks = new StripedLocks(16);
+
+        assertSame(stripedLocks.get("tallinn"), stripedLocks.get(new String("tallinn")));
+    }
+
+    @Test
+    void testGet_KeysSpreadOverStripes() {
+        StripedLocks stripedLocks = new StripedLocks(10);
+        Map<Lock, Boolean> usedLocks = new IdentityHashMap<>();
+
+        for (int i = 0; i < 1000; i++) usedLocks.put(stripedLocks.get("city" + i), true);
+
+        // The amount of stripes is rounded up to 16
+        assertEquals(16, usedLocks.size());
+    }
+
+    @Test
+    void testGetAll_DistinctLocksInFixedOrder() {
+        StripedLocks stripedLocks = new StripedLocks(16);
+
+        List<Lock> locks = stripedLocks.getAll(List.of("tallinn", "tartu", "tallinn"));
+
+        assertEquals(new HashSet<>(List.of(stripedLocks.get("tallinn"), stripedLocks.get("tartu"))),
+                     new HashSet<>(locks));
+        assertEquals(locks.size(), new HashSet<>(locks).size());
+        assertEquals(locks, stripedLocks.getAll(List.of("tartu", "tallinn")));
+    }
+}